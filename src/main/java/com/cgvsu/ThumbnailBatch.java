@@ -0,0 +1,338 @@
+package com.cgvsu;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.rendering.OffscreenRenderer;
+import com.cgvsu.render_engine.rendering.RenderSettings;
+import com.cgvsu.render_engine.transform.Transform;
+import com.cgvsu.render_engine.utils.NormalCalculator;
+import com.cgvsu.render_engine.utils.Triangulator;
+import com.cgvsu.utils.math.Vector3f;
+import com.cgvsu.utils.objtools.ObjReader;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Пакетное создание миниатюр: все OBJ из каталога (рекурсивно) рендерятся без окна
+ * и сохраняются в PNG с той же структурой подкаталогов.
+ * <p>
+ * Модели обрабатываются пулом из фиксированного числа потоков; у каждого потока свой
+ * {@link OffscreenRenderer}, растеризация внутри кадра однопоточная. Камера
+ * наводится на ограничивающий объём модели.
+ * <p>
+ * Запуск: {@code ThumbnailBatch <каталог OBJ> <каталог PNG> [--size WxH] [--threads N] [--cull-back-faces]}
+ */
+public class ThumbnailBatch {
+
+    private static final float FOV = (float) Math.toRadians(45);
+    private static final int BACKGROUND = 0xFF2B2B2B;
+
+    /** Направление от центра модели к камере (вид спереди-сверху-справа) */
+    private static final Vector3f VIEW_DIRECTION = new Vector3f(0.6f, 0.45f, 1.0f).normalize();
+
+    /** Период замера заполнения кучи */
+    private static final long HEAP_SAMPLE_MILLIS = 10;
+
+    private static final String USAGE =
+            "Usage: ThumbnailBatch <input dir> <output dir> [--size WxH] [--threads N] [--cull-back-faces]";
+
+    private final Path outputDir;
+    private final int width;
+    private final int height;
+    private final int threads;
+
+    private final ThreadLocal<OffscreenRenderer> renderers;
+
+    /** Отсечение задних граней: быстрее для замкнутых моделей, но открытые сканы получат дыры */
+    private boolean backFaceCulling;
+
+    public ThumbnailBatch(Path outputDir, int width, int height, int threads) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Неверный размер миниатюры: " + width + "x" + height);
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным: " + threads);
+        }
+        this.outputDir = outputDir;
+        this.width = width;
+        this.height = height;
+        this.threads = threads;
+        this.renderers = ThreadLocal.withInitial(() -> {
+            OffscreenRenderer renderer = new OffscreenRenderer(width, height);
+            renderer.setBackground(BACKGROUND);
+            return renderer;
+        });
+    }
+
+    public void setBackFaceCulling(boolean backFaceCulling) {
+        this.backFaceCulling = backFaceCulling;
+    }
+
+    /** Итог обработки */
+    public static final class Report {
+        private final int models;
+        private final int failed;
+        private final long triangles;
+        private final long elapsedNanos;
+        private final long peakHeapBytes;
+
+        Report(int models, int failed, long triangles, long elapsedNanos, long peakHeapBytes) {
+            this.models = models;
+            this.failed = failed;
+            this.triangles = triangles;
+            this.elapsedNanos = elapsedNanos;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        /** Успешно обработанные модели */
+        public int getModels() { return models; }
+        public int getFailed() { return failed; }
+        public long getTriangles() { return triangles; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * Наибольшее заполнение кучи за время обработки по замерам раз в HEAP_SAMPLE_MILLIS мс
+         * (кратковременный пик между замерами может быть пропущен)
+         */
+        public long getPeakHeapBytes() { return peakHeapBytes; }
+
+        public double getModelsPerSecond() {
+            return elapsedNanos > 0 ? models * 1e9 / elapsedNanos : 0;
+        }
+
+        public double getTrianglesPerSecond() {
+            return elapsedNanos > 0 ? triangles * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d models (%d failed), %d triangles in %.2f s: %.1f models/s, %.0f triangles/s, sampled peak heap %.1f MB",
+                    models, failed, triangles, elapsedNanos / 1e9, getModelsPerSecond(),
+                    getTrianglesPerSecond(), peakHeapBytes / (1024.0 * 1024.0));
+        }
+    }
+
+    /** Все файлы .obj в каталоге и подкаталогах, в порядке путей */
+    public static List<Path> findModels(Path inputDir) throws IOException {
+        try (Stream<Path> files = Files.walk(inputDir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".obj"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /** Миниатюры для всех OBJ из каталога */
+    public Report run(Path inputDir) throws IOException, InterruptedException {
+        List<Path> files = findModels(inputDir);
+        HeapSampler heap = new HeapSampler();
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int models = 0;
+        int failed = 0;
+        long triangles = 0;
+        try {
+            List<Future<Integer>> results = new ArrayList<>(files.size());
+            for (Path file : files) {
+                Path output = outputFor(inputDir, file);
+                results.add(pool.submit(() -> renderThumbnail(file, output)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    triangles += results.get(i).get();
+                    models++;
+                } catch (ExecutionException e) {
+                    failed++;
+                    System.err.println(files.get(i) + ": " + e.getCause().getMessage());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            heap.stop();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        return new Report(models, failed, triangles, elapsed, heap.getPeak());
+    }
+
+    /**
+     * Загружает модель, рендерит и сохраняет PNG.
+     *
+     * @return число треугольников модели
+     */
+    public int renderThumbnail(Path file, Path output) throws IOException {
+        Model model = ObjReader.read(file);
+        Triangulator.triangulate(model);
+        NormalCalculator.calculateNormals(model);
+
+        RenderSettings settings = new RenderSettings();
+        settings.setRenderThreads(1);
+        settings.setBackFaceCulling(backFaceCulling);
+        Camera camera = frameCamera(model, (float) width / height);
+
+        OffscreenRenderer renderer = renderers.get();
+        Path parent = output.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        ImageIO.write(renderer.renderImage(model, camera, new Transform(), settings), "png", output.toFile());
+        return model.getMesh().getPolygonCount();
+    }
+
+    /** Камера, в кадр которой целиком помещается ограничивающая сфера модели */
+    public static Camera frameCamera(Model model, float aspectRatio) {
+        Mesh mesh = model.getMesh();
+        if (mesh.getVertexCount() == 0) {
+            return new Camera("thumbnail", new Vector3f(0, 0, 5), new Vector3f(0, 0, 0),
+                    FOV, aspectRatio, 0.1f, 100f);
+        }
+
+        float[] positions = mesh.getPositions();
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < 3 * mesh.getVertexCount(); i += 3) {
+            minX = Math.min(minX, positions[i]);
+            minY = Math.min(minY, positions[i + 1]);
+            minZ = Math.min(minZ, positions[i + 2]);
+            maxX = Math.max(maxX, positions[i]);
+            maxY = Math.max(maxY, positions[i + 1]);
+            maxZ = Math.max(maxZ, positions[i + 2]);
+        }
+        Vector3f center = new Vector3f((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+        float radius = Math.max(1e-3f, new Vector3f(maxX - minX, maxY - minY, maxZ - minZ).length() / 2);
+
+        // сфера должна поместиться в более узкий из углов обзора
+        float halfFov = FOV / 2;
+        if (aspectRatio < 1) halfFov = (float) Math.atan(Math.tan(halfFov) * aspectRatio);
+        float distance = radius / (float) Math.sin(halfFov) * 1.05f;
+
+        Vector3f position = center.add(VIEW_DIRECTION.multiply(distance));
+        float near = Math.max((distance - radius) * 0.5f, distance * 1e-3f);
+        float far = distance + radius * 2;
+        return new Camera("thumbnail", position, center, FOV, aspectRatio, near, far);
+    }
+
+    /** Путь PNG для модели: относительный путь внутри входного каталога с расширением .png */
+    private Path outputFor(Path inputDir, Path file) {
+        Path relative = inputDir.relativize(file);
+        String name = relative.getFileName().toString();
+        String png = name.substring(0, name.length() - ".obj".length()) + ".png";
+        return outputDir.resolve(relative).resolveSibling(png);
+    }
+
+    /**
+     * Замеры общего заполнения кучи в фоновом потоке. Пики отдельных пулов памяти
+     * (eden, survivor, old) приходятся на разные моменты, и их сумма завышала бы пик.
+     */
+    private static final class HeapSampler {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peak = new AtomicLong();
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-heap-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        HeapSampler() {
+            sample();
+            timer.scheduleAtFixedRate(this::sample, HEAP_SAMPLE_MILLIS, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        private void sample() {
+            peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+
+        void stop() {
+            timer.shutdownNow();
+            sample();
+        }
+
+        long getPeak() {
+            return peak.get();
+        }
+    }
+
+    /**
+     * Пакет по аргументам командной строки (без двух первых — каталогов).
+     *
+     * @throws IllegalArgumentException при неизвестном или неверном параметре
+     */
+    static ThumbnailBatch fromArgs(Path outputDir, String[] args, int from) {
+        int width = 256;
+        int height = 256;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean backFaceCulling = false;
+        for (int i = from; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size" -> {
+                    String[] size = optionValue(args, i++).toLowerCase(Locale.ROOT).split("x", -1);
+                    if (size.length != 2) throw new IllegalArgumentException("Expected --size WxH: " + args[i]);
+                    width = parseNumber("--size", size[0]);
+                    height = parseNumber("--size", size[1]);
+                }
+                case "--threads" -> threads = parseNumber("--threads", optionValue(args, i++));
+                case "--cull-back-faces" -> backFaceCulling = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        ThumbnailBatch batch = new ThumbnailBatch(outputDir, width, height, threads);
+        batch.setBackFaceCulling(backFaceCulling);
+        return batch;
+    }
+
+    private static String optionValue(String[] args, int option) {
+        if (option + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + args[option]);
+        return args[option + 1];
+    }
+
+    private static int parseNumber(String option, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        ThumbnailBatch batch = null;
+        try {
+            batch = fromArgs(Paths.get(args[1]), args, 2);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        Report report = batch.run(Paths.get(args[0]));
+        System.out.println(report);
+        if (report.getFailed() > 0) System.exit(1);
+    }
+}
@@ -2,6 +2,7 @@ package com.cgvsu.controller;
 
 import com.cgvsu.manager.SceneManager;
 import com.cgvsu.manager.UIManager;
+import com.cgvsu.model.IndexSelection;
 import com.cgvsu.model.Model;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
@@ -9,7 +10,6 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class DeletionController {
 
@@ -24,7 +24,7 @@ public class DeletionController {
     private final UIManager uiManager;
     private Model currentModel;
     private ToggleGroup deleteTypeGroup;
-    private Set<Integer> selectedIndices = new HashSet<>();
+    private IndexSelection selectedIndices = new IndexSelection();
     private Runnable onModelChanged;
 
     public DeletionController(SceneManager sceneManager, UIManager uiManager) {
@@ -109,7 +109,10 @@ public class DeletionController {
     // Удаление неиспользуемых вершин
     @FXML private void handleDeleteUnused() {
         if (currentModel == null) { showStatus("Модель не загружена", "error"); return; }
-        int deleted = currentModel.deleteUnusedVertices();
+        int deleted;
+        synchronized (currentModel) {
+            deleted = currentModel.deleteUnusedVertices();
+        }
         showStatus(String.format("Удалено %d неиспользуемых вершин", deleted), "success");
         updateStatistics();
         notifyModelChanged();
@@ -140,11 +143,11 @@ public class DeletionController {
         boolean isVertexMode = vertexRadioButton != null && vertexRadioButton.isSelected();
         int maxIndex = isVertexMode ? currentModel.getVertices().size() - 1 : currentModel.getPolygons().size() - 1;
 
-        for (int index : selectedIndices) {
-            if (index < 0 || index > maxIndex) {
-                showStatus(String.format("Индекс %d выходит за пределы (0-%d)", index, maxIndex), "error");
-                return;
-            }
+        // индексы неотрицательны, достаточно проверить наибольший
+        int lastIndex = selectedIndices.last();
+        if (lastIndex > maxIndex) {
+            showStatus(String.format("Индекс %d выходит за пределы (0-%d)", lastIndex, maxIndex), "error");
+            return;
         }
 
         int deleted = deleteSelectedItems();
@@ -163,7 +166,7 @@ public class DeletionController {
         int maxIndex = isVertexMode ? currentModel.getVertices().size() - 1 : currentModel.getPolygons().size() - 1;
 
         selectedIndices.clear();
-        for (int i = 0; i <= maxIndex; i++) selectedIndices.add(i);
+        if (maxIndex >= 0) selectedIndices.addRange(0, maxIndex);
         if (indicesInput != null) indicesInput.setText("0-" + maxIndex);
 
         updateIndicesInfo();
@@ -179,8 +182,8 @@ public class DeletionController {
     }
 
     // Парсинг строковых индексов
-    private Set<Integer> parseIndices(String input) {
-        Set<Integer> indices = new HashSet<>();
+    private IndexSelection parseIndices(String input) {
+        IndexSelection indices = new IndexSelection();
         for (String part : input.split(",")) {
             part = part.trim();
             if (part.isEmpty()) continue;
@@ -191,7 +194,7 @@ public class DeletionController {
                 int start = Integer.parseInt(range[0].trim());
                 int end = Integer.parseInt(range[1].trim());
                 if (start > end) throw new IllegalArgumentException("Начало диапазона больше конца: " + part);
-                for (int i = start; i <= end; i++) indices.add(i);
+                indices.addRange(start, end);
             } else {
                 indices.add(Integer.parseInt(part));
             }
@@ -202,11 +205,12 @@ public class DeletionController {
     // Удаление выбранных индексов
     private int deleteSelectedItems() {
         if (selectedIndices.isEmpty() || currentModel == null) return 0;
-        List<Integer> list = new ArrayList<>(selectedIndices);
-        list.sort(Collections.reverseOrder());
-        return (vertexRadioButton != null && vertexRadioButton.isSelected())
-                ? currentModel.deleteVertices(list)
-                : currentModel.deletePolygons(list);
+        // поток рендеринга читает модель под её монитором
+        synchronized (currentModel) {
+            return (vertexRadioButton != null && vertexRadioButton.isSelected())
+                    ? currentModel.deleteVertices(selectedIndices)
+                    : currentModel.deletePolygons(selectedIndices);
+        }
     }
 
     // Обновление панели выбранных индексов
@@ -215,15 +219,19 @@ public class DeletionController {
         indicesInfoBox.setVisible(!selectedIndices.isEmpty());
         if (selectedIndices.isEmpty()) return;
 
-        List<Integer> sorted = new ArrayList<>(selectedIndices);
-        Collections.sort(sorted);
-
-        String text = sorted.size() <= 10
-                ? sorted.stream().map(String::valueOf).collect(Collectors.joining(", "))
-                : sorted.get(0) + ", " + sorted.get(1) + ", ..., " + sorted.get(sorted.size() - 1);
+        long count = selectedIndices.size();
+        String text;
+        if (count <= 10) {
+            StringJoiner joiner = new StringJoiner(", ");
+            for (int i = selectedIndices.first(); i >= 0; i = selectedIndices.next(i + 1)) joiner.add(String.valueOf(i));
+            text = joiner.toString();
+        } else {
+            int first = selectedIndices.first();
+            text = first + ", " + selectedIndices.next(first + 1) + ", ..., " + selectedIndices.last();
+        }
 
         if (selectedIndicesLabel != null) selectedIndicesLabel.setText(text);
-        if (indicesCountLabel != null) indicesCountLabel.setText(String.format("Всего: %d элементов", selectedIndices.size()));
+        if (indicesCountLabel != null) indicesCountLabel.setText(String.format("Всего: %d элементов", count));
     }
 
     // Очистка выбора
@@ -39,7 +39,7 @@ public class MainController {
     public MainController() {
         this.renderer = new Renderer();  // Отвечает за рендеринг сцены
         this.sceneManager = new SceneManager(renderer);
-        this.animationManager = new AnimationManager(this::renderFrame);
+        this.animationManager = new AnimationManager();  // Планировщик кадров
         this.uiManager = new UIManager();
         this.modelManager = new ObjFileManager();
         this.inputManager = new DefaultInputManager(sceneManager);
@@ -122,20 +122,14 @@ public class MainController {
         }
     }
 
-    // Запрос рендера из других контроллеров
+    // Запрос рендера из других контроллеров: кадр будет нарисован на ближайшем импульсе планировщика
     public void requestRender() {
-        renderFrame();
-    }
-
-    // Рендер текущего кадра
-    private void renderFrame() {
-        if (viewportController != null) {
-            viewportController.renderFrame();
-        }
+        animationManager.requestFrame();
     }
 
     // Останов анимации при выходе
     public void cleanup() {
         if (animationManager != null) animationManager.stop();
+        if (viewportController != null) viewportController.dispose();
     }
 }
@@ -1,16 +1,30 @@
 package com.cgvsu.controller;
 
 import com.cgvsu.manager.AnimationManager;
+import com.cgvsu.manager.RenderThread;
 import com.cgvsu.manager.SceneManager;
+import com.cgvsu.manager.SceneSnapshot;
 import com.cgvsu.manager.interfaces.InputManagerImpl;
+import com.cgvsu.render_engine.rendering.FramePresenter;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 
-public class ViewportController {
+public class ViewportController implements AnimationManager.FrameListener {
 
     @FXML private AnchorPane canvasContainer;
     @FXML private Canvas canvas;
+    @FXML private ImageView frameView;
+
+    /** Тройной буфер кадров поверх памяти изображения */
+    private FramePresenter presenter;
+
+    /** Поток, в котором рисуются кадры */
+    private RenderThread renderThread;
+
+    /** Снимок последнего запрошенного кадра; null — следующий кадр рисуется обязательно */
+    private SceneSnapshot lastRequested;
 
     private final SceneManager sceneManager;
     private final AnimationManager animationManager;
@@ -27,6 +41,10 @@ public class ViewportController {
 
     @FXML
     private void initialize() {
+        presenter = new FramePresenter(frameView);
+        renderThread = new RenderThread(sceneManager, presenter);
+        renderThread.start();
+        animationManager.setFrameListener(this);
         bindCanvasSize();       // привязка размера Canvas к контейнеру
         setupInputHandlers();   // настройка ввода мыши и клавиатуры
     }
@@ -35,13 +53,14 @@ public class ViewportController {
         canvas.widthProperty().bind(canvasContainer.widthProperty());
         canvas.heightProperty().bind(canvasContainer.heightProperty());
 
-        // ререндер при изменении размеров
-        canvas.widthProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal.doubleValue() > 0) mainController.requestRender();
-        });
-        canvas.heightProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal.doubleValue() > 0) mainController.requestRender();
-        });
+        // буферы кадра пересоздаются только здесь, при изменении размеров
+        canvas.widthProperty().addListener((obs, oldVal, newVal) -> onViewportResized());
+        canvas.heightProperty().addListener((obs, oldVal, newVal) -> onViewportResized());
+    }
+
+    private void onViewportResized() {
+        if (presenter.resize((int) canvas.getWidth(), (int) canvas.getHeight())) lastRequested = null;
+        if (canvas.getWidth() > 0 && canvas.getHeight() > 0) mainController.requestRender();
     }
 
     private void setupInputHandlers() {
@@ -49,14 +68,34 @@ public class ViewportController {
         inputManager.setupKeyboardHandlers(canvas, mainController::requestRender);
     }
 
-    /** Рендер кадра */
-    public void renderFrame() {
-        double width = canvas.getWidth();
-        double height = canvas.getHeight();
-        if (width <= 0 || height <= 0) return;
+    /** Показ последнего готового кадра (каждый импульс планировщика) */
+    @Override
+    public void present() {
+        presenter.presentLatest();
+    }
+
+    /**
+     * Новый кадр: если он запрошен явно или сцена изменилась, снимок ставится
+     * в очередь потока рендеринга.
+     */
+    @Override
+    public void render(boolean requested) {
+        SceneSnapshot snapshot = requested
+                ? sceneManager.snapshot()
+                : sceneManager.snapshotIfChanged(lastRequested);
+        if (snapshot == null) return;   // ничего не изменилось — поток рендеринга спит
+        lastRequested = snapshot;
+        renderThread.request(snapshot);
+    }
+
+    @Override
+    public boolean isFrameInFlight() {
+        return renderThread.isBusy();
+    }
 
-        canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
-        sceneManager.render(canvas.getGraphicsContext2D(), width, height);
+    /** Останов потока рендеринга */
+    public void dispose() {
+        if (renderThread != null) renderThread.stop();
     }
 
     /** Получить Canvas */
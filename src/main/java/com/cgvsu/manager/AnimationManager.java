@@ -1,35 +1,122 @@
 package com.cgvsu.manager;
 
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.util.Duration;
+import javafx.animation.AnimationTimer;
 
+/**
+ * Планировщик кадров на {@link AnimationTimer}.
+ * <p>
+ * На каждом импульсе JavaFX показывается последний готовый кадр. Новый кадр
+ * начинается не чаще целевой частоты: любое число запросов {@link #requestFrame()}
+ * между импульсами даёт не больше одного кадра. Пока предыдущий кадр ещё рисуется,
+ * новый не начинается (импульс пропускается), но не дольше бюджета кадра —
+ * после него запрос отправляется всё равно и будет обработан сразу по готовности.
+ */
 public class AnimationManager {
-    private final Timeline timeline;
-    
-    public AnimationManager(Runnable renderCallback) {
-        this.timeline = new Timeline();
-        timeline.setCycleCount(Animation.INDEFINITE);
-        
-        KeyFrame frame = new KeyFrame(Duration.millis(16), e -> {
-            if (renderCallback != null) {
-                renderCallback.run();
+
+    /** Получатель событий планировщика (область просмотра) */
+    public interface FrameListener {
+        /** Показать последний готовый кадр; вызывается на каждом импульсе */
+        void present();
+
+        /**
+         * Начать новый кадр.
+         *
+         * @param requested кадр был явно запрошен; иначе рисовать только при изменении сцены
+         */
+        void render(boolean requested);
+
+        /** Рисуется ли ещё предыдущий кадр */
+        boolean isFrameInFlight();
+    }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final AnimationTimer timer;
+    private FrameListener listener;
+    private boolean running;
+
+    private boolean requested = true;   // первый кадр рисуется всегда
+    private long lastFrameStart = Long.MIN_VALUE / 2;
+    private long skippedFrames;
+
+    /** Целевая частота кадров (0 — без ограничения, по импульсам JavaFX) */
+    private int targetFps = 60;
+
+    /** Сколько можно ждать завершения предыдущего кадра */
+    private long maxFrameBudgetNanos = 250 * NANOS_PER_MILLI;
+
+    public AnimationManager() {
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onPulse(now);
             }
-        });
-        
-        timeline.getKeyFrames().add(frame);
+        };
+    }
+
+    public void setFrameListener(FrameListener listener) {
+        this.listener = listener;
+    }
+
+    /** Запросить кадр; повторные запросы до следующего кадра объединяются */
+    public void requestFrame() {
+        requested = true;
+    }
+
+    private void onPulse(long now) {
+        if (listener == null) return;
+        listener.present();
+
+        long interval = targetFps > 0 ? NANOS_PER_SECOND / targetFps : 0;
+        long sinceLast = now - lastFrameStart;
+        if (sinceLast < interval) return;
+
+        if (listener.isFrameInFlight() && sinceLast < maxFrameBudgetNanos) {
+            skippedFrames++;
+            return;
+        }
+
+        boolean force = requested;
+        requested = false;
+        lastFrameStart = now;
+        listener.render(force);
     }
-    
-    public void start() { 
-        timeline.play(); 
+
+    public void start() {
+        timer.start();
+        running = true;
     }
 
-    public void stop() { 
-        timeline.stop(); 
+    public void stop() {
+        timer.stop();
+        running = false;
     }
-    
+
     public boolean isRunning() {
-        return timeline.getStatus() == Animation.Status.RUNNING;
+        return running;
+    }
+
+    // ---------- Настройки ----------
+
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    public void setTargetFps(int targetFps) {
+        this.targetFps = Math.max(0, targetFps);
+    }
+
+    public long getMaxFrameBudgetMillis() {
+        return maxFrameBudgetNanos / NANOS_PER_MILLI;
+    }
+
+    public void setMaxFrameBudgetMillis(long millis) {
+        this.maxFrameBudgetNanos = Math.max(0, millis) * NANOS_PER_MILLI;
+    }
+
+    /** Импульсы, пропущенные из-за незавершённого предыдущего кадра */
+    public long getSkippedFrames() {
+        return skippedFrames;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.cgvsu.manager;
+
+import com.cgvsu.render_engine.rendering.FrameBuffer;
+import com.cgvsu.render_engine.rendering.FramePresenter;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Отдельный поток рендеринга.
+ * <p>
+ * Поток JavaFX только ставит снимок сцены в очередь ({@link #request}) и показывает
+ * готовые кадры через {@link FramePresenter#presentLatest()}, поэтому отзывчивость
+ * интерфейса не зависит от размера модели. Очередь — одна ячейка: пока кадр рисуется,
+ * новые запросы заменяют друг друга, и следующим рисуется самый свежий снимок.
+ * Поток запускается отдельным вызовом {@link #start()}.
+ */
+public final class RenderThread {
+
+    private final SceneManager sceneManager;
+    private final FramePresenter presenter;
+
+    private final AtomicReference<SceneSnapshot> pending = new AtomicReference<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean rendering;
+
+    public RenderThread(SceneManager sceneManager, FramePresenter presenter) {
+        this.sceneManager = sceneManager;
+        this.presenter = presenter;
+        this.thread = new Thread(this::loop, "render-thread");
+        thread.setDaemon(true);
+    }
+
+    /** Запуск потока; вызывается один раз после создания */
+    public void start() {
+        thread.start();
+    }
+
+    /** Запросить кадр по снимку сцены (вызывается из потока JavaFX) */
+    public void request(SceneSnapshot snapshot) {
+        pending.set(snapshot);
+        LockSupport.unpark(thread);
+    }
+
+    /** Рисуется кадр или в очереди есть запрос */
+    public boolean isBusy() {
+        return rendering || pending.get() != null;
+    }
+
+    /** Останов потока; текущий кадр дорисовывается */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void loop() {
+        while (running) {
+            SceneSnapshot snapshot = pending.getAndSet(null);
+            if (snapshot == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            FrameBuffer back = presenter.beginFrame();
+            if (back == null) continue;
+
+            rendering = true;
+            try {
+                sceneManager.render(back, snapshot);
+                presenter.publish();
+            } catch (RuntimeException e) {
+                // недорисованный кадр не показываем, поток продолжает работу
+                e.printStackTrace();
+            } finally {
+                rendering = false;
+            }
+        }
+    }
+}
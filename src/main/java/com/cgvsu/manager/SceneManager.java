@@ -2,6 +2,8 @@ package com.cgvsu.manager;
 
 import com.cgvsu.model.Model;
 import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.rendering.FrameBuffer;
+import com.cgvsu.render_engine.rendering.RenderItem;
 import com.cgvsu.render_engine.rendering.RenderSettings;
 import com.cgvsu.render_engine.rendering.RendererImpl;
 import com.cgvsu.utils.math.Vector3f;
@@ -9,7 +11,8 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.scene.canvas.GraphicsContext;
+
+import java.util.List;
 
 public class SceneManager {
 
@@ -44,11 +47,49 @@ public class SceneManager {
     // ------------------------
     // Рендер
     // ------------------------
-    public void render(GraphicsContext gc, double width, double height) {
-        Camera camera = getActiveCamera();
-        Model model = getActiveModel();
-        if (camera != null && model != null) {
-            renderer.render(gc, camera, model, (int) width, (int) height, model.getTransform(), renderSettings);
+    public void render(FrameBuffer target) {
+        render(target, snapshot());
+    }
+
+    /** Снимок активной камеры, всех моделей и настроек (вызывается в потоке JavaFX) */
+    public SceneSnapshot snapshot() {
+        return new SceneSnapshot(getActiveCamera(), models, renderSettings);
+    }
+
+    /**
+     * Снимок сцены, если она изменилась с момента previous.
+     *
+     * @return null, если кадр previous всё ещё актуален
+     */
+    public SceneSnapshot snapshotIfChanged(SceneSnapshot previous) {
+        if (previous != null && previous.isCurrent(getActiveCamera(), models, renderSettings)) {
+            return null;
+        }
+        return snapshot();
+    }
+
+    /**
+     * Рисует все модели снимка в один кадр; может вызываться из потока рендеринга.
+     * Геометрия моделей читается под их мониторами — изменяющий модель код
+     * должен синхронизироваться на ней же.
+     */
+    public void render(FrameBuffer target, SceneSnapshot snapshot) {
+        if (snapshot.isEmpty()) {
+            target.clearDirty(0);
+            return;
+        }
+        renderLocked(target, snapshot, 0);
+    }
+
+    /** Захватывает мониторы моделей по порядку и рисует кадр под всеми ними */
+    private void renderLocked(FrameBuffer target, SceneSnapshot snapshot, int index) {
+        List<RenderItem> items = snapshot.getItems();
+        if (index == items.size()) {
+            renderer.renderScene(target, snapshot.getCamera(), items, snapshot.getSettings());
+            return;
+        }
+        synchronized (items.get(index).getModel()) {
+            renderLocked(target, snapshot, index + 1);
         }
     }
 
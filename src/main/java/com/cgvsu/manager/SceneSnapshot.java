@@ -0,0 +1,86 @@
+package com.cgvsu.manager;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.rendering.RenderItem;
+import com.cgvsu.render_engine.rendering.RenderSettings;
+import com.cgvsu.render_engine.transform.Transform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Снимок состояния сцены для одного кадра, снятый в потоке JavaFX.
+ * <p>
+ * Камера, трансформации моделей и настройки копируются, поэтому поток рендеринга
+ * не видит их изменений посреди кадра. Геометрия моделей не копируется:
+ * её читают под монитором каждой модели (см. {@link SceneManager#render}).
+ * <p>
+ * Вместе со снимком запоминаются версии исходных объектов: по ним
+ * {@link #isCurrent} без копирования проверяет, изменилось ли что-нибудь с момента снимка.
+ */
+public final class SceneSnapshot {
+
+    private final Camera camera;
+    private final List<RenderItem> items;
+    private final RenderSettings settings;
+
+    // версии моделей на момент снимка (у копий камеры, трансформаций и настроек версии свои)
+    private final long[] geometryVersions;
+    private final long[] appearanceVersions;
+
+    SceneSnapshot(Camera camera, List<Model> models, RenderSettings settings) {
+        this.camera = camera != null ? new Camera(camera) : null;
+        this.settings = new RenderSettings(settings);
+
+        List<RenderItem> copies = new ArrayList<>(models.size());
+        geometryVersions = new long[models.size()];
+        appearanceVersions = new long[models.size()];
+        for (int i = 0; i < models.size(); i++) {
+            Model model = models.get(i);
+            copies.add(new RenderItem(model, new Transform(model.getTransform())));
+            geometryVersions[i] = model.getGeometryVersion();
+            appearanceVersions[i] = model.getAppearanceVersion();
+        }
+        this.items = Collections.unmodifiableList(copies);
+    }
+
+    /** Совпадает ли текущее состояние сцены со снимком (кадр можно не перерисовывать) */
+    public boolean isCurrent(Camera camera, List<Model> models, RenderSettings settings) {
+        if ((camera == null) != (this.camera == null)) return false;
+        if (camera != null && camera.getVersion() != this.camera.getVersion()) return false;
+        if (settings.getVersion() != this.settings.getVersion()) return false;
+        if (models.size() != items.size()) return false;
+
+        for (int i = 0; i < models.size(); i++) {
+            Model model = models.get(i);
+            RenderItem item = items.get(i);
+            if (model != item.getModel()
+                    || model.getGeometryVersion() != geometryVersions[i]
+                    || model.getAppearanceVersion() != appearanceVersions[i]
+                    || model.getTransform().getVersion() != item.getTransform().getVersion()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /** Модели сцены со снятыми копиями трансформаций */
+    public List<RenderItem> getItems() {
+        return items;
+    }
+
+    public RenderSettings getSettings() {
+        return settings;
+    }
+
+    /** Есть ли что рисовать */
+    public boolean isEmpty() {
+        return camera == null || items.isEmpty();
+    }
+}
@@ -1,9 +1,11 @@
 package com.cgvsu.manager.implementations;
 
 import com.cgvsu.manager.interfaces.FileManagerImpl;
+import com.cgvsu.model.Mesh;
 import com.cgvsu.model.Model;
 import com.cgvsu.render_engine.utils.NormalCalculator;
 import com.cgvsu.render_engine.utils.Triangulator;
+import com.cgvsu.utils.objtools.MeshCache;
 import com.cgvsu.utils.objtools.ObjReader;
 import com.cgvsu.utils.objtools.ObjWriter;
 import javafx.stage.FileChooser;
@@ -11,10 +13,12 @@ import javafx.stage.Window;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class ObjFileManager implements FileManagerImpl {
 
+    private final MeshCache meshCache = new MeshCache();
+
     @Override
     public void openModelFile(Window window, ModelLoadCallback onSuccess, ModelErrorCallback onError) {
         FileChooser fileChooser = new FileChooser();
@@ -38,13 +42,14 @@ public class ObjFileManager implements FileManagerImpl {
         if (file != null) saveModelToFile(file, model, onSuccess, onError);
     }
 
-    /** Чтение модели из файла и подготовка (триангуляция, нормали) */
+    /**
+     * Чтение модели из файла и подготовка (триангуляция, нормали). Подготовленная
+     * сетка кэшируется рядом с файлом, повторное открытие читает её из кэша.
+     */
     private void loadModelFromFile(File file, ModelLoadCallback onSuccess, ModelErrorCallback onError) {
         try {
-            String fileContent = Files.readString(file.toPath());
-            Model model = ObjReader.read(fileContent);
-            Triangulator.triangulate(model);      // делаем только треугольники
-            NormalCalculator.calculateNormals(model); // считаем нормали
+            Mesh mesh = meshCache.load(file.toPath(), ObjFileManager::prepareMesh);
+            Model model = new Model(mesh);
             model.setName(file.getName());
             onSuccess.onModelLoaded(model);
         } catch (IOException exception) {
@@ -54,14 +59,20 @@ public class ObjFileManager implements FileManagerImpl {
         }
     }
 
+    private static Mesh prepareMesh(Path path) throws IOException {
+        Model model = ObjReader.readParallel(path);  // большие файлы — на всех ядрах
+        Triangulator.triangulate(model);      // делаем только треугольники
+        NormalCalculator.calculateNormals(model); // считаем нормали
+        return model.getMesh();
+    }
+
     /** Сохранение модели в файл */
     private void saveModelToFile(File file, Model model, ModelSaveCallback onSuccess, ModelErrorCallback onError) {
         try {
             if (!file.getName().toLowerCase().endsWith(".obj")) {
                 file = new File(file.getAbsolutePath() + ".obj");
             }
-            String content = ObjWriter.modelToString(model, "From Software3DViewer");
-            Files.writeString(file.toPath(), content);
+            ObjWriter.write(model, "From Software3DViewer", file.toPath());
             onSuccess.onModelSaved("Model saved successfully");
         } catch (IOException exception) {
             onError.onError("Failed to save model: " + exception.getMessage());
@@ -0,0 +1,380 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Множество неотрицательных индексов (выбор вершин или полигонов) в компактном виде.
+ * <p>
+ * Диапазон индексов делится на блоки по 65 536. Каждый непустой блок хранится
+ * либо списком отрезков (пара «начало, конец» — 4 байта на отрезок), либо битовой картой
+ * (8 КБ на блок); блок переходит в битовую карту, когда отрезков становится столько,
+ * что она меньше. Поэтому «0-2000000» занимает десятки байт, а разрозненный выбор —
+ * не больше бита на индекс. Индексы не упаковываются в Integer.
+ */
+public final class IndexSelection {
+
+    /** Получатель отрезков [from, to] (обе границы включительно) */
+    @FunctionalInterface
+    public interface RangeConsumer {
+        void accept(int from, int to);
+    }
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    /** Больше этого числа отрезков блок хранится битовой картой (4 байта на отрезок против 8 КБ) */
+    private static final int MAX_RUNS = 2048;
+
+    private int[] keys = new int[0];              // номера блоков по возрастанию
+    private Container[] containers = new Container[0];
+    private int chunkCount;
+    private long size = -1;                         // кэш числа индексов; -1 — пересчитать
+
+    public IndexSelection() {
+    }
+
+    /** Выбор из одного отрезка [from, to] */
+    public static IndexSelection range(int from, int to) {
+        IndexSelection selection = new IndexSelection();
+        selection.addRange(from, to);
+        return selection;
+    }
+
+    // --------------------- Изменение ---------------------
+
+    public void add(int index) {
+        checkIndex(index);
+        container(index >>> CHUNK_BITS).addRange(index & CHUNK_MASK, index & CHUNK_MASK);
+        size = -1;
+    }
+
+    /** Добавляет все индексы от from до to включительно */
+    public void addRange(int from, int to) {
+        checkIndex(from);
+        if (to < from) throw new IllegalArgumentException("Начало диапазона больше конца: " + from + "-" + to);
+
+        for (int chunk = from >>> CHUNK_BITS; chunk <= to >>> CHUNK_BITS; chunk++) {
+            int lo = chunk == from >>> CHUNK_BITS ? from & CHUNK_MASK : 0;
+            int hi = chunk == to >>> CHUNK_BITS ? to & CHUNK_MASK : CHUNK_MASK;
+            container(chunk).addRange(lo, hi);
+        }
+        size = -1;
+    }
+
+    public void clear() {
+        keys = new int[0];
+        containers = new Container[0];
+        chunkCount = 0;
+        size = 0;
+    }
+
+    // --------------------- Чтение ---------------------
+
+    public boolean isEmpty() {
+        return chunkCount == 0;
+    }
+
+    /** Число выбранных индексов */
+    public long size() {
+        if (size < 0) {
+            long total = 0;
+            for (int i = 0; i < chunkCount; i++) total += containers[i].cardinality();
+            size = total;
+        }
+        return size;
+    }
+
+    public boolean contains(int index) {
+        if (index < 0) return false;
+        int at = Arrays.binarySearch(keys, 0, chunkCount, index >>> CHUNK_BITS);
+        return at >= 0 && containers[at].contains(index & CHUNK_MASK);
+    }
+
+    /**
+     * Наименьший индекс, не меньший from, или -1. Отрицательный from даёт -1:
+     * так обход {@code next(i + 1)} заканчивается и после Integer.MAX_VALUE.
+     */
+    public int next(int from) {
+        if (from < 0) return -1;
+        int chunk = from >>> CHUNK_BITS;
+        int at = Arrays.binarySearch(keys, 0, chunkCount, chunk);
+        if (at < 0) at = -at - 1;
+        for (; at < chunkCount; at++) {
+            int lo = keys[at] == chunk ? from & CHUNK_MASK : 0;
+            int found = containers[at].next(lo);
+            if (found >= 0) return (keys[at] << CHUNK_BITS) | found;
+        }
+        return -1;
+    }
+
+    /** Наименьший индекс или -1 */
+    public int first() {
+        return next(0);
+    }
+
+    /** Наибольший индекс или -1 */
+    public int last() {
+        if (chunkCount == 0) return -1;
+        return (keys[chunkCount - 1] << CHUNK_BITS) | containers[chunkCount - 1].last();
+    }
+
+    /** Перебирает максимальные отрезки подряд идущих индексов по возрастанию */
+    public void forEachRange(RangeConsumer consumer) {
+        int[] pending = {-1, -1};
+        for (int i = 0; i < chunkCount; i++) {
+            int base = keys[i] << CHUNK_BITS;
+            containers[i].forEachRange((lo, hi) -> {
+                int from = base | lo;
+                int to = base | hi;
+                if (pending[0] >= 0 && pending[1] + 1 == from) {
+                    pending[1] = to;    // продолжение отрезка из предыдущего блока
+                    return;
+                }
+                if (pending[0] >= 0) consumer.accept(pending[0], pending[1]);
+                pending[0] = from;
+                pending[1] = to;
+            });
+        }
+        if (pending[0] >= 0) consumer.accept(pending[0], pending[1]);
+    }
+
+    /** Индексы меньше limit в виде BitSet (для операций над сеткой) */
+    public BitSet toBitSet(int limit) {
+        BitSet bits = new BitSet(limit);
+        forEachRange((from, to) -> {
+            if (from < limit) bits.set(from, Math.min(to, limit - 1) + 1);
+        });
+        return bits;
+    }
+
+    /** Приблизительный объём в байтах */
+    public long estimateBytes() {
+        long total = 4L * keys.length + 8L * containers.length;
+        for (int i = 0; i < chunkCount; i++) total += containers[i].bytes();
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        forEachRange((from, to) -> {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(from);
+            if (to > from) sb.append('-').append(to);
+        });
+        return sb.toString();
+    }
+
+    // --------------------- Блоки ---------------------
+
+    private Container container(int chunk) {
+        int at = Arrays.binarySearch(keys, 0, chunkCount, chunk);
+        if (at >= 0) {
+            if (containers[at] instanceof Runs runs && runs.count > MAX_RUNS) {
+                containers[at] = runs.toBitmap();
+            }
+            return containers[at];
+        }
+
+        at = -at - 1;
+        if (chunkCount == keys.length) {
+            int capacity = Math.max(4, 2 * chunkCount);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, at, keys, at + 1, chunkCount - at);
+        System.arraycopy(containers, at, containers, at + 1, chunkCount - at);
+        keys[at] = chunk;
+        containers[at] = new Runs();
+        chunkCount++;
+        return containers[at];
+    }
+
+    private static void checkIndex(int index) {
+        if (index < 0) throw new IllegalArgumentException("Отрицательный индекс: " + index);
+    }
+
+    /** Индексы одного блока (значения 0..65535) */
+    private abstract static class Container {
+        abstract void addRange(int lo, int hi);
+        abstract boolean contains(int value);
+        abstract int next(int from);
+        abstract int last();
+        abstract int cardinality();
+        abstract void forEachRange(RangeConsumer consumer);
+        abstract long bytes();
+    }
+
+    /** Отсортированные непересекающиеся отрезки [start, end], не касающиеся друг друга */
+    private static final class Runs extends Container {
+        char[] starts = new char[2];
+        char[] ends = new char[2];
+        int count;
+
+        @Override
+        void addRange(int lo, int hi) {
+            // первый отрезок, который может слиться с [lo, hi]: его конец >= lo - 1
+            int first = 0;
+            int high = count - 1;
+            while (first <= high) {
+                int mid = (first + high) >>> 1;
+                if (ends[mid] + 1 < lo) first = mid + 1;
+                else high = mid - 1;
+            }
+            // отрезки first .. last сливаются (их начало <= hi + 1)
+            int last = first - 1;
+            while (last + 1 < count && starts[last + 1] <= hi + 1) last++;
+
+            if (last >= first) {
+                lo = Math.min(lo, starts[first]);
+                hi = Math.max(hi, ends[last]);
+                int removed = last - first;
+                System.arraycopy(starts, last + 1, starts, first + 1, count - last - 1);
+                System.arraycopy(ends, last + 1, ends, first + 1, count - last - 1);
+                count -= removed;
+            } else {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, 2 * count);
+                    ends = Arrays.copyOf(ends, 2 * count);
+                }
+                System.arraycopy(starts, first, starts, first + 1, count - first);
+                System.arraycopy(ends, first, ends, first + 1, count - first);
+                count++;
+            }
+            starts[first] = (char) lo;
+            ends[first] = (char) hi;
+        }
+
+        @Override
+        boolean contains(int value) {
+            int at = find(value);
+            return at >= 0 && starts[at] <= value;
+        }
+
+        @Override
+        int next(int from) {
+            int at = find(from);
+            if (at < 0) return -1;
+            return Math.max(from, starts[at]);
+        }
+
+        /** Первый отрезок с концом >= value или -1 */
+        private int find(int value) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (ends[mid] < value) low = mid + 1;
+                else high = mid - 1;
+            }
+            return low < count ? low : -1;
+        }
+
+        @Override
+        int last() {
+            return ends[count - 1];
+        }
+
+        @Override
+        int cardinality() {
+            int total = 0;
+            for (int i = 0; i < count; i++) total += ends[i] - starts[i] + 1;
+            return total;
+        }
+
+        @Override
+        void forEachRange(RangeConsumer consumer) {
+            for (int i = 0; i < count; i++) consumer.accept(starts[i], ends[i]);
+        }
+
+        @Override
+        long bytes() {
+            return 4L * starts.length;
+        }
+
+        Bitmap toBitmap() {
+            Bitmap bitmap = new Bitmap();
+            for (int i = 0; i < count; i++) bitmap.addRange(starts[i], ends[i]);
+            return bitmap;
+        }
+    }
+
+    /** Битовая карта блока: 1024 слова по 64 бита */
+    private static final class Bitmap extends Container {
+        final long[] words = new long[1 << (CHUNK_BITS - 6)];
+
+        @Override
+        void addRange(int lo, int hi) {
+            int firstWord = lo >>> 6;
+            int lastWord = hi >>> 6;
+            long firstMask = -1L << lo;
+            long lastMask = -1L >>> (63 - (hi & 63));
+            if (firstWord == lastWord) {
+                words[firstWord] |= firstMask & lastMask;
+                return;
+            }
+            words[firstWord] |= firstMask;
+            for (int w = firstWord + 1; w < lastWord; w++) words[w] = -1L;
+            words[lastWord] |= lastMask;
+        }
+
+        @Override
+        boolean contains(int value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int next(int from) {
+            int w = from >>> 6;
+            long word = words[w] & (-1L << from);
+            while (true) {
+                if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+                if (++w == words.length) return -1;
+                word = words[w];
+            }
+        }
+
+        @Override
+        int last() {
+            for (int w = words.length - 1; w >= 0; w--) {
+                if (words[w] != 0) return (w << 6) + 63 - Long.numberOfLeadingZeros(words[w]);
+            }
+            return -1;
+        }
+
+        @Override
+        int cardinality() {
+            int total = 0;
+            for (long word : words) total += Long.bitCount(word);
+            return total;
+        }
+
+        @Override
+        void forEachRange(RangeConsumer consumer) {
+            int start = next(0);
+            while (start >= 0) {
+                int end = nextClear(start);
+                consumer.accept(start, end - 1);
+                if (end > CHUNK_MASK) return;
+                start = next(end);
+            }
+        }
+
+        /** Первый сброшенный бит начиная с from (65536, если таких нет) */
+        private int nextClear(int from) {
+            int w = from >>> 6;
+            long word = ~words[w] & (-1L << from);
+            while (true) {
+                if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+                if (++w == words.length) return CHUNK_MASK + 1;
+                word = ~words[w];
+            }
+        }
+
+        @Override
+        long bytes() {
+            return 8L * words.length;
+        }
+    }
+}
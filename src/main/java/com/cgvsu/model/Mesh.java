@@ -0,0 +1,482 @@
+package com.cgvsu.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Геометрия модели в виде примитивных массивов (структура массивов).
+ * <p>
+ * Координаты вершин, текстурные координаты и нормали уложены подряд в массивы float
+ * (x y z x y z ..., u v u v ...). Полигоны хранятся в формате CSR: для каждого потока
+ * индексов (вершины, текстуры, нормали) массив смещений и общий массив индексов,
+ * индексы полигона p — {@code indices[offsets[p] .. offsets[p + 1])}.
+ * Объектов на вершину или полигон нет: вершина занимает 12 байт, угол полигона — 4–12.
+ * <p>
+ * Массивы отдаются напрямую для горячих циклов (рендер, нормали, запись OBJ) и только
+ * для чтения; после любого изменения их нужно получить заново. Действительны первые
+ * {@code count * components} значений. Привычный объектный доступ даёт {@link Model}
+ * через представления-списки.
+ * <p>
+ * Любое изменение присваивает новую версию ({@link #getVersion()}); изменения
+ * полигонов и числа вершин — ещё и новую версию топологии. Не потокобезопасен.
+ */
+public final class Mesh {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /** Полигонов в одном блоке перенумерации при удалении вершин */
+    private static final int REMAP_BLOCK = 4096;
+
+    /** С какого числа углов перенумерация идёт параллельно */
+    private static final int PARALLEL_REMAP_CORNERS = 1 << 16;
+
+    final PackedFloats positions;
+    final PackedFloats textureVertices;
+    final PackedFloats normals;
+
+    final PackedIndices vertexIndices;
+    final PackedIndices textureIndices;
+    final PackedIndices normalIndices;
+
+    private long version = VERSIONS.incrementAndGet();
+    private long topologyVersion = version;
+
+    public Mesh() {
+        positions = new PackedFloats(3);
+        textureVertices = new PackedFloats(2);
+        normals = new PackedFloats(3);
+        vertexIndices = new PackedIndices();
+        textureIndices = new PackedIndices();
+        normalIndices = new PackedIndices();
+    }
+
+    /** Глубокая копия (массивы без запаса ёмкости, новая версия) */
+    public Mesh(Mesh other) {
+        positions = new PackedFloats(other.positions);
+        textureVertices = new PackedFloats(other.textureVertices);
+        normals = new PackedFloats(other.normals);
+        vertexIndices = new PackedIndices(other.vertexIndices);
+        textureIndices = new PackedIndices(other.textureIndices);
+        normalIndices = new PackedIndices(other.normalIndices);
+    }
+
+    // --------------------- Versions ---------------------
+
+    /** Версия геометрии: меняется при любом изменении */
+    public long getVersion() { return version; }
+
+    /** Версия топологии: меняется при изменении полигонов и числа вершин */
+    public long getTopologyVersion() { return topologyVersion; }
+
+    /** Отмечает изменение, сделанное в обход методов (например, правку массива индексов) */
+    public void markChanged() {
+        version = VERSIONS.incrementAndGet();
+    }
+
+    void markTopologyChanged() {
+        version = VERSIONS.incrementAndGet();
+        topologyVersion = version;
+    }
+
+    // --------------------- Vertices ---------------------
+
+    public int getVertexCount() { return positions.count; }
+
+    /** Координаты вершин: x, y, z подряд */
+    public float[] getPositions() { return positions.data; }
+
+    public void addVertex(float x, float y, float z) {
+        int at = positions.append();
+        float[] data = positions.data;
+        data[at] = x;
+        data[at + 1] = y;
+        data[at + 2] = z;
+        markTopologyChanged();
+    }
+
+    public void setVertex(int index, float x, float y, float z) {
+        positions.set(index, x, y, z);
+        markChanged();
+    }
+
+    /** Резервирует место под вершины, чтобы загрузка не копировала массив много раз */
+    public void ensureVertexCapacity(int count) {
+        positions.ensureCapacity(count);
+    }
+
+    // --------------------- Texture vertices ---------------------
+
+    public int getTextureVertexCount() { return textureVertices.count; }
+
+    /** Текстурные координаты: u, v подряд */
+    public float[] getTextureCoords() { return textureVertices.data; }
+
+    public void addTextureVertex(float u, float v) {
+        int at = textureVertices.append();
+        textureVertices.data[at] = u;
+        textureVertices.data[at + 1] = v;
+        markChanged();
+    }
+
+    // --------------------- Normals ---------------------
+
+    public int getNormalCount() { return normals.count; }
+
+    /** Нормали: x, y, z подряд */
+    public float[] getNormals() { return normals.data; }
+
+    public void addNormal(float x, float y, float z) {
+        int at = normals.append();
+        float[] data = normals.data;
+        data[at] = x;
+        data[at + 1] = y;
+        data[at + 2] = z;
+        markChanged();
+    }
+
+    /**
+     * Заменяет все нормали готовым массивом (без копирования).
+     *
+     * @param xyz   нормали, x, y, z подряд
+     * @param count число нормалей
+     */
+    public void setNormals(float[] xyz, int count) {
+        normals.adopt(xyz, count);
+        markChanged();
+    }
+
+    // --------------------- Polygons ---------------------
+
+    public int getPolygonCount() { return vertexIndices.polygons; }
+
+    /** Число вершин полигона */
+    public int getPolygonSize(int polygon) { return vertexIndices.size(polygon); }
+
+    /** Смещения индексов вершин; длина полигона p — offsets[p + 1] - offsets[p] */
+    public int[] getVertexOffsets() { return vertexIndices.offsets; }
+    public int[] getVertexIndices() { return vertexIndices.data; }
+
+    /** Смещения текстурных индексов; у полигона без текстуры список пустой */
+    public int[] getTextureOffsets() { return textureIndices.offsets; }
+    public int[] getTextureIndices() { return textureIndices.data; }
+
+    /** Смещения индексов нормалей; у полигона без нормалей список пустой */
+    public int[] getNormalOffsets() { return normalIndices.offsets; }
+    public int[] getNormalIndices() { return normalIndices.data; }
+
+    /** Общее число углов всех полигонов */
+    public int getCornerCount() { return vertexIndices.total(); }
+
+    /**
+     * Добавляет полигон из первых элементов массивов.
+     *
+     * @param textures индексы текстурных координат или null
+     * @param normals  индексы нормалей или null
+     */
+    public void addPolygon(int[] vertices, int vertexCount,
+                           int[] textures, int textureCount,
+                           int[] normals, int normalCount) {
+        vertexIndices.add(vertices, vertexCount);
+        textureIndices.add(textures, textures != null ? textureCount : 0);
+        normalIndices.add(normals, normals != null ? normalCount : 0);
+        markTopologyChanged();
+    }
+
+    public void addPolygon(Polygon polygon) {
+        vertexIndices.add(polygon.getVertexIndices());
+        textureIndices.add(polygon.getTextureVertexIndices());
+        normalIndices.add(polygon.getNormalIndices());
+        markTopologyChanged();
+    }
+
+    /** Добавляет копию полигона другой сетки (индексы не меняются) */
+    public void addPolygon(Mesh source, int polygon) {
+        source.checkPolygon(polygon);
+        vertexIndices.add(source.vertexIndices, polygon);
+        textureIndices.add(source.textureIndices, polygon);
+        normalIndices.add(source.normalIndices, polygon);
+        markTopologyChanged();
+    }
+
+    /** Полигон в виде отдельного объекта (копия индексов) */
+    public Polygon getPolygon(int polygon) {
+        checkPolygon(polygon);
+        return Polygon.builder()
+                .setVertexIndices(vertexIndices.get(polygon))
+                .setTextureVertexIndices(textureIndices.get(polygon))
+                .setNormalIndices(normalIndices.get(polygon))
+                .build();
+    }
+
+    void insertPolygon(int polygon, Polygon value) {
+        if (polygon < 0 || polygon > getPolygonCount()) {
+            throw new IndexOutOfBoundsException("Index " + polygon + " out of bounds for length " + getPolygonCount());
+        }
+        vertexIndices.insert(polygon, value.getVertexIndices());
+        textureIndices.insert(polygon, value.getTextureVertexIndices());
+        normalIndices.insert(polygon, value.getNormalIndices());
+        markTopologyChanged();
+    }
+
+    void setPolygon(int polygon, Polygon value) {
+        checkPolygon(polygon);
+        vertexIndices.set(polygon, value.getVertexIndices());
+        textureIndices.set(polygon, value.getTextureVertexIndices());
+        normalIndices.set(polygon, value.getNormalIndices());
+        markTopologyChanged();
+    }
+
+    void removePolygon(int polygon) {
+        checkPolygon(polygon);
+        vertexIndices.remove(polygon);
+        textureIndices.remove(polygon);
+        normalIndices.remove(polygon);
+        markTopologyChanged();
+    }
+
+    /**
+     * Удаляет отмеченные полигоны за один проход по массивам.
+     *
+     * @return число удалённых полигонов
+     */
+    public int removePolygons(BitSet polygons) {
+        int before = getPolygonCount();
+        BitSet removed = polygons.get(0, before);
+        if (removed.isEmpty()) return 0;
+        vertexIndices.removeAll(removed);
+        textureIndices.removeAll(removed);
+        normalIndices.removeAll(removed);
+        markTopologyChanged();
+        return before - getPolygonCount();
+    }
+
+    /**
+     * Удаляет отмеченные вершины вместе со всеми полигонами, которые на них ссылаются,
+     * и перенумеровывает индексы остальных полигонов.
+     * <p>
+     * Время линейно по размеру сетки: таблица «старый индекс → новый» строится за один
+     * проход по вершинам (заодно сжимаются координаты), затем один проход по углам
+     * полигонов перенумеровывает индексы и отмечает полигоны с удалёнными вершинами
+     * (на больших сетках — параллельно по блокам полигонов), и массивы индексов сжимаются.
+     *
+     * @return число удалённых вершин
+     */
+    public int removeVertices(BitSet vertices) {
+        int vertexCount = getVertexCount();
+        BitSet removed = vertices.get(0, vertexCount);
+        int removedCount = removed.cardinality();
+        if (removedCount == 0) return 0;
+
+        int[] remap = new int[vertexCount];
+        float[] xyz = positions.data;
+        int kept = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            if (removed.get(v)) {
+                remap[v] = -1;
+                continue;
+            }
+            if (kept != v) System.arraycopy(xyz, 3 * v, xyz, 3 * kept, 3);
+            remap[v] = kept++;
+        }
+        positions.count = kept;
+
+        int polygonCount = getPolygonCount();
+        int[] offsets = vertexIndices.offsets;
+        int[] indices = vertexIndices.data;
+        boolean[] dropped = new boolean[polygonCount];
+        int blocks = (polygonCount + REMAP_BLOCK - 1) / REMAP_BLOCK;
+        IntStream range = IntStream.range(0, blocks);
+        if (getCornerCount() >= PARALLEL_REMAP_CORNERS) range = range.parallel();
+
+        range.forEach(block -> {
+            int end = Math.min(polygonCount, (block + 1) * REMAP_BLOCK);
+            for (int p = block * REMAP_BLOCK; p < end; p++) {
+                for (int i = offsets[p]; i < offsets[p + 1]; i++) {
+                    int index = indices[i];
+                    if (index < 0) continue;
+                    if (index >= vertexCount) {
+                        // битый индекс за концом списка сдвигается, как и раньше
+                        indices[i] = index - removedCount;
+                        continue;
+                    }
+                    int mapped = remap[index];
+                    if (mapped < 0) {
+                        dropped[p] = true;
+                        break;
+                    }
+                    indices[i] = mapped;
+                }
+            }
+        });
+
+        BitSet droppedPolygons = new BitSet(polygonCount);
+        for (int p = 0; p < polygonCount; p++) {
+            if (dropped[p]) droppedPolygons.set(p);
+        }
+        if (!droppedPolygons.isEmpty()) {
+            vertexIndices.removeAll(droppedPolygons);
+            textureIndices.removeAll(droppedPolygons);
+            normalIndices.removeAll(droppedPolygons);
+        }
+        markTopologyChanged();
+        return removedCount;
+    }
+
+    /**
+     * Заменяет все полигоны полигонами другой сетки. Массивы забираются без копирования,
+     * у source полигонов не остаётся.
+     */
+    public void replacePolygons(Mesh source) {
+        vertexIndices.adopt(source.vertexIndices);
+        textureIndices.adopt(source.textureIndices);
+        normalIndices.adopt(source.normalIndices);
+        source.vertexIndices.reset();
+        source.textureIndices.reset();
+        source.normalIndices.reset();
+        markTopologyChanged();
+        source.markTopologyChanged();
+    }
+
+    /** Удаляет у всех полигонов индексы нормалей */
+    public void clearPolygonNormals() {
+        int polygons = getPolygonCount();
+        normalIndices.reset();
+        normalIndices.offsets = new int[polygons + 1];
+        normalIndices.polygons = polygons;
+        markChanged();
+    }
+
+    // --------------------- Bulk ---------------------
+
+    void clearVertices() {
+        positions.clear();
+        markTopologyChanged();
+    }
+
+    void clearTextureVertices() {
+        textureVertices.clear();
+        markChanged();
+    }
+
+    void clearNormals() {
+        normals.clear();
+        markChanged();
+    }
+
+    void clearPolygons() {
+        vertexIndices.clear();
+        textureIndices.clear();
+        normalIndices.clear();
+        markTopologyChanged();
+    }
+
+    /**
+     * Склеивает сетки, собранные по частям (например, при параллельном разборе файла):
+     * элементы и полигоны частей идут подряд в порядке списка. Индексы полигонов
+     * не сдвигаются — части должны уже ссылаться на общую нумерацию. Массивы частей
+     * копируются параллельно, результат без запаса ёмкости.
+     */
+    public static Mesh concat(List<Mesh> parts) {
+        Mesh result = new Mesh();
+        concat(result.positions, parts, mesh -> mesh.positions);
+        concat(result.textureVertices, parts, mesh -> mesh.textureVertices);
+        concat(result.normals, parts, mesh -> mesh.normals);
+        concat(result.vertexIndices, parts, mesh -> mesh.vertexIndices);
+        concat(result.textureIndices, parts, mesh -> mesh.textureIndices);
+        concat(result.normalIndices, parts, mesh -> mesh.normalIndices);
+        return result;
+    }
+
+    private static void concat(PackedFloats target, List<Mesh> parts, Function<Mesh, PackedFloats> stream) {
+        int n = parts.size();
+        int[] starts = new int[n + 1];
+        for (int i = 0; i < n; i++) starts[i + 1] = Math.addExact(starts[i], stream.apply(parts.get(i)).count);
+
+        int components = target.components;
+        float[] data = new float[Math.multiplyExact(starts[n], components)];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            PackedFloats part = stream.apply(parts.get(i));
+            System.arraycopy(part.data, 0, data, starts[i] * components, part.count * components);
+        });
+        target.adopt(data, starts[n]);
+    }
+
+    private static void concat(PackedIndices target, List<Mesh> parts, Function<Mesh, PackedIndices> stream) {
+        int n = parts.size();
+        int[] polygonStarts = new int[n + 1];
+        int[] cornerStarts = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            PackedIndices part = stream.apply(parts.get(i));
+            polygonStarts[i + 1] = Math.addExact(polygonStarts[i], part.polygons);
+            cornerStarts[i + 1] = Math.addExact(cornerStarts[i], part.total());
+        }
+
+        int[] offsets = new int[polygonStarts[n] + 1];
+        int[] data = new int[cornerStarts[n]];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            PackedIndices part = stream.apply(parts.get(i));
+            System.arraycopy(part.data, 0, data, cornerStarts[i], part.total());
+            int base = cornerStarts[i];
+            int at = polygonStarts[i];
+            for (int p = 0; p < part.polygons; p++) offsets[at + p] = part.offsets[p] + base;
+        });
+        offsets[polygonStarts[n]] = cornerStarts[n];
+
+        target.offsets = offsets;
+        target.data = data;
+        target.polygons = polygonStarts[n];
+    }
+
+    /** Освобождает запас ёмкости массивов (например, после загрузки) */
+    public void trimToSize() {
+        positions.trimToSize();
+        textureVertices.trimToSize();
+        normals.trimToSize();
+        vertexIndices.trimToSize();
+        textureIndices.trimToSize();
+        normalIndices.trimToSize();
+    }
+
+    /** Приблизительный объём массивов в байтах (с учётом запаса ёмкости) */
+    public long estimateBytes() {
+        long floats = (long) positions.data.length + textureVertices.data.length + normals.data.length;
+        long ints = (long) vertexIndices.offsets.length + vertexIndices.data.length
+                + textureIndices.offsets.length + textureIndices.data.length
+                + normalIndices.offsets.length + normalIndices.data.length;
+        return 4 * (floats + ints);
+    }
+
+    // --------------------- Binary ---------------------
+
+    /** Размер двоичного представления ({@link #writeTo}) в байтах */
+    public long binarySize() {
+        return MeshCodec.size(this);
+    }
+
+    /** Записывает сетку в двоичном виде (little-endian, формат описан в {@link MeshCodec}) */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        MeshCodec.write(this, channel);
+    }
+
+    /**
+     * Читает сетку, записанную {@link #writeTo}, с текущей позиции буфера (например,
+     * отображённого в память файла) и сдвигает позицию за её конец.
+     *
+     * @throws IllegalArgumentException если данные обрезаны или несогласованны
+     */
+    public static Mesh readFrom(ByteBuffer buffer) {
+        return MeshCodec.read(buffer);
+    }
+
+    private void checkPolygon(int polygon) {
+        if (polygon < 0 || polygon >= getPolygonCount()) {
+            throw new IndexOutOfBoundsException("Index " + polygon + " out of bounds for length " + getPolygonCount());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.cgvsu.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Двоичное представление {@link Mesh} (little-endian).
+ * <p>
+ * Семь int: число вершин, текстурных координат, нормалей, полигонов и число индексов
+ * в потоках вершин, текстур и нормалей. Затем массивы подряд без выравнивания:
+ * координаты вершин, текстурные координаты, нормали, и для каждого потока индексов —
+ * смещения (polygons + 1) и сами индексы.
+ */
+final class MeshCodec {
+
+    private static final int HEADER_INTS = 7;
+
+    /** Размер буфера записи */
+    private static final int WRITE_BUFFER = 1 << 20;
+
+    private MeshCodec() {
+    }
+
+    static long size(Mesh mesh) {
+        long floats = 3L * mesh.positions.count + 2L * mesh.textureVertices.count + 3L * mesh.normals.count;
+        long ints = HEADER_INTS + 3L * (mesh.getPolygonCount() + 1)
+                + mesh.vertexIndices.total() + mesh.textureIndices.total() + mesh.normalIndices.total();
+        return 4 * (floats + ints);
+    }
+
+    static void write(Mesh mesh, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(mesh.positions.count)
+                .putInt(mesh.textureVertices.count)
+                .putInt(mesh.normals.count)
+                .putInt(mesh.getPolygonCount())
+                .putInt(mesh.vertexIndices.total())
+                .putInt(mesh.textureIndices.total())
+                .putInt(mesh.normalIndices.total());
+
+        writeFloats(channel, buffer, mesh.positions);
+        writeFloats(channel, buffer, mesh.textureVertices);
+        writeFloats(channel, buffer, mesh.normals);
+        writeIndices(channel, buffer, mesh.vertexIndices);
+        writeIndices(channel, buffer, mesh.textureIndices);
+        writeIndices(channel, buffer, mesh.normalIndices);
+        flush(channel, buffer);
+    }
+
+    private static void writeFloats(WritableByteChannel channel, ByteBuffer buffer, PackedFloats values) throws IOException {
+        float[] data = values.data;
+        int length = values.count * values.components;
+        for (int i = 0; i < length; ) {
+            if (buffer.remaining() < 4) flush(channel, buffer);
+            int n = Math.min(length - i, buffer.remaining() / 4);
+            buffer.asFloatBuffer().put(data, i, n);
+            buffer.position(buffer.position() + 4 * n);
+            i += n;
+        }
+    }
+
+    private static void writeIndices(WritableByteChannel channel, ByteBuffer buffer, PackedIndices indices) throws IOException {
+        writeInts(channel, buffer, indices.offsets, indices.polygons + 1);
+        writeInts(channel, buffer, indices.data, indices.total());
+    }
+
+    private static void writeInts(WritableByteChannel channel, ByteBuffer buffer, int[] data, int length) throws IOException {
+        for (int i = 0; i < length; ) {
+            if (buffer.remaining() < 4) flush(channel, buffer);
+            int n = Math.min(length - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(data, i, n);
+            buffer.position(buffer.position() + 4 * n);
+            i += n;
+        }
+    }
+
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Читает сетку с текущей позиции буфера и сдвигает позицию за её конец.
+     * Проверяет согласованность: смещения не убывают, индексы не выходят за списки.
+     *
+     * @throws IllegalArgumentException если данные обрезаны или несогласованны
+     */
+    static Mesh read(ByteBuffer source) {
+        ByteBuffer buffer = source.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 4 * HEADER_INTS) throw new IllegalArgumentException("Обрезанный заголовок сетки");
+        int vertexCount = count(buffer.getInt());
+        int textureCount = count(buffer.getInt());
+        int normalCount = count(buffer.getInt());
+        int polygonCount = count(buffer.getInt());
+        int vertexCorners = count(buffer.getInt());
+        int textureCorners = count(buffer.getInt());
+        int normalCorners = count(buffer.getInt());
+
+        // размер проверяется до выделения массивов (и заодно исключает переполнение int ниже)
+        long needed = 4 * (3L * vertexCount + 2L * textureCount + 3L * normalCount + 3L * (polygonCount + 1L)
+                + vertexCorners + textureCorners + normalCorners);
+        if (buffer.remaining() < needed) throw new IllegalArgumentException("Обрезанные данные сетки");
+
+        Mesh mesh = new Mesh();
+        mesh.positions.adopt(readFloats(buffer, 3 * vertexCount), vertexCount);
+        mesh.textureVertices.adopt(readFloats(buffer, 2 * textureCount), textureCount);
+        mesh.normals.adopt(readFloats(buffer, 3 * normalCount), normalCount);
+        readIndices(buffer, mesh.vertexIndices, polygonCount, vertexCorners, vertexCount);
+        readIndices(buffer, mesh.textureIndices, polygonCount, textureCorners, textureCount);
+        readIndices(buffer, mesh.normalIndices, polygonCount, normalCorners, normalCount);
+
+        source.position(source.position() + buffer.position());
+        return mesh;
+    }
+
+    private static int count(int value) {
+        if (value < 0) throw new IllegalArgumentException("Отрицательный размер: " + value);
+        return value;
+    }
+
+    private static float[] readFloats(ByteBuffer buffer, int length) {
+        float[] data = new float[length];
+        buffer.asFloatBuffer().get(data);
+        buffer.position(buffer.position() + 4 * length);
+        return data;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] data = new int[length];
+        buffer.asIntBuffer().get(data);
+        buffer.position(buffer.position() + 4 * length);
+        return data;
+    }
+
+    private static void readIndices(ByteBuffer buffer, PackedIndices target, int polygons, int corners, int elements) {
+        int[] offsets = readInts(buffer, polygons + 1);
+        int[] data = readInts(buffer, corners);
+        if (offsets[0] != 0 || offsets[polygons] != corners) {
+            throw new IllegalArgumentException("Смещения полигонов не сходятся с числом индексов");
+        }
+        for (int p = 0; p < polygons; p++) {
+            if (offsets[p] > offsets[p + 1]) throw new IllegalArgumentException("Смещения полигонов убывают");
+        }
+        for (int index : data) {
+            if (index < 0 || index >= elements) throw new IllegalArgumentException("Индекс вне списка: " + index);
+        }
+        target.offsets = offsets;
+        target.data = data;
+        target.polygons = polygons;
+    }
+}
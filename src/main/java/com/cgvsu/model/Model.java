@@ -1,76 +1,93 @@
 package com.cgvsu.model;
 
 import com.cgvsu.render_engine.transform.Transform;
+import com.cgvsu.render_engine.utils.TextureSampler;
 import com.cgvsu.utils.math.Vector2f;
 import com.cgvsu.utils.math.Vector3f;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.scene.image.Image;
 
-import java.awt.*;
-import java.util.*;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Модель: геометрия ({@link Mesh}) и параметры отображения.
+ * <p>
+ * Геометрия хранится в примитивных массивах сетки. Методы {@link #getVertices()},
+ * {@link #getTextureVertices()}, {@link #getNormals()} и {@link #getPolygons()} возвращают
+ * изменяемые представления-списки поверх этих массивов: элементы создаются при чтении,
+ * запись через список сразу попадает в сетку и меняет версию геометрии.
+ * Рендер и загрузчики работают с массивами сетки напрямую.
+ */
 public class Model {
     // --- Основные данные модели ---
-    private ArrayList<Vector3f> vertices;          // Вершины модели
-    private ArrayList<Vector2f> textureVertices;   // Вершины текстуры
-    private ArrayList<Vector3f> normals;           // Нормали
-    private ArrayList<Polygon> polygons;           // Полигоны
+    private final Mesh mesh;                        // Вершины, UV, нормали, полигоны
+    private final List<Vector3f> vertices;          // Вершины модели (представление)
+    private final List<Vector2f> textureVertices;   // Вершины текстуры (представление)
+    private final List<Vector3f> normals;           // Нормали (представление)
+    private final List<Polygon> polygons;           // Полигоны (представление)
     private String name;                            // Имя модели
     private final ObjectProperty<Transform> transform = new SimpleObjectProperty<>(new Transform()); // Трансформация модели
     private Image texture;                          // Текстура модели
+    private TextureSampler textureSampler;          // Распакованная текстура для растеризатора
     private javafx.scene.paint.Color baseColor = javafx.scene.paint.Color.LIGHTGRAY;
     private boolean lightingEnabled = true; // включение/выключение освещения
 
+    // --- Версия внешнего вида для кэшей рендера (версия геометрии — у сетки) ---
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private long appearanceVersion = VERSIONS.incrementAndGet();  // текстура, цвет, освещение
+
     // --------------------- Конструкторы ---------------------
 
     /** Пустой конструктор — создаёт пустую модель */
     public Model() {
-        this.vertices = new ArrayList<>();
-        this.textureVertices = new ArrayList<>();
-        this.normals = new ArrayList<>();
-        this.polygons = new ArrayList<>();
+        this(new Mesh());
+    }
+
+    /** Модель поверх готовой сетки (сетка не копируется) */
+    public Model(Mesh mesh) {
+        this.mesh = mesh;
+        this.vertices = new VertexView();
+        this.textureVertices = new TextureVertexView();
+        this.normals = new NormalView();
+        this.polygons = new PolygonView();
         this.transform.set(new Transform());
     }
 
-    /** Конструктор копирования — глубокая копия другой модели */
     /** Конструктор копирования — создаёт глубокую копию другой модели */
     public Model(Model other) {
-        // Копируем вершины
-        this.vertices = new ArrayList<>();
-        for (Vector3f v : other.vertices) {
-            this.vertices.add(new Vector3f(v.getX(), v.getY(), v.getZ()));
-        }
-
-        // Копируем вершины текстуры
-        this.textureVertices = new ArrayList<>();
-        for (Vector2f tv : other.textureVertices) {
-            this.textureVertices.add(new Vector2f(tv.getX(), tv.getY()));
-        }
-
-        // Копируем нормали
-        this.normals = new ArrayList<>();
-        for (Vector3f n : other.normals) {
-            this.normals.add(new Vector3f(n.getX(), n.getY(), n.getZ()));
-        }
-
-        // Глубокое копирование полигонов
-        this.polygons = new ArrayList<>();
-        for (Polygon p : other.polygons) {
-            this.polygons.add(p.toBuilder().build());
-        }
+        // Копируем сетку целиком: массивы вершин, UV, нормалей и индексов
+        this(new Mesh(other.mesh));
 
         this.name = other.name;
 
-        // Просто создаём новый Transform
-        this.transform.set(new Transform());
-
         // Ссылка на текстуру (можно менять на глубокое копирование при необходимости)
         this.texture = other.texture;
+        this.textureSampler = other.textureSampler;
     }
 
 
+    // --------------------- Versions ---------------------
+
+    /** Версия геометрии: меняется при любом изменении вершин, UV, нормалей и полигонов */
+    public long getGeometryVersion() { return mesh.getVersion(); }
+
+    /** Версия внешнего вида: текстура, базовый цвет, освещение */
+    public long getAppearanceVersion() { return appearanceVersion; }
+
+    /** Отмечает изменение геометрии в обход методов модели (например, через массивы сетки) */
+    public void markGeometryChanged() { mesh.markChanged(); }
+
+    private void markAppearanceChanged() { appearanceVersion = VERSIONS.incrementAndGet(); }
+
     // --------------------- Transform ---------------------
 
     public ObjectProperty<Transform> transformProperty() {
@@ -95,38 +112,56 @@ public class Model {
         this.name = name;
     }
 
+    // --------------------- Mesh ---------------------
+
+    /** Сетка модели: примитивные массивы для горячих циклов */
+    public Mesh getMesh() { return mesh; }
+
     // --------------------- Vertices ---------------------
 
-    public ArrayList<Vector3f> getVertices() { return vertices; }
-    public void setVertices(ArrayList<Vector3f> vertices) {
-        this.vertices = vertices != null ? vertices : new ArrayList<>();
+    public List<Vector3f> getVertices() { return vertices; }
+    public void setVertices(List<Vector3f> vertices) {
+        mesh.clearVertices();
+        if (vertices != null) {
+            mesh.ensureVertexCapacity(vertices.size());
+            for (Vector3f v : vertices) mesh.addVertex(v.getX(), v.getY(), v.getZ());
+        }
     }
 
     // --------------------- Texture Vertices ---------------------
 
-    public ArrayList<Vector2f> getTextureVertices() { return textureVertices; }
-    public void setTextureVertices(ArrayList<Vector2f> textureVertices) {
-        this.textureVertices = textureVertices != null ? textureVertices : new ArrayList<>();
+    public List<Vector2f> getTextureVertices() { return textureVertices; }
+    public void setTextureVertices(List<Vector2f> textureVertices) {
+        mesh.clearTextureVertices();
+        if (textureVertices != null) {
+            for (Vector2f t : textureVertices) mesh.addTextureVertex(t.getX(), t.getY());
+        }
     }
 
     // --------------------- Normals ---------------------
 
     public List<Vector3f> getNormals() { return normals; }
     public void setNormals(List<Vector3f> normals) {
-        this.normals = normals != null ? new ArrayList<>(normals) : new ArrayList<>();
+        mesh.clearNormals();
+        if (normals != null) {
+            for (Vector3f n : normals) mesh.addNormal(n.getX(), n.getY(), n.getZ());
+        }
     }
 
     // --------------------- Polygons ---------------------
 
-    public ArrayList<Polygon> getPolygons() { return polygons; }
-    public void setPolygons(ArrayList<Polygon> polygons) {
-        this.polygons = polygons != null ? polygons : new ArrayList<>();
+    public List<Polygon> getPolygons() { return polygons; }
+    public void setPolygons(List<Polygon> polygons) {
+        mesh.clearPolygons();
+        if (polygons != null) {
+            for (Polygon p : polygons) mesh.addPolygon(p);
+        }
     }
 
     /** Удаляет один полигон по индексу */
     public boolean deletePolygon(int polygonIndex) {
-        if (polygonIndex < 0 || polygonIndex >= polygons.size()) return false;
-        polygons.remove(polygonIndex);
+        if (polygonIndex < 0 || polygonIndex >= mesh.getPolygonCount()) return false;
+        mesh.removePolygon(polygonIndex);
         return true;
     }
 
@@ -134,169 +169,161 @@ public class Model {
     public int deletePolygons(List<Integer> polygonIndices) {
         if (polygonIndices == null || polygonIndices.isEmpty()) return 0;
 
-        // Убираем дубликаты и сортируем по убыванию
-        List<Integer> sortedIndices = new ArrayList<>(new HashSet<>(polygonIndices));
-        sortedIndices.sort(Collections.reverseOrder());
-
-        int deletedCount = 0;
-        for (int index : sortedIndices) {
-            if (index >= 0 && index < polygons.size()) {
-                polygons.remove(index);
-                deletedCount++;
-            }
+        // Повторы и индексы вне диапазона отбрасываются; удаление — один проход по сетке
+        int polygonCount = mesh.getPolygonCount();
+        BitSet marked = new BitSet(polygonCount);
+        for (int index : polygonIndices) {
+            if (index >= 0 && index < polygonCount) marked.set(index);
         }
-        return deletedCount;
+        return mesh.removePolygons(marked);
+    }
+
+    /** Удаляет выбранные полигоны за один проход; индексы вне диапазона пропускаются */
+    public int deletePolygons(IndexSelection selection) {
+        if (selection == null || selection.isEmpty()) return 0;
+        return mesh.removePolygons(selection.toBitSet(mesh.getPolygonCount()));
     }
 
     // --------------------- Vertex Deletion ---------------------
 
     /** Удаляет одну вершину и обновляет все полигоны */
     public boolean deleteVertex(int vertexIndex) {
-        if (vertexIndex < 0 || vertexIndex >= vertices.size()) return false;
+        if (vertexIndex < 0 || vertexIndex >= mesh.getVertexCount()) return false;
 
-        deletePolygonsContainingVertex(vertexIndex); // удаляем полигоны с этой вершиной
-        vertices.remove(vertexIndex);               // удаляем саму вершину
-        updatePolygonIndicesAfterSingleDeletion(vertexIndex);
-        return true;
+        BitSet single = new BitSet();
+        single.set(vertexIndex);
+        return mesh.removeVertices(single) > 0;
     }
 
-    /** Удаляет несколько вершин безопасно */
+    /**
+     * Удаляет несколько вершин за один проход: полигоны с этими вершинами удаляются,
+     * индексы остальных перенумеровываются. Повторы и индексы вне диапазона пропускаются.
+     */
     public int deleteVertices(List<Integer> vertexIndices) {
         if (vertexIndices == null || vertexIndices.isEmpty()) return 0;
 
-        List<Integer> sortedIndices = new ArrayList<>(new HashSet<>(vertexIndices));
-        sortedIndices.sort(Collections.reverseOrder()); // удаляем с конца
-
-        int deletedCount = 0;
-        for (int vertexIndex : sortedIndices) {
-            if (vertexIndex < 0 || vertexIndex >= vertices.size()) continue;
-            deletePolygonsContainingVertex(vertexIndex);
-            vertices.remove(vertexIndex);
-            updatePolygonIndicesAfterSingleDeletion(vertexIndex);
-            deletedCount++;
+        int vertexCount = mesh.getVertexCount();
+        BitSet marked = new BitSet(vertexCount);
+        for (int index : vertexIndices) {
+            if (index >= 0 && index < vertexCount) marked.set(index);
         }
-
-        return deletedCount;
+        return mesh.removeVertices(marked);
     }
 
-    /** Обновляет индексы полигонов после удаления одной вершины */
-    private void updatePolygonIndicesAfterSingleDeletion(int deletedIndex) {
-        for (int i = 0; i < polygons.size(); i++) {
-            Polygon polygon = polygons.get(i);
-            List<Integer> updatedIndices = new ArrayList<>();
-            for (int idx : polygon.getVertexIndices()) {
-                updatedIndices.add(idx > deletedIndex ? idx - 1 : idx);
-            }
-            polygons.set(i, createUpdatedPolygon(polygon, updatedIndices));
-        }
+    /** Удаляет выбранные вершины и полигоны с ними за один проход; индексы вне диапазона пропускаются */
+    public int deleteVertices(IndexSelection selection) {
+        if (selection == null || selection.isEmpty()) return 0;
+        return mesh.removeVertices(selection.toBitSet(mesh.getVertexCount()));
     }
 
     /** Удаляет все неиспользуемые вершины */
     public int deleteUnusedVertices() {
-        Set<Integer> used = new HashSet<>();
-        for (Polygon p : polygons) used.addAll(p.getVertexIndices());
-
-        List<Integer> unused = new ArrayList<>();
-        for (int i = 0; i < vertices.size(); i++) {
-            if (!used.contains(i)) unused.add(i);
-        }
-        return deleteVertices(unused);
+        return deleteVertices(getUnusedVertices());
     }
 
     // --------------------- Polygon Utilities ---------------------
 
     /** Удаляет все полигоны, содержащие указанную вершину */
     public int deletePolygonsContainingVertex(int vertexIndex) {
-        List<Integer> polygonsToDelete = new ArrayList<>();
-        for (int i = 0; i < polygons.size(); i++) {
-            if (polygons.get(i).getVertexIndices().contains(vertexIndex)) {
-                polygonsToDelete.add(i);
-            }
-        }
-        return deletePolygons(polygonsToDelete);
+        return deletePolygonsContainingVertices(List.of(vertexIndex));
     }
 
     /** Удаляет полигоны, содержащие любую из вершин в списке */
     public int deletePolygonsContainingVertices(List<Integer> vertexIndices) {
         if (vertexIndices == null || vertexIndices.isEmpty()) return 0;
 
-        Set<Integer> vertexSet = new HashSet<>(vertexIndices);
-        List<Integer> polygonsToDelete = new ArrayList<>();
-        for (int i = 0; i < polygons.size(); i++) {
-            Polygon polygon = polygons.get(i);
-            if (polygon.getVertexIndices().stream().anyMatch(vertexSet::contains)) {
-                polygonsToDelete.add(i);
-            }
+        BitSet vertexSet = new BitSet(mesh.getVertexCount());
+        for (int index : vertexIndices) {
+            if (index >= 0) vertexSet.set(index);
         }
-        return deletePolygons(polygonsToDelete);
-    }
-
-    /** Создает новый Polygon с обновлёнными индексами */
-    private Polygon createUpdatedPolygon(Polygon original, List<Integer> newVertexIndices) {
-        Polygon.Builder builder = original.toBuilder().setVertexIndices(newVertexIndices);
-
-        if (!original.getTextureVertexIndices().isEmpty())
-            builder.setTextureVertexIndices(new ArrayList<>(original.getTextureVertexIndices()));
-
-        if (!original.getNormalIndices().isEmpty())
-            builder.setNormalIndices(new ArrayList<>(original.getNormalIndices()));
 
-        return builder.build();
+        int[] offsets = mesh.getVertexOffsets();
+        int[] indices = mesh.getVertexIndices();
+        int polygonCount = mesh.getPolygonCount();
+        BitSet polygonsToDelete = new BitSet(polygonCount);
+        for (int p = 0; p < polygonCount; p++) {
+            for (int i = offsets[p]; i < offsets[p + 1]; i++) {
+                if (indices[i] >= 0 && vertexSet.get(indices[i])) {
+                    polygonsToDelete.set(p);
+                    break;
+                }
+            }
+        }
+        return mesh.removePolygons(polygonsToDelete);
     }
 
     // --------------------- Validation ---------------------
 
     /** Проверка модели на валидность: все полигоны имеют ≥3 вершин и корректные индексы */
     public boolean validateModel() {
-        for (Polygon p : polygons) {
-            if (p.getVertexIndices().size() < 3) return false;
-            for (int idx : p.getVertexIndices()) {
-                if (idx < 0 || idx >= vertices.size()) return false;
-            }
+        for (int p = 0; p < mesh.getPolygonCount(); p++) {
+            if (!isValidPolygon(p)) return false;
         }
         return true;
     }
 
     /** Удаляет все невалидные полигоны и возвращает количество удалённых */
     public int cleanInvalidPolygons() {
-        List<Polygon> validPolygons = new ArrayList<>();
-        for (Polygon p : polygons) {
-            boolean valid = p.getVertexIndices().size() >= 3 &&
-                    p.getVertexIndices().stream().allMatch(idx -> idx >= 0 && idx < vertices.size());
-            if (valid) validPolygons.add(p);
+        BitSet invalid = new BitSet(mesh.getPolygonCount());
+        for (int p = 0; p < mesh.getPolygonCount(); p++) {
+            if (!isValidPolygon(p)) invalid.set(p);
         }
-        int removed = polygons.size() - validPolygons.size();
-        polygons = new ArrayList<>(validPolygons);
-        return removed;
+        return mesh.removePolygons(invalid);
+    }
+
+    private boolean isValidPolygon(int polygon) {
+        int[] offsets = mesh.getVertexOffsets();
+        int[] indices = mesh.getVertexIndices();
+        int vertexCount = mesh.getVertexCount();
+        if (offsets[polygon + 1] - offsets[polygon] < 3) return false;
+        for (int i = offsets[polygon]; i < offsets[polygon + 1]; i++) {
+            if (indices[i] < 0 || indices[i] >= vertexCount) return false;
+        }
+        return true;
     }
 
     // --------------------- Utilities ---------------------
 
     public Set<Integer> getUsedVertices() {
         Set<Integer> used = new HashSet<>();
-        for (Polygon p : polygons) used.addAll(p.getVertexIndices());
+        int[] indices = mesh.getVertexIndices();
+        for (int i = 0; i < mesh.getCornerCount(); i++) used.add(indices[i]);
         return used;
     }
 
     public List<Integer> getUnusedVertices() {
-        Set<Integer> used = getUsedVertices();
+        int vertexCount = mesh.getVertexCount();
+        BitSet used = new BitSet(vertexCount);
+        int[] indices = mesh.getVertexIndices();
+        for (int i = 0; i < mesh.getCornerCount(); i++) {
+            if (indices[i] >= 0 && indices[i] < vertexCount) used.set(indices[i]);
+        }
         List<Integer> unused = new ArrayList<>();
-        for (int i = 0; i < vertices.size(); i++) if (!used.contains(i)) unused.add(i);
+        for (int i = used.nextClearBit(0); i < vertexCount; i = used.nextClearBit(i + 1)) unused.add(i);
         return unused;
     }
 
     /** Очищает нормали всех полигонов */
     public void dropPolygonNormals() {
-        for (Polygon p : polygons) p.getNormalIndices().clear();
+        mesh.clearPolygonNormals();
     }
 
     // --------------------- Texture ---------------------
 
-    public void setTexture(Image texture) { this.texture = texture; }
+    /** Устанавливает текстуру и сразу распаковывает её в ARGB-массив (с кэшем по Image) */
+    public void setTexture(Image texture) {
+        this.texture = texture;
+        this.textureSampler = TextureSampler.of(texture);
+        markAppearanceChanged();
+    }
     public Image getTexture() { return texture; }
+    public TextureSampler getTextureSampler() { return textureSampler; }
 
     public void setBaseColor(javafx.scene.paint.Color color) {
-        if (color != null) this.baseColor = color;
+        if (color != null && !color.equals(baseColor)) {
+            this.baseColor = color;
+            markAppearanceChanged();
+        }
     }
 
     public javafx.scene.paint.Color getBaseColor() {
@@ -305,10 +332,163 @@ public class Model {
 
     // --- Lighting ---
     public void setLightingEnabled(boolean enabled) {
+        if (enabled == lightingEnabled) return;
         this.lightingEnabled = enabled;
+        markAppearanceChanged();
     }
 
     public boolean isLightingEnabled() {
         return lightingEnabled;
     }
+
+    // --------------------- Views ---------------------
+
+    /** Список поверх массива float сетки; элементы создаются при чтении */
+    private abstract class PackedView<T> extends AbstractList<T> implements RandomAccess {
+        final PackedFloats values;
+
+        PackedView(PackedFloats values) {
+            this.values = values;
+        }
+
+        abstract T read(float[] data, int at);
+
+        abstract void write(float[] data, int at, T value);
+
+        /** Отметка изменения в сетке; structural — изменилось число элементов */
+        void changed(boolean structural) {
+            mesh.markChanged();
+        }
+
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, values.count);
+            return read(values.data, index * values.components);
+        }
+
+        @Override
+        public T set(int index, T value) {
+            T old = get(index);
+            write(values.data, index * values.components, value);
+            changed(false);
+            return old;
+        }
+
+        @Override
+        public void add(int index, T value) {
+            int at = values.insert(index);   // может заменить массив data
+            write(values.data, at, value);
+            modCount++;
+            changed(true);
+        }
+
+        @Override
+        public T remove(int index) {
+            T old = get(index);
+            values.remove(index);
+            modCount++;
+            changed(true);
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            values.clear();
+            modCount++;
+            changed(true);
+        }
+
+        @Override
+        public int size() {
+            return values.count;
+        }
+    }
+
+    private final class VertexView extends PackedView<Vector3f> {
+        VertexView() { super(mesh.positions); }
+
+        @Override
+        Vector3f read(float[] data, int at) { return new Vector3f(data[at], data[at + 1], data[at + 2]); }
+
+        @Override
+        void write(float[] data, int at, Vector3f v) {
+            data[at] = v.getX();
+            data[at + 1] = v.getY();
+            data[at + 2] = v.getZ();
+        }
+
+        @Override
+        void changed(boolean structural) {
+            if (structural) mesh.markTopologyChanged();
+            else mesh.markChanged();
+        }
+    }
+
+    private final class NormalView extends PackedView<Vector3f> {
+        NormalView() { super(mesh.normals); }
+
+        @Override
+        Vector3f read(float[] data, int at) { return new Vector3f(data[at], data[at + 1], data[at + 2]); }
+
+        @Override
+        void write(float[] data, int at, Vector3f n) {
+            data[at] = n.getX();
+            data[at + 1] = n.getY();
+            data[at + 2] = n.getZ();
+        }
+    }
+
+    private final class TextureVertexView extends PackedView<Vector2f> {
+        TextureVertexView() { super(mesh.textureVertices); }
+
+        @Override
+        Vector2f read(float[] data, int at) { return new Vector2f(data[at], data[at + 1]); }
+
+        @Override
+        void write(float[] data, int at, Vector2f t) {
+            data[at] = t.getX();
+            data[at + 1] = t.getY();
+        }
+    }
+
+    /** Полигоны сетки; get создаёт Polygon с копией индексов */
+    private final class PolygonView extends AbstractList<Polygon> implements RandomAccess {
+        @Override
+        public Polygon get(int index) {
+            return mesh.getPolygon(index);
+        }
+
+        @Override
+        public Polygon set(int index, Polygon polygon) {
+            Polygon old = mesh.getPolygon(index);
+            mesh.setPolygon(index, polygon);
+            return old;
+        }
+
+        @Override
+        public void add(int index, Polygon polygon) {
+            if (index == mesh.getPolygonCount()) mesh.addPolygon(polygon);
+            else mesh.insertPolygon(index, polygon);
+            modCount++;
+        }
+
+        @Override
+        public Polygon remove(int index) {
+            Polygon old = mesh.getPolygon(index);
+            mesh.removePolygon(index);
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            mesh.clearPolygons();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return mesh.getPolygonCount();
+        }
+    }
 }
@@ -0,0 +1,90 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+/**
+ * Массив элементов из нескольких float, уложенных подряд (x0 y0 z0 x1 y1 z1 ...).
+ * Растёт как ArrayList; действительны первые count * components значений.
+ */
+final class PackedFloats {
+
+    final int components;
+    float[] data = new float[0];
+    int count;
+
+    PackedFloats(int components) {
+        this.components = components;
+    }
+
+    /** Копия без запаса ёмкости */
+    PackedFloats(PackedFloats other) {
+        this.components = other.components;
+        this.count = other.count;
+        this.data = Arrays.copyOf(other.data, other.count * other.components);
+    }
+
+    float get(int index, int component) {
+        checkIndex(index);
+        return data[index * components + component];
+    }
+
+    /** Добавляет элемент и возвращает смещение его первого значения в data */
+    int append() {
+        ensureCapacity(count + 1);
+        return components * count++;
+    }
+
+    /** Вставляет элемент перед index и возвращает смещение его первого значения в data */
+    int insert(int index) {
+        if (index < 0 || index > count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+        ensureCapacity(count + 1);
+        System.arraycopy(data, index * components, data, (index + 1) * components, (count - index) * components);
+        count++;
+        return index * components;
+    }
+
+    void set(int index, float a, float b, float c) {
+        checkIndex(index);
+        int at = index * components;
+        data[at] = a;
+        data[at + 1] = b;
+        if (components > 2) data[at + 2] = c;
+    }
+
+    void remove(int index) {
+        checkIndex(index);
+        System.arraycopy(data, (index + 1) * components, data, index * components, (count - index - 1) * components);
+        count--;
+    }
+
+    /** Заменяет содержимое готовым массивом (без копирования) */
+    void adopt(float[] values, int count) {
+        if (values.length < count * components) {
+            throw new IllegalArgumentException("Массив меньше " + count + " элементов");
+        }
+        this.data = values;
+        this.count = count;
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    void ensureCapacity(int elements) {
+        int needed = elements * components;
+        if (data.length >= needed) return;
+        data = Arrays.copyOf(data, Math.max(needed, data.length + (data.length >> 1) + 16));
+    }
+
+    void trimToSize() {
+        if (data.length != count * components) data = Arrays.copyOf(data, count * components);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+    }
+}
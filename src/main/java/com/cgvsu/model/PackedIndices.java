@@ -0,0 +1,157 @@
+package com.cgvsu.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Списки индексов всех полигонов в формате CSR: индексы полигона p лежат
+ * в data[offsets[p] .. offsets[p + 1]). Пустой список занимает только смещение.
+ */
+final class PackedIndices {
+
+    int[] offsets = new int[1];
+    int[] data = new int[0];
+    int polygons;
+
+    PackedIndices() {
+    }
+
+    /** Копия без запаса ёмкости */
+    PackedIndices(PackedIndices other) {
+        this.polygons = other.polygons;
+        this.offsets = Arrays.copyOf(other.offsets, other.polygons + 1);
+        this.data = Arrays.copyOf(other.data, other.total());
+    }
+
+    int total() {
+        return offsets[polygons];
+    }
+
+    int size(int polygon) {
+        return offsets[polygon + 1] - offsets[polygon];
+    }
+
+    /** Индексы полигона в виде неизменяемого списка (копия) */
+    List<Integer> get(int polygon) {
+        int from = offsets[polygon];
+        int to = offsets[polygon + 1];
+        if (from == to) return Collections.emptyList();
+        List<Integer> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) result.add(data[i]);
+        return Collections.unmodifiableList(result);
+    }
+
+    void add(int[] values, int count) {
+        ensureCapacity(polygons + 1, total() + count);
+        int start = total();
+        if (count > 0) System.arraycopy(values, 0, data, start, count);
+        offsets[++polygons] = start + count;
+    }
+
+    /** Добавляет копию полигона другого потока */
+    void add(PackedIndices source, int polygon) {
+        int from = source.offsets[polygon];
+        int count = source.size(polygon);
+        ensureCapacity(polygons + 1, total() + count);
+        int start = total();
+        System.arraycopy(source.data, from, data, start, count);
+        offsets[++polygons] = start + count;
+    }
+
+    void add(List<Integer> values) {
+        int count = values.size();
+        ensureCapacity(polygons + 1, total() + count);
+        int at = total();
+        for (int i = 0; i < count; i++) data[at++] = values.get(i);
+        offsets[++polygons] = at;
+    }
+
+    /** Вставляет полигон перед polygon */
+    void insert(int polygon, List<Integer> values) {
+        int count = values.size();
+        int total = total();
+        ensureCapacity(polygons + 1, total + count);
+        int from = offsets[polygon];
+        System.arraycopy(data, from, data, from + count, total - from);
+        for (int p = polygons; p >= polygon; p--) offsets[p + 1] = offsets[p] + count;
+        for (int i = 0; i < count; i++) data[from + i] = values.get(i);
+        polygons++;
+    }
+
+    /** Заменяет индексы полигона; при другой длине хвост массива сдвигается */
+    void set(int polygon, List<Integer> values) {
+        int count = values.size();
+        int shift = count - size(polygon);
+        if (shift != 0) {
+            int total = total();
+            ensureCapacity(polygons, total + shift);
+            int tail = offsets[polygon + 1];
+            System.arraycopy(data, tail, data, tail + shift, total - tail);
+            for (int p = polygon + 1; p <= polygons; p++) offsets[p] += shift;
+        }
+        int at = offsets[polygon];
+        for (int i = 0; i < count; i++) data[at++] = values.get(i);
+    }
+
+    void remove(int polygon) {
+        int from = offsets[polygon];
+        int removed = size(polygon);
+        int total = total();
+        System.arraycopy(data, from + removed, data, from, total - from - removed);
+        for (int p = polygon + 1; p <= polygons; p++) offsets[p - 1] = offsets[p] - removed;
+        polygons--;
+    }
+
+    /** Удаляет отмеченные полигоны за один проход, сохраняя порядок остальных */
+    void removeAll(BitSet removed) {
+        int write = 0;
+        int kept = 0;
+        for (int p = 0; p < polygons; p++) {
+            int from = offsets[p];
+            int to = offsets[p + 1];
+            if (removed.get(p)) continue;
+            if (write != from) System.arraycopy(data, from, data, write, to - from);
+            offsets[kept] = write;
+            write += to - from;
+            kept++;
+        }
+        offsets[kept] = write;
+        polygons = kept;
+    }
+
+    void clear() {
+        polygons = 0;
+        offsets[0] = 0;
+    }
+
+    /** Забирает массивы другого потока без копирования */
+    void adopt(PackedIndices other) {
+        offsets = other.offsets;
+        data = other.data;
+        polygons = other.polygons;
+    }
+
+    /** Пустой поток с новыми массивами */
+    void reset() {
+        offsets = new int[1];
+        data = new int[0];
+        polygons = 0;
+    }
+
+    void ensureCapacity(int polygonCount, int indexCount) {
+        if (offsets.length < polygonCount + 1) {
+            offsets = Arrays.copyOf(offsets, Math.max(polygonCount + 1, offsets.length + (offsets.length >> 1) + 16));
+        }
+        if (data.length < indexCount) {
+            data = Arrays.copyOf(data, Math.max(indexCount, data.length + (data.length >> 1) + 16));
+        }
+    }
+
+    void trimToSize() {
+        if (offsets.length != polygons + 1) offsets = Arrays.copyOf(offsets, polygons + 1);
+        if (data.length != total()) data = Arrays.copyOf(data, total());
+    }
+}
@@ -3,12 +3,17 @@ package com.cgvsu.render_engine;
 import com.cgvsu.utils.math.Matrix4f;
 import com.cgvsu.utils.math.Vector3f;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Камера для 3D сцены с поддержкой:
  * - свободного движения (free-look)
  * - орбитального вращения вокруг цели
  * - зума
  * - генерации view и projection матриц
+ * <p>
+ * Любое изменение камеры присваивает ей новую версию ({@link #getVersion()}),
+ * уникальную среди всех камер; копия сохраняет версию оригинала.
  */
 public class Camera {
 
@@ -22,6 +27,9 @@ public class Camera {
     private float nearPlane;         // ближняя плоскость отсечения
     private float farPlane;          // дальняя плоскость отсечения
 
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private long version = VERSIONS.incrementAndGet();
+
     public Camera(String name, Vector3f position, Vector3f target, float fov, float aspectRatio, float nearPlane, float farPlane) {
         this.name = name;
         this.position = position;
@@ -33,8 +41,26 @@ public class Camera {
         this.farPlane = farPlane;
     }
 
+    /** Копия камеры (снимок для потока рендеринга) */
+    public Camera(Camera other) {
+        this.name = other.name;
+        this.position = other.position;
+        this.target = other.target;
+        this.up = other.up;
+        this.fov = other.fov;
+        this.aspectRatio = other.aspectRatio;
+        this.nearPlane = other.nearPlane;
+        this.farPlane = other.farPlane;
+        this.version = other.version;
+    }
+
     public String getName() { return name; }
 
+    /** Версия состояния: меняется при каждом перемещении и изменении параметров */
+    public long getVersion() { return version; }
+
+    private void touch() { version = VERSIONS.incrementAndGet(); }
+
     // ------------------------
     // Основные направления камеры
     // ------------------------
@@ -49,6 +75,7 @@ public class Camera {
         Vector3f dir = getForward().multiply(distance);
         position = position.add(dir);
         target = target.add(dir);
+        touch();
     }
 
     public void moveBackward(float distance) { moveForward(-distance); }
@@ -56,6 +83,7 @@ public class Camera {
         Vector3f dir = getRight().multiply(distance);
         position = position.add(dir);
         target = target.add(dir);
+        touch();
     }
     public void moveLeft(float distance) { moveRight(-distance); }
 
@@ -63,6 +91,7 @@ public class Camera {
         Vector3f dir = up.multiply(distance);
         position = position.add(dir);
         target = target.add(dir);
+        touch();
     }
 
     public void moveDown(float distance) { moveUp(-distance); }
@@ -78,6 +107,7 @@ public class Camera {
         Matrix4f rot = createRotationAroundAxis(axis, angleRad);
         Vector3f rotated = rot.multiply(dir);
         target = position.add(rotated);
+        touch();
     }
 
     // ------------------------
@@ -87,6 +117,7 @@ public class Camera {
         Vector3f toCam = position.subtract(target);
         Matrix4f rot = createRotationAroundAxis(up, angleRad);
         position = target.add(rot.multiply(toCam));
+        touch();
     }
 
     public void orbitVertical(float angleRad) {
@@ -98,6 +129,7 @@ public class Camera {
         float dot = rotated.normalize().dot(up);
         if (dot < 0.95f && dot > -0.95f) {
             position = target.add(rotated);
+            touch();
         }
     }
 
@@ -110,6 +142,7 @@ public class Camera {
         float currDist = target.subtract(position).length();
         float newDist = Math.max(currDist - distance, minDist);
         position = target.subtract(dir.multiply(newDist));
+        touch();
     }
 
     // ------------------------
@@ -123,17 +156,17 @@ public class Camera {
     // ------------------------
     public Vector3f getPosition() { return position; }
     public Vector3f getTarget() { return target; }
-    public void setPosition(Vector3f position) { this.position = position; }
-    public void setTarget(Vector3f target) { this.target = target; }
-    public void setAspectRatio(float aspect) { this.aspectRatio = aspect; }
+    public void setPosition(Vector3f position) { this.position = position; touch(); }
+    public void setTarget(Vector3f target) { this.target = target; touch(); }
+    public void setAspectRatio(float aspect) { this.aspectRatio = aspect; touch(); }
 
     public float getFov() { return fov; }
-    public void setFov(float fov) { this.fov = fov; }
+    public void setFov(float fov) { this.fov = fov; touch(); }
     public float getAspectRatio() { return aspectRatio; }
     public float getNearPlane() { return nearPlane; }
-    public void setNearPlane(float nearPlane) { this.nearPlane = nearPlane; }
+    public void setNearPlane(float nearPlane) { this.nearPlane = nearPlane; touch(); }
     public float getFarPlane() { return farPlane; }
-    public void setFarPlane(float farPlane) { this.farPlane = farPlane; }
+    public void setFarPlane(float farPlane) { this.farPlane = farPlane; touch(); }
 
     // ------------------------
     // Создание матрицы вращения вокруг оси
@@ -0,0 +1,108 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.render_engine.utils.ProjectedVertices;
+
+/**
+ * Стадия отсечения полигонов между проекцией вершин и растеризацией.
+ * <p>
+ * Отбрасывает полигоны, повёрнутые к камере задней стороной (по знаку площади
+ * на экране), и полигоны, все вершины которых лежат снаружи одной и той же
+ * плоскости пирамиды видимости. Счётчики за последний кадр доступны для диагностики.
+ */
+public class CullingStage {
+
+    private boolean backFaceCulling = true;
+    private boolean frustumCulling = true;
+
+    private int culledBackFaces;
+    private int culledOutsideFrustum;
+    private int surviving;
+
+    /** Сбрасывает счётчики перед новым кадром */
+    public void begin(boolean backFaceCulling, boolean frustumCulling) {
+        this.backFaceCulling = backFaceCulling;
+        this.frustumCulling = frustumCulling;
+        culledBackFaces = 0;
+        culledOutsideFrustum = 0;
+        surviving = 0;
+    }
+
+    /**
+     * Проверяет полигон, заданный индексами вершин в буфере проекции.
+     *
+     * @param indices индексы вершин полигона
+     * @param count   число вершин
+     * @return true, если полигон нужно рисовать
+     */
+    public boolean accept(ProjectedVertices vertices, int[] indices, int count) {
+        return acceptFrustum(vertices, indices, count) && acceptFacing(vertices, indices, count);
+    }
+
+    /** Первая часть проверки (до отсечения плоскостями): полигон не лежит целиком вне пирамиды */
+    public boolean acceptFrustum(ProjectedVertices vertices, int[] indices, int count) {
+        if (frustumCulling && isOutsideFrustum(vertices, indices, count)) {
+            culledOutsideFrustum++;
+            return false;
+        }
+        return true;
+    }
+
+    /** Вторая часть проверки (после отсечения): полигон повёрнут к камере лицевой стороной */
+    public boolean acceptFacing(ProjectedVertices vertices, int[] indices, int count) {
+        if (backFaceCulling && isBackFace(vertices, indices, count)) {
+            culledBackFaces++;
+            return false;
+        }
+        surviving++;
+        return true;
+    }
+
+    /** Все вершины снаружи одной плоскости отсечения */
+    public static boolean isOutsideFrustum(ProjectedVertices vertices, int[] indices, int count) {
+        int common = 0xFF;
+        for (int i = 0; i < count && common != 0; i++) {
+            common &= vertices.outcode[indices[i]];
+        }
+        return common != 0;
+    }
+
+    /**
+     * Задняя грань: лицевые полигоны модели обходятся против часовой стрелки,
+     * на экране (ось Y вниз) это даёт отрицательную площадь. Если хотя бы одна вершина
+     * лежит за камерой (w <= 0), знак площади на экране недостоверен — такие полигоны не отбрасываются.
+     */
+    public static boolean isBackFace(ProjectedVertices vertices, int[] indices, int count) {
+        float[] sx = vertices.screenX;
+        float[] sy = vertices.screenY;
+
+        float area = 0;
+        for (int i = 0; i < count; i++) {
+            int a = indices[i];
+            int b = indices[(i + 1) % count];
+            if (!vertices.valid[a] || vertices.invW[a] <= 0) return false;
+            area += sx[a] * sy[b] - sx[b] * sy[a];
+        }
+        return area >= 0;
+    }
+
+    public int getCulledBackFaces() {
+        return culledBackFaces;
+    }
+
+    public int getCulledOutsideFrustum() {
+        return culledOutsideFrustum;
+    }
+
+    /** Полигоны, прошедшие отсечение в последнем кадре */
+    public int getSurviving() {
+        return surviving;
+    }
+
+    public boolean isBackFaceCulling() {
+        return backFaceCulling;
+    }
+
+    public boolean isFrustumCulling() {
+        return frustumCulling;
+    }
+}
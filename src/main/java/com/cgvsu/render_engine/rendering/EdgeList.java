@@ -0,0 +1,79 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.Model;
+
+import java.util.Arrays;
+
+/**
+ * Список уникальных рёбер модели для каркасного режима.
+ * <p>
+ * Ребро, общее для двух полигонов, хранится один раз, поэтому каждый отрезок
+ * каркаса рисуется ровно один раз за кадр. Список пересобирается только при смене
+ * топологии сетки ({@link Mesh#getTopologyVersion()}).
+ */
+public class EdgeList {
+
+    private Mesh sourceMesh;
+    private long sourceTopologyVersion;
+
+    private int[] edges = new int[0];   // пары индексов вершин (a, b), a < b
+    private int edgeCount;
+
+    /**
+     * Обновляет список под модель.
+     *
+     * @return true, если список был пересобран
+     */
+    public boolean update(Model model) {
+        Mesh mesh = model.getMesh();
+        if (mesh == sourceMesh && mesh.getTopologyVersion() == sourceTopologyVersion) {
+            return false;
+        }
+
+        build(mesh);
+        sourceMesh = mesh;
+        sourceTopologyVersion = mesh.getTopologyVersion();
+        return true;
+    }
+
+    /** Сбор рёбер в виде ключей long (min << 32 | max), сортировка и удаление повторов */
+    private void build(Mesh mesh) {
+        int[] offsets = mesh.getVertexOffsets();
+        int[] indices = mesh.getVertexIndices();
+        int vertexCount = mesh.getVertexCount();
+
+        long[] keys = new long[mesh.getCornerCount()];
+        int n = 0;
+        for (int p = 0; p < mesh.getPolygonCount(); p++) {
+            int first = offsets[p];
+            int size = offsets[p + 1] - first;
+            if (size < 2) continue;
+            for (int i = 0; i < size; i++) {
+                int a = indices[first + i];
+                int b = indices[first + (i + 1) % size];
+                if (a == b || a < 0 || b < 0 || a >= vertexCount || b >= vertexCount) continue;
+                keys[n++] = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+            }
+        }
+        Arrays.sort(keys, 0, n);
+
+        if (edges.length < 2 * n) edges = new int[2 * n];
+        edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && keys[i] == keys[i - 1]) continue;
+            edges[2 * edgeCount] = (int) (keys[i] >>> 32);
+            edges[2 * edgeCount + 1] = (int) keys[i];
+            edgeCount++;
+        }
+    }
+
+    /** Пары индексов вершин; действительны первые 2 * getEdgeCount() элементов */
+    public int[] getEdges() {
+        return edges;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+}
@@ -0,0 +1,166 @@
+package com.cgvsu.render_engine.rendering;
+
+import java.util.Arrays;
+
+/**
+ * Переиспользуемый буфер кадра в формате ARGB (один int на пиксель, построчно).
+ * Память выделяется заново только при изменении размеров.
+ * <p>
+ * Буфер помнит прямоугольник, в который рисовали с последней очистки (dirty-область):
+ * {@link #clearDirty} стирает только его, а при показе кадра обновляется только
+ * изменившаяся часть изображения.
+ * <p>
+ * Буфер поверх памяти экрана может требовать premultiplied ARGB ({@link #isPremultiplied()}):
+ * тогда растеризатор умножает цвет полупрозрачных пикселей на альфу при записи.
+ */
+public final class FrameBuffer {
+
+    private int width;
+    private int height;
+    private int[] pixels = new int[0];
+    private boolean premultiplied;
+
+    // изменённая область (включительно); пустая, если minX > maxX
+    private int dirtyMinX, dirtyMinY, dirtyMaxX = -1, dirtyMaxY = -1;
+
+    public FrameBuffer() {
+    }
+
+    public FrameBuffer(int width, int height) {
+        resize(width, height);
+    }
+
+    /**
+     * Буфер поверх чужого массива (например, памяти {@link javafx.scene.image.PixelBuffer}).
+     * Содержимое массива считается произвольным — весь кадр помечается изменённым.
+     */
+    public FrameBuffer(int width, int height, int[] pixels) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("Массив меньше кадра " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        markAllDirty();
+    }
+
+    /** Буфер поверх чужого массива с цветами в premultiplied ARGB */
+    public FrameBuffer(int width, int height, int[] pixels, boolean premultiplied) {
+        this(width, height, pixels);
+        this.premultiplied = premultiplied;
+    }
+
+    /** Цвета пишутся с умноженными на альфу каналами (формат premultiplied ARGB) */
+    public boolean isPremultiplied() {
+        return premultiplied;
+    }
+
+    /**
+     * Подгоняет буфер под размер кадра.
+     *
+     * @return true, если массив пикселей был пересоздан
+     */
+    public boolean resize(int width, int height) {
+        if (width == this.width && height == this.height) return false;
+
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        this.pixels = new int[this.width * this.height];
+        resetDirty();
+        return true;
+    }
+
+    /** Заливает весь кадр одним цветом */
+    public void clear(int argb) {
+        Arrays.fill(pixels, 0, width * height, argb);
+        resetDirty();
+    }
+
+    /** Стирает (заливает цветом argb) только изменённую область и сбрасывает её */
+    public void clearDirty(int argb) {
+        if (isDirtyEmpty()) return;
+        if (dirtyMinX == 0 && dirtyMaxX == width - 1) {
+            Arrays.fill(pixels, dirtyMinY * width, (dirtyMaxY + 1) * width, argb);
+        } else {
+            for (int y = dirtyMinY; y <= dirtyMaxY; y++) {
+                Arrays.fill(pixels, y * width + dirtyMinX, y * width + dirtyMaxX + 1, argb);
+            }
+        }
+        resetDirty();
+    }
+
+    // ---------- Изменённая область ----------
+
+    /** Добавляет прямоугольник (включительно, обрезается по кадру) к изменённой области */
+    public void markDirty(int minX, int minY, int maxX, int maxY) {
+        minX = Math.max(minX, 0);
+        minY = Math.max(minY, 0);
+        maxX = Math.min(maxX, width - 1);
+        maxY = Math.min(maxY, height - 1);
+        if (minX > maxX || minY > maxY) return;
+
+        if (isDirtyEmpty()) {
+            dirtyMinX = minX;
+            dirtyMinY = minY;
+            dirtyMaxX = maxX;
+            dirtyMaxY = maxY;
+        } else {
+            dirtyMinX = Math.min(dirtyMinX, minX);
+            dirtyMinY = Math.min(dirtyMinY, minY);
+            dirtyMaxX = Math.max(dirtyMaxX, maxX);
+            dirtyMaxY = Math.max(dirtyMaxY, maxY);
+        }
+    }
+
+    public void markAllDirty() {
+        markDirty(0, 0, width - 1, height - 1);
+    }
+
+    public boolean isDirtyEmpty() {
+        return dirtyMinX > dirtyMaxX || dirtyMinY > dirtyMaxY;
+    }
+
+    public int getDirtyMinX() {
+        return dirtyMinX;
+    }
+
+    public int getDirtyMinY() {
+        return dirtyMinY;
+    }
+
+    public int getDirtyMaxX() {
+        return dirtyMaxX;
+    }
+
+    public int getDirtyMaxY() {
+        return dirtyMaxY;
+    }
+
+    private void resetDirty() {
+        dirtyMinX = 0;
+        dirtyMinY = 0;
+        dirtyMaxX = -1;
+        dirtyMaxY = -1;
+    }
+
+    public void setArgb(int x, int y, int argb) {
+        pixels[y * width + x] = argb;
+    }
+
+    public int getArgb(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /** Массив пикселей (строка за строкой, ширина строки = width) */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,172 @@
+package com.cgvsu.render_engine.rendering;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Показ кадров без копирования: растеризатор пишет прямо в память изображения.
+ * <p>
+ * Каждый слот — массив ARGB, обёрнутый в {@link PixelBuffer} и {@link WritableImage},
+ * и {@link FrameBuffer} поверх того же массива. Слотов три (тройная буферизация без блокировок):
+ * <ul>
+ *     <li>задний — в него рисует поток рендеринга ({@link #beginFrame()}, {@link #publish()});</li>
+ *     <li>средний — последний готовый кадр, ещё не показанный;</li>
+ *     <li>передний — показан в {@link ImageView} ({@link #presentLatest()} в потоке JavaFX).</li>
+ * </ul>
+ * Слоты меняются ролями через один {@link AtomicInteger}: индекс среднего слота и флаг
+ * «кадр новый». Ни одна сторона не ждёт другую; если рендер быстрее экрана,
+ * непоказанные кадры просто перезаписываются.
+ * <p>
+ * При показе в {@link PixelBuffer#updateBuffer} передаётся только изменённая часть
+ * слота — всё, что было стёрто и нарисовано в нём с прошлого показа.
+ * <p>
+ * Память выделяется заново только при смене размеров ({@link #resize}, поток JavaFX).
+ * Кадр, начатый до смены размеров, после неё не показывается.
+ */
+public class FramePresenter {
+
+    private static final int SLOT_COUNT = 3;
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final ImageView view;
+
+    /** Текущий набор слотов; null, если область просмотра пустая */
+    private volatile SlotSet slots;
+
+    /** Набор, в котором рисует поток рендеринга (только для этого потока) */
+    private SlotSet renderSlots;
+
+    public FramePresenter(ImageView view) {
+        this.view = view;
+    }
+
+    /**
+     * Подгоняет буферы под размер области просмотра (поток JavaFX).
+     *
+     * @return true, если буферы были пересозданы
+     */
+    public boolean resize(int width, int height) {
+        width = Math.max(0, width);
+        height = Math.max(0, height);
+        SlotSet current = slots;
+        int currentWidth = current != null ? current.width : 0;
+        int currentHeight = current != null ? current.height : 0;
+        if (width == currentWidth && height == currentHeight) return false;
+
+        slots = width > 0 && height > 0 ? new SlotSet(width, height) : null;
+        view.setImage(null);
+        return true;
+    }
+
+    /**
+     * Буфер для следующего кадра (поток рендеринга).
+     *
+     * @return null, если область просмотра пустая
+     */
+    public FrameBuffer beginFrame() {
+        renderSlots = slots;
+        if (renderSlots == null) return null;
+
+        Slot slot = renderSlots.slots[renderSlots.back];
+        // то, что сейчас в буфере, будет стёрто — эта область тоже изменится
+        slot.accumulate(slot.frame);
+        return slot.frame;
+    }
+
+    /** Отдаёт нарисованный кадр на показ (поток рендеринга) */
+    public void publish() {
+        SlotSet set = renderSlots;
+        if (set == null) return;
+        set.back = set.state.getAndSet(set.back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Показывает последний готовый кадр, если он новее показанного (поток JavaFX).
+     *
+     * @return true, если изображение на экране сменилось
+     */
+    public boolean presentLatest() {
+        SlotSet set = slots;
+        if (set == null || (set.state.get() & FRESH) == 0) return false;
+
+        set.front = set.state.getAndSet(set.front) & INDEX_MASK;
+        Slot slot = set.slots[set.front];
+        slot.accumulate(slot.frame);
+        if (!slot.pendingEmpty) {
+            Rectangle2D region = new Rectangle2D(slot.pendingMinX, slot.pendingMinY,
+                    slot.pendingMaxX - slot.pendingMinX + 1, slot.pendingMaxY - slot.pendingMinY + 1);
+            slot.pixelBuffer.updateBuffer(pb -> region);
+            slot.pendingEmpty = true;
+        }
+        view.setImage(slot.image);
+        return true;
+    }
+
+    /** Три слота одного размера и состояние обмена между ними */
+    private static final class SlotSet {
+        final int width, height;
+        final Slot[] slots = new Slot[SLOT_COUNT];
+
+        /** Индекс среднего слота | FRESH, если в нём непоказанный кадр */
+        final AtomicInteger state = new AtomicInteger(1);
+        int back = 0;     // только поток рендеринга
+        int front = 2;    // только поток JavaFX
+
+        SlotSet(int width, int height) {
+            this.width = width;
+            this.height = height;
+            for (int i = 0; i < SLOT_COUNT; i++) slots[i] = new Slot(width, height);
+        }
+    }
+
+    /**
+     * Буфер кадра поверх памяти слота. Формат PixelBuffer — только premultiplied ARGB,
+     * поэтому растеризатор умножает цвета полупрозрачных пикселей (текстура с альфой,
+     * базовый цвет с прозрачностью) на альфу при записи.
+     */
+    static FrameBuffer createFrame(int width, int height, int[] pixels) {
+        return new FrameBuffer(width, height, pixels, true);
+    }
+
+    /** Память одного буфера */
+    private static final class Slot {
+        final FrameBuffer frame;
+        final PixelBuffer<IntBuffer> pixelBuffer;
+        final WritableImage image;
+
+        // область, изменённая с последнего updateBuffer (включительно)
+        int pendingMinX, pendingMinY, pendingMaxX, pendingMaxY;
+        boolean pendingEmpty = true;
+
+        Slot(int width, int height) {
+            int[] pixels = new int[width * height];
+            pixelBuffer = new PixelBuffer<>(width, height, IntBuffer.wrap(pixels),
+                    PixelFormat.getIntArgbPreInstance());
+            image = new WritableImage(pixelBuffer);
+            frame = createFrame(width, height, pixels);
+        }
+
+        void accumulate(FrameBuffer frame) {
+            if (frame.isDirtyEmpty()) return;
+            if (pendingEmpty) {
+                pendingMinX = frame.getDirtyMinX();
+                pendingMinY = frame.getDirtyMinY();
+                pendingMaxX = frame.getDirtyMaxX();
+                pendingMaxY = frame.getDirtyMaxY();
+                pendingEmpty = false;
+            } else {
+                pendingMinX = Math.min(pendingMinX, frame.getDirtyMinX());
+                pendingMinY = Math.min(pendingMinY, frame.getDirtyMinY());
+                pendingMaxX = Math.max(pendingMaxX, frame.getDirtyMaxX());
+                pendingMaxY = Math.max(pendingMaxY, frame.getDirtyMaxY());
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.transform.Transform;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.List;
+
+/**
+ * Рендер без экрана: кадр заданного размера в массив ARGB или {@link BufferedImage}.
+ * <p>
+ * Не требует запуска JavaFX, поэтому подходит для CI и пакетной обработки.
+ * Экземпляр не потокобезопасен; для параллельного рендера каждому потоку нужен свой
+ * (модели при этом могут быть общими — конвейер их только читает). Чтобы потоки не
+ * делили один пул растеризации, в настройках стоит задать {@code setRenderThreads(1)}.
+ * При явно заданном числе потоков больше одного у рендера свой пул — его закрывает {@link #close()}.
+ * <p>
+ * Пиксели, не закрытые моделями, прозрачные (0), если не задан фон {@link #setBackground}.
+ */
+public class OffscreenRenderer implements AutoCloseable {
+
+    private final int width;
+    private final int height;
+    private final RenderPipeline pipeline = new RenderPipeline();
+
+    /** Цвет фона ARGB; 0 — прозрачный */
+    private int background;
+
+    public OffscreenRenderer(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Неверный размер кадра: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBackground() {
+        return background;
+    }
+
+    public void setBackground(int argb) {
+        this.background = argb;
+    }
+
+    /** Одна модель в новый массив ARGB (построчно, y * width + x) */
+    public int[] render(Model model, Camera camera, Transform transform, RenderSettings settings) {
+        return renderScene(camera, List.of(new RenderItem(model, transform)), settings);
+    }
+
+    /** Все модели в новый массив ARGB (построчно, y * width + x) */
+    public int[] renderScene(Camera camera, List<RenderItem> items, RenderSettings settings) {
+        int[] argb = new int[width * height];
+        renderInto(argb, camera, items, settings);
+        return argb;
+    }
+
+    /** Одна модель в новое изображение TYPE_INT_ARGB */
+    public BufferedImage renderImage(Model model, Camera camera, Transform transform, RenderSettings settings) {
+        return renderSceneImage(camera, List.of(new RenderItem(model, transform)), settings);
+    }
+
+    /** Все модели в новое изображение TYPE_INT_ARGB; конвейер пишет прямо в его растр */
+    public BufferedImage renderSceneImage(Camera camera, List<RenderItem> items, RenderSettings settings) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] argb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        renderInto(argb, camera, items, settings);
+        return image;
+    }
+
+    /**
+     * Рисует кадр в готовый массив (например, переиспользуемый между кадрами).
+     *
+     * @param argb массив не меньше width * height
+     */
+    public void renderInto(int[] argb, Camera camera, List<RenderItem> items, RenderSettings settings) {
+        FrameBuffer frame = new FrameBuffer(width, height, argb);
+        pipeline.render(frame, camera, items, settings);
+
+        if (background != 0) {
+            for (int i = 0; i < width * height; i++) {
+                if (argb[i] == 0) argb[i] = background;
+            }
+        }
+    }
+
+    /** Конвейер со статистикой последнего кадра */
+    public RenderPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /** Закрывает пул потоков конвейера, если он был создан */
+    @Override
+    public void close() {
+        pipeline.close();
+    }
+}
@@ -0,0 +1,26 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.transform.Transform;
+
+/**
+ * Модель сцены вместе с трансформацией, с которой её нужно нарисовать.
+ */
+public final class RenderItem {
+
+    private final Model model;
+    private final Transform transform;
+
+    public RenderItem(Model model, Transform transform) {
+        this.model = model;
+        this.transform = transform != null ? transform : new Transform();
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public Transform getTransform() {
+        return transform;
+    }
+}
@@ -0,0 +1,488 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.utils.PolygonClipper;
+import com.cgvsu.render_engine.utils.ProjectedVertices;
+import com.cgvsu.render_engine.utils.Rasterizer;
+import com.cgvsu.render_engine.utils.TextureSampler;
+import com.cgvsu.render_engine.transform.Transform;
+import com.cgvsu.render_engine.utils.VertexProjector;
+import com.cgvsu.utils.math.Matrix4f;
+import com.cgvsu.utils.math.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Конвейер рендеринга: рисует модели в {@link FrameBuffer} с учётом настроек RenderSettings.
+ * Может работать в "быстром" режиме, с текстурой и освещением, а также рисовать каркас.
+ * <p>
+ * Конвейер не зависит от инструментария JavaFX (только от классов-значений вроде Color)
+ * и одинаково работает в окне ({@link Renderer}) и без экрана ({@link OffscreenRenderer}).
+ * Экземпляр хранит кэши и рабочие буферы, поэтому не потокобезопасен: для рендера
+ * в нескольких потоках нужен свой конвейер на каждый поток. Модели только читаются.
+ * <p>
+ * При автоматическом числе потоков растеризация идёт в общем пуле ForkJoin; при заданном
+ * явно (больше одного) конвейер создаёт свой пул и закрывает его при смене числа потоков
+ * и в {@link #close()}.
+ * <p>
+ * Все модели сцены рисуются в один кадр с общими буферами глубины и цвета.
+ * Для каждой модели вершины проецируются один раз за кадр в свой {@link ProjectedVertices};
+ * все проходы (заливка и каркас) индексируют полигоны в эти буферы.
+ * <p>
+ * Кадр пишется в переданный {@link FrameBuffer} (память изображения на экране или массив ARGB);
+ * перед отрисовкой стирается только то, что было нарисовано в этот буфер в прошлый раз.
+ * <p>
+ * Спроецированные вершины и собранные треугольники кэшируются для каждой модели по версиям
+ * модели, камеры и трансформации: если с прошлого кадра изменились только настройки закраски
+ * (текстура, освещение, фильтрация, цвет, каркас), повторяется только растеризация.
+ * <p>
+ * Модели, ограничивающий параллелепипед которых целиком вне пирамиды видимости, пропускаются.
+ * Остальные рисуются группами с одинаковой закраской (текстура, освещение, цвет), внутри
+ * группы — от ближних к дальним, чтобы иерархический буфер глубины отбрасывал больше.
+ */
+public class RenderPipeline implements AutoCloseable {
+
+    /** Общий буфер глубины для заливки и каркаса, пересоздаётся только при смене размеров */
+    private final ZBuffer zBuffer = new ZBuffer();
+
+    /** Кэши моделей; модель, убранная из сцены, освобождается вместе с кэшем */
+    private final Map<Model, ModelCache> caches = new WeakHashMap<>();
+
+    /** Видимые модели текущего кадра в порядке отрисовки */
+    private final List<DrawEntry> drawList = new ArrayList<>();
+
+    /** Порядок отрисовки: закраска (текстура, освещение, цвет), затем от ближних к дальним */
+    private static final Comparator<DrawEntry> DRAW_ORDER = Comparator
+            .comparingInt((DrawEntry d) -> d.cache.lit ? 1 : 0)
+            .thenComparingInt(d -> System.identityHashCode(d.cache.texture))
+            .thenComparingInt(d -> d.cache.baseArgb)
+            .thenComparingDouble(d -> d.cache.depth);
+
+    /** Отсечение полигонов плоскостями в однородных координатах */
+    private final PolygonClipper clipper = new PolygonClipper();
+
+    // Рабочие массивы для углов текущего полигона
+    private int[] polyIndices = new int[8];
+    private float[] polyUv = new float[16];
+    private final float[] triangleUv = new float[6];
+
+    // Видимая часть текущего полигона после отсечения (ссылается на polyIndices/polyUv или буферы clipper)
+    private int[] visibleIndices;
+    private float[] visibleUv;
+
+    // Концы текущего ребра каркаса после отсечения (x, y, z) x 2
+    private final float[] edge = new float[6];
+
+    /** Цвет каркаса */
+    private static final int WIREFRAME_ARGB = 0xFF000000;
+
+    /** Сдвиг глубины каркаса к камере, чтобы рёбра не тонули в своих же гранях */
+    private static final float WIREFRAME_DEPTH_BIAS = 0.01f;
+
+    /** Свой пул для явно заданного числа потоков; null — не создан */
+    private ForkJoinPool ownedPool;
+
+    // Статистика последнего кадра
+    private int visibleModels;
+    private int culledModels;
+
+    /** Рисует все модели в один кадр с общим буфером глубины; размеры кадра берутся из буфера */
+    public void render(
+            FrameBuffer target,
+            Camera camera,
+            List<RenderItem> items,
+            RenderSettings settings
+    ) {
+        // прозрачный фон: под кадром виден фон окна
+        target.clearDirty(0);
+        visibleModels = 0;
+        culledModels = 0;
+
+        int width = target.getWidth();
+        int height = target.getHeight();
+        if (width <= 0 || height <= 0 || camera == null || items.isEmpty()) return;
+
+        Vector3f lightPos = camera.getPosition();
+        Matrix4f viewProjection = camera.getProjectionMatrix().multiply(camera.getViewMatrix());
+
+        zBuffer.resize(width, height);
+        zBuffer.clear();
+
+        // ===== Подготовка моделей: отсечение целиком, геометрия (из кэша), состояние закраски =====
+        drawList.clear();
+        for (RenderItem item : items) {
+            Model model = item.getModel();
+            if (model == null) continue;
+
+            ModelCache cache = caches.computeIfAbsent(model, m -> new ModelCache());
+            Matrix4f mvp = viewProjection.multiply(createModelMatrix(item.getTransform()));
+
+            cache.updateDepth(model, mvp);
+            if (settings.isFrustumCulling() && !cache.isInFrustum(mvp)) {
+                culledModels++;
+                continue;
+            }
+            if (!cache.isSetupFor(model, camera, item.getTransform(), settings, width, height)) {
+                setupGeometry(cache, model, mvp, camera, item.getTransform(), settings, width, height);
+            }
+            if (cache.rasterizer.getTriangleCount() == 0 && !settings.isWireframe()) continue;
+
+            prepareShading(cache, model, settings, lightPos);
+            drawList.add(new DrawEntry(model, cache));
+        }
+        drawList.sort(DRAW_ORDER);
+        visibleModels = drawList.size();
+
+        // ===== Заливка: модели одной закраски идут подряд и делят один объект Shading =====
+        Rasterizer.Shading shading = null;
+        ModelCache previous = null;
+        ForkJoinPool pool = rasterPool(settings.getRenderThreads());
+        for (DrawEntry entry : drawList) {
+            ModelCache cache = entry.cache;
+            if (previous == null || !previous.sameShading(cache)) {
+                shading = new Rasterizer.Shading(cache.texture, cache.lit ? lightPos : null,
+                        cache.baseColor, cache.lit, settings.isBilinearFiltering(), settings.isTrilinearFiltering());
+            }
+            cache.rasterizer.rasterize(zBuffer, target, shading, pool);
+            previous = cache;
+        }
+
+        // каркас пишется в тот же буфер кадра поверх заливки всех моделей, с проверкой её глубины
+        if (settings.isWireframe()) {
+            for (DrawEntry entry : drawList) {
+                drawWireframe(target, entry.cache, entry.model, width, height);
+            }
+        }
+        drawList.clear();
+    }
+
+    /** Модели, нарисованные в последнем кадре */
+    public int getVisibleModels() {
+        return visibleModels;
+    }
+
+    /** Модели, целиком отброшенные отсечением по пирамиде видимости в последнем кадре */
+    public int getCulledModels() {
+        return culledModels;
+    }
+
+    /** Стадия отсечения полигонов модели со счётчиками последней сборки (для диагностики) */
+    public CullingStage getCullingStage(Model model) {
+        ModelCache cache = caches.get(model);
+        return cache != null ? cache.culling : null;
+    }
+
+    /** Закрывает собственный пул потоков; конвейером можно пользоваться и дальше */
+    @Override
+    public void close() {
+        if (ownedPool != null) {
+            ownedPool.shutdown();
+            ownedPool = null;
+        }
+    }
+
+    /** Свой пул конвейера (для тестов) */
+    ForkJoinPool getOwnedPool() {
+        return ownedPool;
+    }
+
+    /**
+     * Пул для растеризации: 0 — общий пул ForkJoin, 1 — вызывающий поток (null),
+     * иначе — свой пул на заданное число потоков (старый закрывается при смене числа)
+     */
+    private ForkJoinPool rasterPool(int threads) {
+        if (threads == 1 || (threads == 0 && Runtime.getRuntime().availableProcessors() == 1)) {
+            close();
+            return null;
+        }
+        if (threads == 0) {
+            close();
+            return ForkJoinPool.commonPool();
+        }
+        if (ownedPool == null || ownedPool.getParallelism() != threads) {
+            close();
+            ownedPool = new ForkJoinPool(threads);
+        }
+        return ownedPool;
+    }
+
+    /** Число моделей с кэшем (освобождённые модели не считаются) */
+    int getCachedModelCount() {
+        return caches.size();
+    }
+
+    private static Matrix4f createModelMatrix(Transform transform) {
+        return com.cgvsu.render_engine.GraphicConveyor.createModelMatrix(
+                transform.scaleX, transform.scaleY, transform.scaleZ,
+                transform.rotateX, transform.rotateY, transform.rotateZ,
+                transform.translateX, transform.translateY, transform.translateZ
+        );
+    }
+
+    /** Проекция вершин, отсечение и сборка треугольников модели в её растеризатор */
+    private void setupGeometry(ModelCache cache, Model model, Matrix4f mvp, Camera camera, Transform transform,
+                               RenderSettings settings, int width, int height) {
+        // ===== Обработка вершин: каждая вершина проецируется один раз за кадр =====
+        VertexProjector.projectVertices(model, mvp, width, height, cache.projected);
+        cache.culling.begin(settings.isBackFaceCulling(), settings.isFrustumCulling());
+
+        boolean clipAll = settings.isGuardBandClipping();
+        assembleTriangles(cache, model, width, height, clipAll);
+
+        cache.geometryVersion = model.getGeometryVersion();
+        cache.cameraVersion = camera.getVersion();
+        cache.transformVersion = transform.getVersion();
+        cache.width = width;
+        cache.height = height;
+        cache.backFace = settings.isBackFaceCulling();
+        cache.frustum = settings.isFrustumCulling();
+        cache.clipAll = clipAll;
+        cache.setupValid = true;
+    }
+
+    /** Состояние закраски модели: в быстром режиме (без текстур и освещения) — цвет из настроек */
+    private static void prepareShading(ModelCache cache, Model model, RenderSettings settings, Vector3f lightPos) {
+        boolean useTexture = settings.isUseTexture() && model.getTextureSampler() != null;
+        boolean useLighting = settings.isUseLighting() && lightPos != null;
+
+        if (!useTexture && !useLighting) {
+            cache.texture = null;
+            cache.lit = false;
+            cache.baseColor = settings.getBaseColor();
+        } else {
+            // модель не изменяется: её могут рисовать несколько конвейеров одновременно
+            cache.texture = useTexture ? model.getTextureSampler() : null;
+            cache.lit = useLighting && model.isLightingEnabled();
+            cache.baseColor = model.getBaseColor();
+        }
+        cache.baseArgb = Rasterizer.toArgb(cache.baseColor);
+    }
+
+    /**
+     * Собирает углы полигона в рабочие массивы polyIndices и polyUv.
+     *
+     * @return число собранных углов
+     */
+    private int gatherPolygon(Mesh mesh, int polygon) {
+        int[] vertexOffsets = mesh.getVertexOffsets();
+        int[] vertexIndices = mesh.getVertexIndices();
+        int[] textureOffsets = mesh.getTextureOffsets();
+        int[] textureIndices = mesh.getTextureIndices();
+        float[] textureCoords = mesh.getTextureCoords();
+        int textureVertexCount = mesh.getTextureVertexCount();
+
+        int first = vertexOffsets[polygon];
+        int n = vertexOffsets[polygon + 1] - first;
+        int firstTexture = textureOffsets[polygon];
+        boolean hasTexture = textureOffsets[polygon + 1] - firstTexture >= n;
+        if (polyIndices.length < n) {
+            polyIndices = new int[n];
+            polyUv = new float[2 * n];
+        }
+
+        for (int i = 0; i < n; i++) {
+            float u = 0.0f;
+            float v = 0.0f;
+            if (hasTexture) {
+                int ti = textureIndices[firstTexture + i];
+                if (ti >= 0 && ti < textureVertexCount) {
+                    u = textureCoords[2 * ti];
+                    v = textureCoords[2 * ti + 1];
+                }
+            }
+
+            polyIndices[i] = vertexIndices[first + i];
+            polyUv[2 * i] = u;
+            polyUv[2 * i + 1] = v;
+        }
+        return n;
+    }
+
+    /**
+     * Готовит полигон к заливке: отбрасывает полигоны вне пирамиды видимости,
+     * отсекает плоскостями до перспективного деления и отбрасывает задние грани.
+     * Видимая часть записывается в visibleIndices и visibleUv.
+     *
+     * @return число углов видимой части (меньше 3 — рисовать нечего)
+     */
+    private int preparePolygon(ModelCache cache, Mesh mesh, int polygon, boolean clipAll, int width, int height) {
+        ProjectedVertices projected = cache.projected;
+        CullingStage culling = cache.culling;
+        int count = gatherPolygon(mesh, polygon);
+        if (count < 3 || !culling.acceptFrustum(projected, polyIndices, count)) return 0;
+
+        visibleIndices = polyIndices;
+        visibleUv = polyUv;
+
+        int outcodes = 0;
+        for (int i = 0; i < count; i++) outcodes |= projected.outcode[polyIndices[i]];
+
+        if (PolygonClipper.needsClipping(outcodes, clipAll)) {
+            count = clipper.clip(projected, polyIndices, polyUv, count, clipAll, width, height);
+            if (count < 3) return 0;
+            visibleIndices = clipper.getIndices();
+            visibleUv = clipper.getUv();
+        }
+
+        return culling.acceptFacing(projected, visibleIndices, count) ? count : 0;
+    }
+
+    /**
+     * Сборка треугольников для заливки растеризатором: индексы в общий буфер вершин + UV углов.
+     * Треугольники раскладываются по тайлам экрана, тайлы растеризуются параллельно.
+     */
+    private void assembleTriangles(ModelCache cache, Model model, int width, int height, boolean clipAll) {
+        TileRasterizer tileRasterizer = cache.rasterizer;
+        tileRasterizer.begin(cache.projected, width, height);
+        Mesh mesh = model.getMesh();
+        for (int polygon = 0; polygon < mesh.getPolygonCount(); polygon++) {
+            int count = preparePolygon(cache, mesh, polygon, clipAll, width, height);
+            if (count < 3) continue;
+
+            for (int i = 1; i < count - 1; i++) {
+                triangleUv[0] = visibleUv[0];
+                triangleUv[1] = visibleUv[1];
+                triangleUv[2] = visibleUv[2 * i];
+                triangleUv[3] = visibleUv[2 * i + 1];
+                triangleUv[4] = visibleUv[2 * i + 2];
+                triangleUv[5] = visibleUv[2 * i + 3];
+                tileRasterizer.addTriangle(visibleIndices[0], visibleIndices[i], visibleIndices[i + 1], triangleUv, 0);
+            }
+        }
+    }
+
+    /**
+     * Рисует каркас модели в общий буфер кадра: каждое уникальное ребро один раз,
+     * с отсечением в однородных координатах. В режиме с растеризатором рёбра,
+     * закрытые гранями, не рисуются.
+     */
+    private void drawWireframe(FrameBuffer target, ModelCache cache, Model model, int width, int height) {
+        EdgeList edgeList = cache.edges;
+        edgeList.update(model);
+        int[] edges = edgeList.getEdges();
+
+        for (int e = 0; e < edgeList.getEdgeCount(); e++) {
+            if (!PolygonClipper.clipLine(cache.projected, edges[2 * e], edges[2 * e + 1], width, height, edge)) continue;
+
+            Rasterizer.rasterizeLine(edge[0], edge[1], edge[2], edge[3], edge[4], edge[5],
+                    zBuffer, target, WIREFRAME_ARGB, WIREFRAME_DEPTH_BIAS);
+            target.markDirty((int) Math.floor(Math.min(edge[0], edge[3])), (int) Math.floor(Math.min(edge[1], edge[4])),
+                    (int) Math.ceil(Math.max(edge[0], edge[3])), (int) Math.ceil(Math.max(edge[1], edge[4])));
+        }
+    }
+
+    /**
+     * Модель кадра вместе с её кэшем. Сам кэш не ссылается на модель: иначе ключ
+     * WeakHashMap был бы достижим через значение и модель никогда не освобождалась бы.
+     */
+    private static final class DrawEntry {
+        final Model model;
+        final ModelCache cache;
+
+        DrawEntry(Model model, ModelCache cache) {
+            this.model = model;
+            this.cache = cache;
+        }
+    }
+
+    /** Кэш одной модели: геометрия кадра, ограничивающий параллелепипед и состояние закраски */
+    private static final class ModelCache {
+        final ProjectedVertices projected = new ProjectedVertices();
+        final TileRasterizer rasterizer = new TileRasterizer();
+        final CullingStage culling = new CullingStage();
+        final EdgeList edges = new EdgeList();
+
+        // ключ собранной геометрии
+        boolean setupValid;
+        long geometryVersion, cameraVersion, transformVersion;
+        int width, height;
+        boolean backFace, frustum, clipAll;
+
+        // ограничивающий параллелепипед в координатах модели
+        long boundsVersion;
+        boolean boundsEmpty;
+        float minX, minY, minZ, maxX, maxY, maxZ;
+
+        // закраска и глубина текущего кадра
+        TextureSampler texture;
+        boolean lit;
+        javafx.scene.paint.Color baseColor;
+        int baseArgb;
+        float depth;
+
+        boolean isSetupFor(Model model, Camera camera, Transform transform,
+                           RenderSettings settings, int width, int height) {
+            return setupValid
+                    && model.getGeometryVersion() == geometryVersion
+                    && camera.getVersion() == cameraVersion
+                    && transform.getVersion() == transformVersion
+                    && width == this.width && height == this.height
+                    && settings.isBackFaceCulling() == backFace
+                    && settings.isFrustumCulling() == frustum
+                    && settings.isGuardBandClipping() == clipAll;
+        }
+
+        boolean sameShading(ModelCache other) {
+            return texture == other.texture && lit == other.lit && baseArgb == other.baseArgb;
+        }
+
+        /** Обновляет границы модели и запоминает глубину (w) центра параллелепипеда для сортировки */
+        void updateDepth(Model model, Matrix4f mvp) {
+            updateBounds(model);
+            depth = boundsEmpty ? 0
+                    : transformRow(mvp, 3, 0.5f * (minX + maxX), 0.5f * (minY + maxY), 0.5f * (minZ + maxZ));
+        }
+
+        /**
+         * Проверяет 8 углов ограничивающего параллелепипеда по кодам отсечения.
+         * Границы должны быть обновлены вызовом {@link #updateDepth}.
+         *
+         * @return false, если все углы снаружи одной плоскости или модель пуста
+         */
+        boolean isInFrustum(Matrix4f mvp) {
+            if (boundsEmpty) return false;
+
+            int common = 0xFF;
+            for (int corner = 0; corner < 8; corner++) {
+                float x = (corner & 1) == 0 ? minX : maxX;
+                float y = (corner & 2) == 0 ? minY : maxY;
+                float z = (corner & 4) == 0 ? minZ : maxZ;
+                common &= ProjectedVertices.computeOutcode(
+                        transformRow(mvp, 0, x, y, z), transformRow(mvp, 1, x, y, z),
+                        transformRow(mvp, 2, x, y, z), transformRow(mvp, 3, x, y, z));
+            }
+            return common == 0;
+        }
+
+        private void updateBounds(Model model) {
+            if (boundsVersion == model.getGeometryVersion()) return;
+            boundsVersion = model.getGeometryVersion();
+
+            Mesh mesh = model.getMesh();
+            float[] positions = mesh.getPositions();
+            int count = mesh.getVertexCount();
+            boundsEmpty = count == 0;
+            minX = minY = minZ = Float.POSITIVE_INFINITY;
+            maxX = maxY = maxZ = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < 3 * count; i += 3) {
+                minX = Math.min(minX, positions[i]);
+                minY = Math.min(minY, positions[i + 1]);
+                minZ = Math.min(minZ, positions[i + 2]);
+                maxX = Math.max(maxX, positions[i]);
+                maxY = Math.max(maxY, positions[i + 1]);
+                maxZ = Math.max(maxZ, positions[i + 2]);
+            }
+        }
+
+        private static float transformRow(Matrix4f m, int row, float x, float y, float z) {
+            return m.get(row, 0) * x + m.get(row, 1) * y + m.get(row, 2) * z + m.get(row, 3);
+        }
+    }
+}
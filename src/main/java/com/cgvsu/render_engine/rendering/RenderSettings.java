@@ -2,9 +2,14 @@ package com.cgvsu.render_engine.rendering;
 
 import javafx.scene.paint.Color;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Настройки рендеринга модели.
  * Позволяет включать/отключать каркас, текстуру, освещение и задавать базовый цвет.
+ * <p>
+ * Каждый сеттер присваивает настройкам новую версию ({@link #getVersion()});
+ * копия сохраняет версию оригинала.
  */
 public class RenderSettings {
 
@@ -17,12 +22,66 @@ public class RenderSettings {
     /** Использовать освещение при рендеринге */
     private boolean useLighting = false;
 
+    /** Билинейная фильтрация текстуры (иначе — ближайший тексель) */
+    private boolean bilinearFiltering = false;
+
+    /** Трилинейная фильтрация: смешивание двух соседних мип-уровней (качество выше, выборок вдвое больше) */
+    private boolean trilinearFiltering = false;
+
     /** Базовый цвет для модели (если нет текстуры или wireframe) */
     private Color baseColor = Color.GRAY;
 
     /** Флаг, указывающий, что текстура уже загружена */
     private boolean textureLoaded = false;
 
+    /** Число потоков растеризации (0 — по числу ядер, 1 — однопоточный режим) */
+    private int renderThreads = 0;
+
+    /**
+     * Отбрасывать полигоны, повёрнутые к камере задней стороной. По умолчанию выключено:
+     * у открытых сканов и моделей с непоследовательным обходом вершин появились бы дыры
+     */
+    private boolean backFaceCulling = false;
+
+    /** Отбрасывать полигоны целиком вне пирамиды видимости */
+    private boolean frustumCulling = true;
+
+    /**
+     * Отсекать полигоны не только ближней, но и дальней и боковыми плоскостями
+     * (боковые — с запасом guard band, см. PolygonClipper)
+     */
+    private boolean guardBandClipping = true;
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private long version = VERSIONS.incrementAndGet();
+
+    public RenderSettings() {
+    }
+
+    /** Копия настроек (снимок для потока рендеринга) */
+    public RenderSettings(RenderSettings other) {
+        wireframe = other.wireframe;
+        useTexture = other.useTexture;
+        useLighting = other.useLighting;
+        bilinearFiltering = other.bilinearFiltering;
+        trilinearFiltering = other.trilinearFiltering;
+        baseColor = other.baseColor;
+        textureLoaded = other.textureLoaded;
+        renderThreads = other.renderThreads;
+        backFaceCulling = other.backFaceCulling;
+        frustumCulling = other.frustumCulling;
+        guardBandClipping = other.guardBandClipping;
+        version = other.version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    private void touch() {
+        version = VERSIONS.incrementAndGet();
+    }
+
     // -----------------------
     // Texture loaded
     // -----------------------
@@ -32,6 +91,7 @@ public class RenderSettings {
 
     public void setTextureLoaded(boolean loaded) {
         this.textureLoaded = loaded;
+        touch();
     }
 
     // -----------------------
@@ -43,6 +103,7 @@ public class RenderSettings {
 
     public void setWireframe(boolean wireframe) {
         this.wireframe = wireframe;
+        touch();
     }
 
     // -----------------------
@@ -54,6 +115,7 @@ public class RenderSettings {
 
     public void setUseTexture(boolean useTexture) {
         this.useTexture = useTexture;
+        touch();
     }
 
     // -----------------------
@@ -65,6 +127,28 @@ public class RenderSettings {
 
     public void setUseLighting(boolean useLighting) {
         this.useLighting = useLighting;
+        touch();
+    }
+
+    // -----------------------
+    // Texture filtering
+    // -----------------------
+    public boolean isBilinearFiltering() {
+        return bilinearFiltering;
+    }
+
+    public void setBilinearFiltering(boolean bilinearFiltering) {
+        this.bilinearFiltering = bilinearFiltering;
+        touch();
+    }
+
+    public boolean isTrilinearFiltering() {
+        return trilinearFiltering;
+    }
+
+    public void setTrilinearFiltering(boolean trilinearFiltering) {
+        this.trilinearFiltering = trilinearFiltering;
+        touch();
     }
 
     // -----------------------
@@ -76,5 +160,56 @@ public class RenderSettings {
 
     public void setBaseColor(Color baseColor) {
         this.baseColor = baseColor;
+        touch();
+    }
+
+    // -----------------------
+    // Render threads
+    // -----------------------
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+
+    public void setRenderThreads(int renderThreads) {
+        this.renderThreads = Math.max(0, renderThreads);
+        touch();
+    }
+
+    /** Фактическое число потоков с учётом автоматического режима */
+    public int getEffectiveRenderThreads() {
+        return renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    // -----------------------
+    // Culling
+    // -----------------------
+    public boolean isBackFaceCulling() {
+        return backFaceCulling;
+    }
+
+    public void setBackFaceCulling(boolean backFaceCulling) {
+        this.backFaceCulling = backFaceCulling;
+        touch();
+    }
+
+    public boolean isFrustumCulling() {
+        return frustumCulling;
+    }
+
+    public void setFrustumCulling(boolean frustumCulling) {
+        this.frustumCulling = frustumCulling;
+        touch();
+    }
+
+    // -----------------------
+    // Clipping
+    // -----------------------
+    public boolean isGuardBandClipping() {
+        return guardBandClipping;
+    }
+
+    public void setGuardBandClipping(boolean guardBandClipping) {
+        this.guardBandClipping = guardBandClipping;
+        touch();
     }
 }
@@ -3,18 +3,28 @@ package com.cgvsu.render_engine.rendering;
 import com.cgvsu.model.Model;
 import com.cgvsu.render_engine.Camera;
 import com.cgvsu.render_engine.transform.Transform;
-import javafx.scene.canvas.GraphicsContext;
+
+import java.util.List;
 
 public interface RendererImpl {
 
-    void render(
-            GraphicsContext gc,
+    /** Рисует одну модель в буфер кадра; размеры кадра берутся из буфера */
+    default void render(
+            FrameBuffer target,
             Camera camera,
             Model model,
-            int width,
-            int height,
             Transform transform,
             RenderSettings settings
+    ) {
+        renderScene(target, camera, model != null ? List.of(new RenderItem(model, transform)) : List.of(), settings);
+    }
+
+    /** Рисует все модели сцены в один кадр с общим буфером глубины */
+    void renderScene(
+            FrameBuffer target,
+            Camera camera,
+            List<RenderItem> items,
+            RenderSettings settings
     );
 
     Model applyTransform(Model model, Transform transform);
@@ -0,0 +1,239 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.render_engine.utils.ProjectedVertices;
+import com.cgvsu.render_engine.utils.Rasterizer;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Многопоточная растеризация с разбиением экрана на тайлы.
+ * <p>
+ * Треугольники кадра накапливаются через {@link #addTriangle} как тройки индексов
+ * в общий буфер спроецированных вершин, затем раскладываются
+ * по тайлам TILE_SIZE x TILE_SIZE по ограничивающим прямоугольникам. Каждый тайл
+ * растеризуется отдельной задачей ForkJoin и пишет только в свою часть буферов
+ * цвета и глубины, поэтому синхронизация не нужна. Внутри тайла треугольники
+ * обрабатываются в порядке добавления — результат совпадает с последовательной отрисовкой.
+ */
+public class TileRasterizer {
+
+    public static final int TILE_SIZE = 64;
+
+    /** Тайлы, на которых задача перестаёт делиться дальше */
+    private static final int TILES_PER_TASK = 2;
+
+    private ProjectedVertices vertices;
+    private int[] triangles = new int[3 * 1024];  // индексы вершин, по 3 на треугольник
+    private float[] uvs = new float[6 * 1024];    // UV углов, по 6 на треугольник
+    private int triangleCount;
+
+    // экранный прямоугольник, покрытый треугольниками кадра
+    private float boundsMinX, boundsMinY, boundsMaxX, boundsMaxY;
+
+    private int width, height;
+    private int tilesX, tilesY;
+    private int[] tileStart = new int[1];   // смещения тайлов в binned (CSR)
+    private int[] binned = new int[1024];   // индексы треугольников по тайлам
+    private boolean binsValid;              // раскладка соответствует накопленным треугольникам
+
+    /** Начинает новый кадр заданного размера над буфером спроецированных вершин */
+    public void begin(ProjectedVertices vertices, int width, int height) {
+        this.vertices = vertices;
+        triangleCount = 0;
+        binsValid = false;
+        boundsMinX = boundsMinY = Float.POSITIVE_INFINITY;
+        boundsMaxX = boundsMaxY = Float.NEGATIVE_INFINITY;
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        tilesX = (Math.max(0, width) + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (Math.max(0, height) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    /**
+     * Добавляет треугольник кадра.
+     *
+     * @param uv       текстурные координаты углов (u0, v0, u1, v1, u2, v2)
+     * @param uvOffset смещение в массиве uv
+     */
+    public void addTriangle(int i0, int i1, int i2, float[] uv, int uvOffset) {
+        float[] sx = vertices.screenX, sy = vertices.screenY;
+        float minX = Math.min(sx[i0], Math.min(sx[i1], sx[i2]));
+        float maxX = Math.max(sx[i0], Math.max(sx[i1], sx[i2]));
+        float minY = Math.min(sy[i0], Math.min(sy[i1], sy[i2]));
+        float maxY = Math.max(sy[i0], Math.max(sy[i1], sy[i2]));
+
+        // треугольники целиком за пределами экрана в тайлы не попадают
+        if (maxX < 0 || minX >= width || maxY < 0 || minY >= height) {
+            return;
+        }
+        boundsMinX = Math.min(boundsMinX, minX);
+        boundsMinY = Math.min(boundsMinY, minY);
+        boundsMaxX = Math.max(boundsMaxX, maxX);
+        boundsMaxY = Math.max(boundsMaxY, maxY);
+        if (triangleCount * 3 + 3 > triangles.length) {
+            triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            uvs = Arrays.copyOf(uvs, uvs.length * 2);
+        }
+        int base = triangleCount * 3;
+        triangles[base] = i0;
+        triangles[base + 1] = i1;
+        triangles[base + 2] = i2;
+        System.arraycopy(uv, uvOffset, uvs, triangleCount * 6, 6);
+        triangleCount++;
+        binsValid = false;
+    }
+
+    public int getTriangleCount() {
+        return triangleCount;
+    }
+
+    /**
+     * Растеризует накопленные треугольники и помечает покрытый ими прямоугольник
+     * изменённым в буфере кадра. Можно вызывать повторно (например, с другой закраской):
+     * раскладка по тайлам строится один раз после последнего {@link #addTriangle}.
+     *
+     * @param pool пул потоков растеризации (принадлежит вызывающему); null — всё в вызывающем потоке
+     */
+    public void rasterize(ZBuffer zBuffer, FrameBuffer frame, Rasterizer.Shading shading, ForkJoinPool pool) {
+        if (triangleCount == 0 || tilesX == 0 || tilesY == 0) return;
+
+        frame.markDirty((int) Math.floor(boundsMinX), (int) Math.floor(boundsMinY),
+                (int) Math.ceil(boundsMaxX), (int) Math.ceil(boundsMaxY));
+
+        if (!binsValid) {
+            binTriangles();
+            binsValid = true;
+        }
+
+        int tileCount = tilesX * tilesY;
+        if (pool == null || tileCount == 1) {
+            rasterizeTiles(0, tileCount, zBuffer, frame, shading);
+            return;
+        }
+
+        pool.invoke(new TileTask(0, tileCount, zBuffer, frame, shading));
+    }
+
+    /** Раскладка треугольников по тайлам в два прохода: подсчёт, затем заполнение */
+    private void binTriangles() {
+        int tileCount = tilesX * tilesY;
+        if (tileStart.length < tileCount + 1) tileStart = new int[tileCount + 1];
+        Arrays.fill(tileStart, 0, tileCount + 1, 0);
+
+        // 1) сколько треугольников попадает в каждый тайл
+        for (int t = 0; t < triangleCount; t++) {
+            int tx0 = tileMinX(t), tx1 = tileMaxX(t), ty0 = tileMinY(t), ty1 = tileMaxY(t);
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    tileStart[ty * tilesX + tx + 1]++;
+                }
+            }
+        }
+
+        // 2) префиксные суммы -> начало списка каждого тайла
+        for (int i = 0; i < tileCount; i++) tileStart[i + 1] += tileStart[i];
+        if (binned.length < tileStart[tileCount]) binned = new int[tileStart[tileCount]];
+
+        // 3) заполнение в порядке добавления треугольников
+        int[] cursor = Arrays.copyOf(tileStart, tileCount);
+        for (int t = 0; t < triangleCount; t++) {
+            int tx0 = tileMinX(t), tx1 = tileMaxX(t), ty0 = tileMinY(t), ty1 = tileMaxY(t);
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    binned[cursor[ty * tilesX + tx]++] = t;
+                }
+            }
+        }
+    }
+
+    private void rasterizeTiles(int from, int to, ZBuffer zBuffer, FrameBuffer frame, Rasterizer.Shading shading) {
+        for (int tile = from; tile < to; tile++) {
+            int start = tileStart[tile];
+            int end = tileStart[tile + 1];
+            if (start == end) continue;
+
+            int minX = (tile % tilesX) * TILE_SIZE;
+            int minY = (tile / tilesX) * TILE_SIZE;
+            int maxX = minX + TILE_SIZE - 1;
+            int maxY = minY + TILE_SIZE - 1;
+
+            for (int i = start; i < end; i++) {
+                int t = binned[i];
+                int base = t * 3;
+                Rasterizer.rasterizeTriangle(
+                        vertices,
+                        triangles[base], triangles[base + 1], triangles[base + 2],
+                        uvs, t * 6,
+                        zBuffer, frame, shading,
+                        minX, minY, maxX, maxY
+                );
+            }
+        }
+    }
+
+    // ---------- Границы треугольника в тайлах (с отсечением по экрану) ----------
+
+    private int tileMinX(int t) {
+        float[] sx = vertices.screenX;
+        int base = t * 3;
+        float x = Math.min(sx[triangles[base]], Math.min(sx[triangles[base + 1]], sx[triangles[base + 2]]));
+        return clampTile((int) Math.floor(x) / TILE_SIZE, tilesX);
+    }
+
+    private int tileMaxX(int t) {
+        float[] sx = vertices.screenX;
+        int base = t * 3;
+        float x = Math.max(sx[triangles[base]], Math.max(sx[triangles[base + 1]], sx[triangles[base + 2]]));
+        return clampTile((int) Math.ceil(x) / TILE_SIZE, tilesX);
+    }
+
+    private int tileMinY(int t) {
+        float[] sy = vertices.screenY;
+        int base = t * 3;
+        float y = Math.min(sy[triangles[base]], Math.min(sy[triangles[base + 1]], sy[triangles[base + 2]]));
+        return clampTile((int) Math.floor(y) / TILE_SIZE, tilesY);
+    }
+
+    private int tileMaxY(int t) {
+        float[] sy = vertices.screenY;
+        int base = t * 3;
+        float y = Math.max(sy[triangles[base]], Math.max(sy[triangles[base + 1]], sy[triangles[base + 2]]));
+        return clampTile((int) Math.ceil(y) / TILE_SIZE, tilesY);
+    }
+
+    private static int clampTile(int tile, int count) {
+        return Math.max(0, Math.min(count - 1, tile));
+    }
+
+    /** Рекурсивное деление диапазона тайлов между потоками пула (не сериализуется) */
+    @SuppressWarnings("serial")
+    private class TileTask extends RecursiveAction {
+        private final int from, to;
+        private final ZBuffer zBuffer;
+        private final FrameBuffer frame;
+        private final Rasterizer.Shading shading;
+
+        TileTask(int from, int to, ZBuffer zBuffer, FrameBuffer frame, Rasterizer.Shading shading) {
+            this.from = from;
+            this.to = to;
+            this.zBuffer = zBuffer;
+            this.frame = frame;
+            this.shading = shading;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILES_PER_TASK) {
+                rasterizeTiles(from, to, zBuffer, frame, shading);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                    new TileTask(from, mid, zBuffer, frame, shading),
+                    new TileTask(mid, to, zBuffer, frame, shading)
+            );
+        }
+    }
+}
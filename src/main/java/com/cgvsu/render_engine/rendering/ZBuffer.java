@@ -1,28 +1,154 @@
 package com.cgvsu.render_engine.rendering;
 
-public class ZBuffer {
-    private final float[][] buffer;
+import java.util.Arrays;
+
+/**
+ * Буфер глубины, хранящийся построчно в одном float[] (индекс = y * width + x).
+ * <p>
+ * Буфер живёт между кадрами: память выделяется только при изменении размеров,
+ * а очистка выполняется за O(1) сменой поколения. Значение пикселя, записанное
+ * в прошлом поколении, считается равным +Infinity.
+ * <p>
+ * Рядом с буфером хранится грубый уровень иерархического Z: для каждого блока
+ * BLOCK_SIZE x BLOCK_SIZE — верхняя оценка глубины (самый дальний пиксель).
+ * Оценка появляется, когда в блок записаны все пиксели, и уточняется пересчётом
+ * не чаще чем раз на BLOCK_SIZE² записей, так что в среднем стоит O(1) на запись.
+ * Запись только уменьшает глубину, поэтому устаревшая оценка остаётся верной.
+ * Блоки не пересекают границы тайлов {@link TileRasterizer}, и потоки растеризации
+ * не делят между собой ни пиксели, ни блоки.
+ */
+public final class ZBuffer {
+    private int width;
+    private int height;
+    private float[] depth = new float[0];
+    private int[] generation = new int[0];
+    private int currentGeneration = 1;
+
+    /** Размер блока иерархического Z (делит TileRasterizer.TILE_SIZE) */
+    public static final int BLOCK_SHIFT = 3;
+    public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private int blocksX;
+    private float[] blockMax = new float[0];       // верхняя оценка глубины блока
+    private int[] blockCovered = new int[0];       // пикселей блока, записанных в этом поколении
+    private int[] blockWrites = new int[0];        // перезаписей с последнего пересчёта оценки
+    private int[] blockGeneration = new int[0];
+
+    public ZBuffer() {
+    }
 
     public ZBuffer(int width, int height) {
-        buffer = new float[width][height];
-        for (int x = 0; x < width; x++)
-            for (int y = 0; y < height; y++)
-                buffer[x][y] = Float.POSITIVE_INFINITY;
+        resize(width, height);
+    }
+
+    /**
+     * Подгоняет буфер под размер кадра. При изменении размеров буфер пересоздаётся пустым.
+     *
+     * @return true, если память была выделена заново
+     */
+    public boolean resize(int width, int height) {
+        if (width == this.width && height == this.height) return false;
+
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        this.depth = new float[this.width * this.height];
+        this.generation = new int[this.width * this.height];
+        this.currentGeneration = 1;
+
+        this.blocksX = (this.width + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        int blocks = blocksX * ((this.height + BLOCK_SIZE - 1) >> BLOCK_SHIFT);
+        this.blockMax = new float[blocks];
+        this.blockCovered = new int[blocks];
+        this.blockWrites = new int[blocks];
+        this.blockGeneration = new int[blocks];
+        return true;
+    }
+
+    /** Очищает буфер (все значения становятся +Infinity) за O(1) */
+    public void clear() {
+        if (currentGeneration == Integer.MAX_VALUE) {
+            // редкое переполнение счётчика — сбрасываем метки целиком
+            Arrays.fill(generation, 0);
+            Arrays.fill(blockGeneration, 0);
+            currentGeneration = 0;
+        }
+        currentGeneration++;
     }
 
     public boolean testAndSet(int x, int y, float z) {
-        if (z < buffer[x][y]) {
-            buffer[x][y] = z;
+        int i = y * width + x;
+        boolean fresh = generation[i] != currentGeneration;
+        float stored = fresh ? Float.POSITIVE_INFINITY : depth[i];
+        if (z < stored) {
+            depth[i] = z;
+            generation[i] = currentGeneration;
+            updateBlock((y >> BLOCK_SHIFT) * blocksX + (x >> BLOCK_SHIFT), fresh);
             return true;
         }
         return false;
     }
 
+    /**
+     * Верхняя оценка глубины блока (bx, by): ни один пиксель блока не дальше неё.
+     * +Infinity, если в блоке ещё есть незаписанные пиксели.
+     */
+    public float getBlockMaxDepth(int bx, int by) {
+        int b = by * blocksX + bx;
+        return blockGeneration[b] == currentGeneration ? blockMax[b] : Float.POSITIVE_INFINITY;
+    }
+
+    private void updateBlock(int b, boolean freshPixel) {
+        if (blockGeneration[b] != currentGeneration) {
+            blockGeneration[b] = currentGeneration;
+            blockMax[b] = Float.POSITIVE_INFINITY;
+            blockCovered[b] = 0;
+            blockWrites[b] = 0;
+        }
+        if (freshPixel) {
+            if (++blockCovered[b] == blockPixelCount(b)) {
+                blockMax[b] = computeBlockMax(b);
+            }
+        } else if (blockMax[b] != Float.POSITIVE_INFINITY && ++blockWrites[b] >= BLOCK_SIZE * BLOCK_SIZE) {
+            blockMax[b] = computeBlockMax(b);
+            blockWrites[b] = 0;
+        }
+    }
+
+    /** Число пикселей блока (у правого и нижнего края блоки бывают неполными) */
+    private int blockPixelCount(int b) {
+        int x0 = (b % blocksX) << BLOCK_SHIFT;
+        int y0 = (b / blocksX) << BLOCK_SHIFT;
+        return Math.min(BLOCK_SIZE, width - x0) * Math.min(BLOCK_SIZE, height - y0);
+    }
+
+    /** Самый дальний пиксель полностью записанного блока */
+    private float computeBlockMax(int b) {
+        int x0 = (b % blocksX) << BLOCK_SHIFT;
+        int y0 = (b / blocksX) << BLOCK_SHIFT;
+        int x1 = Math.min(width, x0 + BLOCK_SIZE);
+        int y1 = Math.min(height, y0 + BLOCK_SIZE);
+
+        float max = Float.NEGATIVE_INFINITY;
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int x = x0; x < x1; x++) {
+                max = Math.max(max, depth[row + x]);
+            }
+        }
+        return max;
+    }
+
+    /** Текущая глубина пикселя (+Infinity, если в этом кадре в него ничего не писали) */
+    public float get(int x, int y) {
+        int i = y * width + x;
+        return generation[i] == currentGeneration ? depth[i] : Float.POSITIVE_INFINITY;
+    }
+
     public int getWidth() {
-        return buffer.length;
+        return width;
     }
 
     public int getHeight() {
-        return buffer[0].length;
+        return height;
     }
 }
@@ -2,9 +2,15 @@ package com.cgvsu.render_engine.transform;
 
 import com.cgvsu.utils.math.Vector3f;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Представляет трансформацию модели:
  * масштабирование, вращение и перемещение.
+ * <p>
+ * Версия ({@link #getVersion()}) уникальна среди всех трансформаций и копируется вместе
+ * с ними. Поля открыты, поэтому после их прямого изменения у уже показанной
+ * трансформации нужно вызвать {@link #markChanged()}.
  */
 public class Transform {
 
@@ -17,6 +23,35 @@ public class Transform {
     // --- Перемещение ---
     public float translateX = 0, translateY = 0, translateZ = 0;
 
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private long version = VERSIONS.incrementAndGet();
+
+    public Transform() {
+    }
+
+    /** Копия трансформации (снимок для потока рендеринга) */
+    public Transform(Transform other) {
+        scaleX = other.scaleX;
+        scaleY = other.scaleY;
+        scaleZ = other.scaleZ;
+        rotateX = other.rotateX;
+        rotateY = other.rotateY;
+        rotateZ = other.rotateZ;
+        translateX = other.translateX;
+        translateY = other.translateY;
+        translateZ = other.translateZ;
+        version = other.version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /** Отмечает прямое изменение полей */
+    public void markChanged() {
+        version = VERSIONS.incrementAndGet();
+    }
+
     /**
      * Применяет вращение к вектору.
      * @param v исходный вектор
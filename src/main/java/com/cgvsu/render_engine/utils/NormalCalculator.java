@@ -1,67 +1,75 @@
 package com.cgvsu.render_engine.utils;
 
+import com.cgvsu.model.Mesh;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
-import com.cgvsu.utils.math.Vector3f;
-
-import java.util.ArrayList;
-import java.util.List;
 
 public class NormalCalculator {
 
     /**
      * Вычисляет нормали для всех треугольников и вершин модели.
      * Нормали вершин усредняются по полигонам, которые их используют.
+     * <p>
+     * Работает прямо с массивами сетки: нормаль полигона берётся по первым трём
+     * вершинам, вырожденные полигоны (нулевая площадь) в среднее не входят,
+     * у вершины без вкладов нормаль нулевая.
      *
      * @param model модель, для которой нужно рассчитать нормали
      */
     public static void calculateNormals(Model model) {
-        List<Vector3f> vertices = model.getVertices();
-        List<Polygon> polygons = model.getPolygons();
-
-        // Инициализация нормалей вершин нулями
-        List<Vector3f> vertexNormals = new ArrayList<>();
-        for (int i = 0; i < vertices.size(); i++) {
-            vertexNormals.add(new Vector3f(0, 0, 0));
-        }
+        Mesh mesh = model.getMesh();
+        float[] positions = mesh.getPositions();
+        int[] offsets = mesh.getVertexOffsets();
+        int[] indices = mesh.getVertexIndices();
+        int vertexCount = mesh.getVertexCount();
 
-        // Счётчик вкладов в нормаль каждой вершины
-        List<Integer> counts = new ArrayList<>();
-        for (int i = 0; i < vertices.size(); i++) counts.add(0);
+        // Суммы нормалей полигонов по вершинам
+        float[] normals = new float[3 * vertexCount];
 
-        // Опционально: можно хранить нормали полигонов (если понадобятся)
-        List<Vector3f> polygonNormals = new ArrayList<>();
+        for (int p = 0; p < mesh.getPolygonCount(); p++) {
+            int first = offsets[p];
+            int last = offsets[p + 1];
+            if (last - first < 3) continue; // пропускаем некорректные полигоны
 
-        for (Polygon polygon : polygons) {
-            List<Integer> inds = polygon.getVertexIndices();
-            if (inds.size() < 3) continue; // пропускаем некорректные полигоны
+            int i0 = 3 * indices[first];
+            int i1 = 3 * indices[first + 1];
+            int i2 = 3 * indices[first + 2];
 
-            // Вершины полигона
-            Vector3f v0 = vertices.get(inds.get(0));
-            Vector3f v1 = vertices.get(inds.get(1));
-            Vector3f v2 = vertices.get(inds.get(2));
+            // Нормаль полигона через векторное произведение рёбер
+            float e1x = positions[i1] - positions[i0];
+            float e1y = positions[i1 + 1] - positions[i0 + 1];
+            float e1z = positions[i1 + 2] - positions[i0 + 2];
+            float e2x = positions[i2] - positions[i0];
+            float e2y = positions[i2 + 1] - positions[i0 + 1];
+            float e2z = positions[i2 + 2] - positions[i0 + 2];
+            float nx = e1y * e2z - e1z * e2y;
+            float ny = e1z * e2x - e1x * e2z;
+            float nz = e1x * e2y - e1y * e2x;
 
-            // Вычисляем нормаль полигона через векторное произведение
-            Vector3f edge1 = v1.subtract(v0);
-            Vector3f edge2 = v2.subtract(v0);
-            Vector3f normal = edge1.cross(edge2).normalize();
-
-            polygonNormals.add(normal);
+            float len = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (len < 1e-12f) continue;
+            nx /= len;
+            ny /= len;
+            nz /= len;
 
             // Добавляем вклад полигона ко всем вершинам
-            for (int idx : inds) {
-                vertexNormals.set(idx, vertexNormals.get(idx).add(normal));
-                counts.set(idx, counts.get(idx) + 1);
+            for (int i = first; i < last; i++) {
+                int at = 3 * indices[i];
+                normals[at] += nx;
+                normals[at + 1] += ny;
+                normals[at + 2] += nz;
             }
         }
 
-        // Усредняем нормали вершин и нормализуем
-        for (int i = 0; i < vertexNormals.size(); i++) {
-            if (counts.get(i) > 0) {
-                vertexNormals.set(i, vertexNormals.get(i).divide((float) counts.get(i)).normalize());
-            }
+        // Нормализуем суммы (направление среднего совпадает с направлением суммы)
+        for (int at = 0; at < normals.length; at += 3) {
+            float len = (float) Math.sqrt(normals[at] * normals[at]
+                    + normals[at + 1] * normals[at + 1] + normals[at + 2] * normals[at + 2]);
+            if (len < 1e-12f) continue;
+            normals[at] /= len;
+            normals[at + 1] /= len;
+            normals[at + 2] /= len;
         }
 
-        model.setNormals(vertexNormals);
+        mesh.setNormals(normals, vertexCount);
     }
 }
@@ -0,0 +1,223 @@
+package com.cgvsu.render_engine.utils;
+
+import java.util.Arrays;
+
+/**
+ * Отсечение полигонов в однородных координатах (алгоритм Сазерленда — Ходжмена)
+ * до перспективного деления.
+ * <p>
+ * Ближняя плоскость отсекается всегда: иначе вершины за камерой дают после деления
+ * на w огромные или перевёрнутые экранные координаты. Дальняя и боковые плоскости
+ * отсекаются по желанию, причём боковые — с запасом (guard band): полигоны, выходящие
+ * за экран не дальше чем на GUARD_BAND, не режутся, их обрежет ограничивающий
+ * прямоугольник растеризатора.
+ * <p>
+ * Новые вершины дописываются в {@link ProjectedVertices}, результат — индексы
+ * вершин и UV углов — доступен через {@link #getIndices()} и {@link #getUv()}.
+ */
+public class PolygonClipper {
+
+    /** Границы guard band в NDC: |x|, |y| <= GUARD_BAND * w */
+    public static final float GUARD_BAND = 2.0f;
+
+    private static final int PLANE_NEAR = 0;
+    private static final int PLANE_FAR = 1;
+    private static final int PLANE_LEFT = 2;
+    private static final int PLANE_RIGHT = 3;
+    private static final int PLANE_BOTTOM = 4;
+    private static final int PLANE_TOP = 5;
+
+    // два буфера, между которыми полигон перекладывается на каждой плоскости
+    private int[] indices = new int[16];
+    private float[] uv = new float[32];
+    private int[] spareIndices = new int[16];
+    private float[] spareUv = new float[32];
+
+    /**
+     * Нужно ли вообще отсекать полигон с данным объединением кодов вершин.
+     *
+     * @param outcodeOr побитовое ИЛИ кодов {@link ProjectedVertices#outcode} всех вершин
+     * @param allPlanes отсекать также по дальней и боковым плоскостям
+     */
+    public static boolean needsClipping(int outcodeOr, boolean allPlanes) {
+        return allPlanes ? outcodeOr != 0 : (outcodeOr & ProjectedVertices.OUT_NEAR) != 0;
+    }
+
+    /**
+     * Отсекает полигон.
+     *
+     * @param vertices     буфер вершин; новые вершины дописываются в конец
+     * @param polyIndices  индексы вершин полигона
+     * @param polyUv       UV углов полигона (по 2 на угол)
+     * @param count        число углов
+     * @param allPlanes    отсекать также по дальней и боковым плоскостям (с guard band)
+     * @param width        ширина экрана
+     * @param height       высота экрана
+     * @return число углов после отсечения (меньше 3 — полигон не виден)
+     */
+    public int clip(ProjectedVertices vertices,
+                    int[] polyIndices, float[] polyUv, int count,
+                    boolean allPlanes,
+                    int width, int height) {
+        ensureCapacity(count + 6);
+        System.arraycopy(polyIndices, 0, indices, 0, count);
+        System.arraycopy(polyUv, 0, uv, 0, 2 * count);
+
+        float halfW = 0.5f * width;
+        float halfH = 0.5f * height;
+
+        int planes = allPlanes ? 6 : 1;
+        for (int plane = 0; plane < planes && count >= 3; plane++) {
+            count = clipPlane(vertices, plane, count, halfW, halfH);
+        }
+        return count;
+    }
+
+    /**
+     * Отсекает отрезок ab всеми плоскостями (боковыми — с guard band) по Лиангу — Барски
+     * и записывает экранные концы (x0, y0, z0, x1, y1, z1) в out.
+     * Для линий боковые плоскости режутся всегда: у них нет ограничивающего прямоугольника.
+     *
+     * @return false, если отрезок целиком невидим
+     */
+    public static boolean clipLine(ProjectedVertices vertices, int a, int b,
+                                   int width, int height, float[] out) {
+        float t0 = 0, t1 = 1;
+        for (int plane = 0; plane < 6; plane++) {
+            float da = distance(vertices, a, plane);
+            float db = distance(vertices, b, plane);
+            if (da < 0 && db < 0) return false;
+            if (da < 0) {
+                t0 = Math.max(t0, da / (da - db));
+            } else if (db < 0) {
+                t1 = Math.min(t1, da / (da - db));
+            }
+        }
+        if (t0 > t1) return false;
+
+        linePoint(vertices, a, b, t0, width, height, out, 0);
+        linePoint(vertices, a, b, t1, width, height, out, 3);
+        return true;
+    }
+
+    private static void linePoint(ProjectedVertices v, int a, int b, float t,
+                                  int width, int height, float[] out, int offset) {
+        int end = t == 0 ? a : t == 1 ? b : -1;
+        if (end >= 0 && v.valid[end]) {
+            out[offset] = v.screenX[end];
+            out[offset + 1] = v.screenY[end];
+            out[offset + 2] = v.depth[end];
+            return;
+        }
+        float x = v.clipX[a] + (v.clipX[b] - v.clipX[a]) * t;
+        float y = v.clipY[a] + (v.clipY[b] - v.clipY[a]) * t;
+        float z = v.clipZ[a] + (v.clipZ[b] - v.clipZ[a]) * t;
+        float w = v.clipW[a] + (v.clipW[b] - v.clipW[a]) * t;
+        out[offset] = (x / w + 1.0f) * 0.5f * width;
+        out[offset + 1] = (1.0f - y / w) * 0.5f * height;
+        out[offset + 2] = z / w;
+    }
+
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public float[] getUv() {
+        return uv;
+    }
+
+    /** Расстояние со знаком до плоскости; неотрицательно внутри */
+    private static float distance(ProjectedVertices v, int i, int plane) {
+        float w = v.clipW[i];
+        switch (plane) {
+            case PLANE_NEAR:
+                return v.clipZ[i] + w;
+            case PLANE_FAR:
+                return w - v.clipZ[i];
+            case PLANE_LEFT:
+                return v.clipX[i] + GUARD_BAND * w;
+            case PLANE_RIGHT:
+                return GUARD_BAND * w - v.clipX[i];
+            case PLANE_BOTTOM:
+                return v.clipY[i] + GUARD_BAND * w;
+            default:
+                return GUARD_BAND * w - v.clipY[i];
+        }
+    }
+
+    private int clipPlane(ProjectedVertices vertices, int plane, int count, float halfW, float halfH) {
+        // полигон целиком внутри — ничего не делаем
+        boolean inside = true;
+        for (int i = 0; i < count && inside; i++) {
+            inside = distance(vertices, indices[i], plane) >= 0;
+        }
+        if (inside) return count;
+
+        ensureCapacity(count + 1);
+        int[] outIndices = spareIndices;
+        float[] outUv = spareUv;
+        int out = 0;
+
+        int prev = count - 1;
+        float dPrev = distance(vertices, indices[prev], plane);
+        for (int cur = 0; cur < count; cur++) {
+            float dCur = distance(vertices, indices[cur], plane);
+
+            if ((dPrev >= 0) != (dCur >= 0)) {
+                // ребро пересекает плоскость — новая вершина в точке пересечения
+                float t = dPrev / (dPrev - dCur);
+                outIndices[out] = interpolate(vertices, indices[prev], indices[cur], t, halfW, halfH);
+                outUv[2 * out] = uv[2 * prev] + (uv[2 * cur] - uv[2 * prev]) * t;
+                outUv[2 * out + 1] = uv[2 * prev + 1] + (uv[2 * cur + 1] - uv[2 * prev + 1]) * t;
+                out++;
+            }
+            if (dCur >= 0) {
+                outIndices[out] = indices[cur];
+                outUv[2 * out] = uv[2 * cur];
+                outUv[2 * out + 1] = uv[2 * cur + 1];
+                out++;
+            }
+
+            prev = cur;
+            dPrev = dCur;
+        }
+
+        spareIndices = indices;
+        spareUv = uv;
+        indices = outIndices;
+        uv = outUv;
+        return out;
+    }
+
+    /** Новая вершина между a и b: все атрибуты линейны в пространстве отсечения */
+    private static int interpolate(ProjectedVertices v, int a, int b, float t, float halfW, float halfH) {
+        int i = v.append();
+        v.clipX[i] = v.clipX[a] + (v.clipX[b] - v.clipX[a]) * t;
+        v.clipY[i] = v.clipY[a] + (v.clipY[b] - v.clipY[a]) * t;
+        v.clipZ[i] = v.clipZ[a] + (v.clipZ[b] - v.clipZ[a]) * t;
+        v.clipW[i] = v.clipW[a] + (v.clipW[b] - v.clipW[a]) * t;
+        v.posX[i] = v.posX[a] + (v.posX[b] - v.posX[a]) * t;
+        v.posY[i] = v.posY[a] + (v.posY[b] - v.posY[a]) * t;
+        v.posZ[i] = v.posZ[a] + (v.posZ[b] - v.posZ[a]) * t;
+        v.normalX[i] = v.normalX[a] + (v.normalX[b] - v.normalX[a]) * t;
+        v.normalY[i] = v.normalY[a] + (v.normalY[b] - v.normalY[a]) * t;
+        v.normalZ[i] = v.normalZ[a] + (v.normalZ[b] - v.normalZ[a]) * t;
+        v.project(i, halfW, halfH);
+        return i;
+    }
+
+    /** Каждая плоскость добавляет не больше одной вершины */
+    private void ensureCapacity(int count) {
+        if (indices.length < count) {
+            int capacity = Math.max(count, indices.length * 2);
+            indices = Arrays.copyOf(indices, capacity);
+            uv = Arrays.copyOf(uv, 2 * capacity);
+            spareIndices = new int[capacity];
+            spareUv = new float[2 * capacity];
+        }
+        if (spareIndices.length < indices.length) {
+            spareIndices = new int[indices.length];
+            spareUv = new float[2 * indices.length];
+        }
+    }
+}
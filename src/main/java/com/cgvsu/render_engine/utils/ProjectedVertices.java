@@ -0,0 +1,146 @@
+package com.cgvsu.render_engine.utils;
+
+import java.util.Arrays;
+
+/**
+ * Вершины модели после преобразования, хранящиеся в виде структуры массивов.
+ * <p>
+ * Каждая вершина модели проецируется ровно один раз за кадр; треугольники
+ * ссылаются на неё по индексу. Массивы переиспользуются между кадрами
+ * и растут только при увеличении числа вершин. Вершины, созданные при отсечении
+ * полигонов, дописываются в конец через {@link #append()} и живут до следующего кадра.
+ */
+public class ProjectedVertices {
+
+    private int count;
+
+    /** Координаты в пространстве отсечения (до деления на w) */
+    public float[] clipX = new float[0];
+    public float[] clipY = new float[0];
+    public float[] clipZ = new float[0];
+    public float[] clipW = new float[0];
+
+    /** Экранные координаты, глубина NDC и 1/w */
+    public float[] screenX = new float[0];
+    public float[] screenY = new float[0];
+    public float[] depth = new float[0];
+    public float[] invW = new float[0];
+
+    /** Позиция вершины (в координатах модели, как использует освещение) */
+    public float[] posX = new float[0];
+    public float[] posY = new float[0];
+    public float[] posZ = new float[0];
+
+    /** Нормированная нормаль вершины */
+    public float[] normalX = new float[0];
+    public float[] normalY = new float[0];
+    public float[] normalZ = new float[0];
+
+    /** false, если w вершины близко к нулю и её нельзя спроецировать */
+    public boolean[] valid = new boolean[0];
+
+    /** Биты плоскостей отсечения, снаружи которых лежит вершина (OUT_LEFT ... OUT_FAR) */
+    public byte[] outcode = new byte[0];
+
+    public static final int OUT_LEFT = 1;
+    public static final int OUT_RIGHT = 1 << 1;
+    public static final int OUT_BOTTOM = 1 << 2;
+    public static final int OUT_TOP = 1 << 3;
+    public static final int OUT_NEAR = 1 << 4;
+    public static final int OUT_FAR = 1 << 5;
+
+    /** Код отсечения точки в однородных координатах (-w <= x, y, z <= w) */
+    public static int computeOutcode(float x, float y, float z, float w) {
+        int code = 0;
+        if (x < -w) code |= OUT_LEFT;
+        if (x > w) code |= OUT_RIGHT;
+        if (y < -w) code |= OUT_BOTTOM;
+        if (y > w) code |= OUT_TOP;
+        if (z < -w) code |= OUT_NEAR;
+        if (z > w) code |= OUT_FAR;
+        return code;
+    }
+
+    /** Устанавливает число вершин, при необходимости увеличивая массивы (содержимое не сохраняется) */
+    public void reset(int count) {
+        if (screenX.length < count) {
+            allocate(Math.max(count, screenX.length + (screenX.length >> 1)));
+        }
+        this.count = count;
+    }
+
+    /**
+     * Добавляет вершину в конец буфера с сохранением существующих.
+     *
+     * @return индекс новой вершины
+     */
+    public int append() {
+        if (count == screenX.length) {
+            int capacity = Math.max(16, count + (count >> 1));
+            clipX = Arrays.copyOf(clipX, capacity);
+            clipY = Arrays.copyOf(clipY, capacity);
+            clipZ = Arrays.copyOf(clipZ, capacity);
+            clipW = Arrays.copyOf(clipW, capacity);
+            screenX = Arrays.copyOf(screenX, capacity);
+            screenY = Arrays.copyOf(screenY, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            invW = Arrays.copyOf(invW, capacity);
+            posX = Arrays.copyOf(posX, capacity);
+            posY = Arrays.copyOf(posY, capacity);
+            posZ = Arrays.copyOf(posZ, capacity);
+            normalX = Arrays.copyOf(normalX, capacity);
+            normalY = Arrays.copyOf(normalY, capacity);
+            normalZ = Arrays.copyOf(normalZ, capacity);
+            valid = Arrays.copyOf(valid, capacity);
+            outcode = Arrays.copyOf(outcode, capacity);
+        }
+        return count++;
+    }
+
+    /**
+     * Перспективное деление и перевод в экранные координаты по уже записанным
+     * координатам отсечения вершины i.
+     */
+    public void project(int i, float halfWidth, float halfHeight) {
+        float x = clipX[i], y = clipY[i], z = clipZ[i], w = clipW[i];
+        int code = computeOutcode(x, y, z, w);
+
+        // Проверка на деление на ноль (W близко к нулю)
+        if (Math.abs(w) < 1e-6f) {
+            valid[i] = false;
+            outcode[i] = (byte) (code | OUT_NEAR);
+            return;
+        }
+
+        float iw = 1.0f / w;
+        valid[i] = true;
+        outcode[i] = (byte) code;
+        invW[i] = iw;
+        screenX[i] = (x * iw + 1.0f) * halfWidth;
+        screenY[i] = (1.0f - y * iw) * halfHeight;
+        depth[i] = z * iw;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private void allocate(int capacity) {
+        clipX = new float[capacity];
+        clipY = new float[capacity];
+        clipZ = new float[capacity];
+        clipW = new float[capacity];
+        screenX = new float[capacity];
+        screenY = new float[capacity];
+        depth = new float[capacity];
+        invW = new float[capacity];
+        posX = new float[capacity];
+        posY = new float[capacity];
+        posZ = new float[capacity];
+        normalX = new float[capacity];
+        normalY = new float[capacity];
+        normalZ = new float[capacity];
+        valid = new boolean[capacity];
+        outcode = new byte[capacity];
+    }
+}
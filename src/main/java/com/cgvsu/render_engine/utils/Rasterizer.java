@@ -1,12 +1,9 @@
 package com.cgvsu.render_engine.utils;
 
+import com.cgvsu.render_engine.rendering.FrameBuffer;
 import com.cgvsu.render_engine.rendering.ZBuffer;
 import com.cgvsu.utils.math.Vector3f;
 import javafx.scene.image.Image;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.paint.Color;
-
-import java.util.List;
 
 /**
  * Простейший растеризатор для треугольников.
@@ -14,147 +11,341 @@ import java.util.List;
  * - Z-буфер
  * - текстуры (с интерполяцией)
  * - простое освещение
+ * <p>
+ * Вывод идёт в ARGB-массив {@link FrameBuffer}: все атрибуты интерполируются
+ * в примитивных переменных, и на пиксель не создаётся ни одного объекта.
  */
 public class Rasterizer {
 
     private static final float K = 0.7f;               // коэффициент диффузного освещения
     private static final float AMBIENT = 1.0f - K;     // коэффициент фонового освещения
 
-
     /**
-     * Разбивает многоугольник на треугольники и растеризует каждый
+     * Растеризует треугольник из общего буфера спроецированных вершин в ARGB-буфер,
+     * не выходя за прямоугольник отсечения. Позиции, нормали и UV интерполируются
+     * в локальных float, цвет упаковывается в int — на пиксель не создаётся ни одного объекта.
+     * <p>
+     * Прямоугольник отсечения используется тайловым растеризатором: каждый тайл пишет
+     * только в свою область буферов цвета и глубины, поэтому тайлы можно обрабатывать
+     * параллельно без блокировок.
      *
-     * @param vertices вершины полигона
-     * @param zBuffer  буфер глубины
-     * @param pw       объект для записи пикселей
-     * @param texture  текстура (может быть null)
-     * @param lightPos позиция источника света
+     * @param pv       спроецированные вершины кадра
+     * @param i0       индекс первой вершины
+     * @param i1       индекс второй вершины
+     * @param i2       индекс третьей вершины
+     * @param uv       текстурные координаты углов треугольника (u0, v0, u1, v1, u2, v2)
+     * @param uvOffset смещение координат треугольника в массиве uv
+     * @param shading  параметры закраски, подготовленные один раз на кадр
+     * @param clipMinX левая граница области (включительно)
+     * @param clipMinY верхняя граница области (включительно)
+     * @param clipMaxX правая граница области (включительно)
+     * @param clipMaxY нижняя граница области (включительно)
      */
-    public static void triangulateAndRasterize(
-            List<Vertex> vertices,
+    public static void rasterizeTriangle(
+            ProjectedVertices pv,
+            int i0, int i1, int i2,
+            float[] uv, int uvOffset,
             ZBuffer zBuffer,
-            PixelWriter pw,
-            Image texture,
-            Vector3f lightPos,
-            javafx.scene.paint.Color baseColor, // базовый цвет
-            boolean lightingEnabled            // флаг освещения
+            FrameBuffer frame,
+            Shading shading,
+            int clipMinX, int clipMinY, int clipMaxX, int clipMaxY
     ) {
-        if (vertices.size() < 3) return;
-
-        Vertex v0 = vertices.get(0);
-        for (int i = 1; i < vertices.size() - 1; i++) {
-            rasterizeTriangle(
-                    v0,
-                    vertices.get(i),
-                    vertices.get(i + 1),
-                    zBuffer,
-                    pw,
-                    texture,
-                    lightPos,
-                    baseColor,
-                    lightingEnabled
-            );
-        }
-    }
+        float x0 = pv.screenX[i0], y0 = pv.screenY[i0];
+        float x1 = pv.screenX[i1], y1 = pv.screenY[i1];
+        float x2 = pv.screenX[i2], y2 = pv.screenY[i2];
+
+        int maxXLimit = Math.min(clipMaxX, Math.min(zBuffer.getWidth(), frame.getWidth()) - 1);
+        int maxYLimit = Math.min(clipMaxY, Math.min(zBuffer.getHeight(), frame.getHeight()) - 1);
 
-    /**
-     * Растеризация треугольника с использованием barycentric координат
-     */
-    private static void rasterizeTriangle(
-            Vertex v0,
-            Vertex v1,
-            Vertex v2,
-            ZBuffer zBuffer,
-            PixelWriter pw,
-            Image tex,
-            Vector3f lightPos,
-            javafx.scene.paint.Color modelBaseColor,  // базовый цвет модели
-            boolean lightingEnabled                   // включено ли освещение
-    ) {
         // ограничивающий прямоугольник
-        int minX = (int) Math.max(0, Math.floor(Math.min(v0.x, Math.min(v1.x, v2.x))));
-        int maxX = (int) Math.min(zBuffer.getWidth() - 1, Math.ceil(Math.max(v0.x, Math.max(v1.x, v2.x))));
-        int minY = (int) Math.max(0, Math.floor(Math.min(v0.y, Math.min(v1.y, v2.y))));
-        int maxY = (int) Math.min(zBuffer.getHeight() - 1, Math.ceil(Math.max(v0.y, Math.max(v1.y, v2.y))));
+        int minX = (int) Math.max(clipMinX, Math.floor(Math.min(x0, Math.min(x1, x2))));
+        int maxX = (int) Math.min(maxXLimit, Math.ceil(Math.max(x0, Math.max(x1, x2))));
+        int minY = (int) Math.max(clipMinY, Math.floor(Math.min(y0, Math.min(y1, y2))));
+        int maxY = (int) Math.min(maxYLimit, Math.ceil(Math.max(y0, Math.max(y1, y2))));
+        if (minX > maxX || minY > maxY) return;
 
-        float area = edge(v0.x, v0.y, v1.x, v1.y, v2.x, v2.y);
+        float area = edge(x0, y0, x1, y1, x2, y2);
         if (Math.abs(area) < 1e-6f) return; // вырожденный треугольник
+        float invArea = 1.0f / area;
+
+        // атрибуты вершин — в примитивные переменные
+        float z0 = pv.depth[i0], z1 = pv.depth[i1], z2 = pv.depth[i2];
+        float q0 = pv.invW[i0], q1 = pv.invW[i1], q2 = pv.invW[i2];
+
+        float p0x = pv.posX[i0], p0y = pv.posY[i0], p0z = pv.posZ[i0];
+        float p1x = pv.posX[i1], p1y = pv.posY[i1], p1z = pv.posZ[i1];
+        float p2x = pv.posX[i2], p2y = pv.posY[i2], p2z = pv.posZ[i2];
+
+        float n0x = pv.normalX[i0], n0y = pv.normalY[i0], n0z = pv.normalZ[i0];
+        float n1x = pv.normalX[i1], n1y = pv.normalY[i1], n1z = pv.normalZ[i1];
+        float n2x = pv.normalX[i2], n2y = pv.normalY[i2], n2z = pv.normalZ[i2];
+
+        // u/w и v/w для перспективно-корректной интерполяции
+        float uw0 = uv[uvOffset] * q0, uw1 = uv[uvOffset + 2] * q1, uw2 = uv[uvOffset + 4] * q2;
+        float vw0 = uv[uvOffset + 1] * q0, vw1 = uv[uvOffset + 3] * q1, vw2 = uv[uvOffset + 5] * q2;
+
+        // мип-уровень выбирается один раз на треугольник по отношению площадей в UV и на экране
+        int[] tex = null, texNext = null;
+        int texWidth = 0, texHeight = 0, nextWidth = 0, nextHeight = 0;
+        float lodBlend = 0;
+        boolean bilinear = shading.bilinear || shading.trilinear;
+        TextureSampler sampler = shading.texture;
+        if (sampler != null) {
+            float u0 = uv[uvOffset], v0 = uv[uvOffset + 1];
+            float uvArea = (uv[uvOffset + 2] - u0) * (uv[uvOffset + 5] - v0)
+                    - (uv[uvOffset + 4] - u0) * (uv[uvOffset + 3] - v0);
+            float lod = sampler.computeLod(uvArea, area);
+
+            int level;
+            if (shading.trilinear) {
+                level = (int) lod;
+                if (level + 1 < sampler.getLevelCount()) {
+                    lodBlend = lod - level;
+                    texNext = sampler.getPixels(level + 1);
+                    nextWidth = sampler.getWidth(level + 1);
+                    nextHeight = sampler.getHeight(level + 1);
+                }
+            } else {
+                level = (int) (lod + 0.5f);
+            }
+            tex = sampler.getPixels(level);
+            texWidth = sampler.getWidth(level);
+            texHeight = sampler.getHeight(level);
+        }
+        int baseArgb = shading.baseArgb;
+        boolean lit = shading.lit;
+        float lx = shading.lx, ly = shading.ly, lz = shading.lz;
+
+        int[] pixels = frame.getPixels();
+        int stride = frame.getWidth();
+        boolean premultiply = frame.isPremultiplied();
 
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
+        // ближайшая точка треугольника: глубина интерполируется линейно по экрану
+        // (небольшой запас покрывает погрешность барицентрической интерполяции)
+        float zMin = Math.min(z0, Math.min(z1, z2));
+        zMin -= 1e-6f * (1.0f + Math.abs(zMin));
 
-                float px = x + 0.5f;
-                float py = y + 0.5f;
+        // обход по блокам иерархического Z: блок, в котором все пиксели ближе zMin, пропускается целиком
+        int blockMinX = minX >> ZBuffer.BLOCK_SHIFT, blockMaxX = maxX >> ZBuffer.BLOCK_SHIFT;
+        int blockMinY = minY >> ZBuffer.BLOCK_SHIFT, blockMaxY = maxY >> ZBuffer.BLOCK_SHIFT;
 
-                float w0 = edge(v1.x, v1.y, v2.x, v2.y, px, py) / area;
-                float w1 = edge(v2.x, v2.y, v0.x, v0.y, px, py) / area;
-                float w2 = edge(v0.x, v0.y, v1.x, v1.y, px, py) / area;
+        for (int by = blockMinY; by <= blockMaxY; by++) {
+            int y0b = Math.max(minY, by << ZBuffer.BLOCK_SHIFT);
+            int y1b = Math.min(maxY, (by << ZBuffer.BLOCK_SHIFT) + ZBuffer.BLOCK_SIZE - 1);
 
-                if (w0 < 0 || w1 < 0 || w2 < 0) continue;
+            for (int bx = blockMinX; bx <= blockMaxX; bx++) {
+                if (zMin >= zBuffer.getBlockMaxDepth(bx, by)) continue;
 
-                float z = w0 * v0.z + w1 * v1.z + w2 * v2.z;
-                if (!zBuffer.testAndSet(x, y, z)) continue;
+                int x0b = Math.max(minX, bx << ZBuffer.BLOCK_SHIFT);
+                int x1b = Math.min(maxX, (bx << ZBuffer.BLOCK_SHIFT) + ZBuffer.BLOCK_SIZE - 1);
 
-                Vector3f worldPos = v0.worldPos.multiply(w0)
-                        .add(v1.worldPos.multiply(w1))
-                        .add(v2.worldPos.multiply(w2));
+                for (int y = y0b; y <= y1b; y++) {
+                    float py = y + 0.5f;
+                    int row = y * stride;
 
-                Vector3f normal = v0.normal.multiply(w0)
-                        .add(v1.normal.multiply(w1))
-                        .add(v2.normal.multiply(w2))
-                        .normalize();
+                    for (int x = x0b; x <= x1b; x++) {
+                        float px = x + 0.5f;
 
-                Color finalColor;
+                        float w0 = edge(x1, y1, x2, y2, px, py) * invArea;
+                        float w1 = edge(x2, y2, x0, y0, px, py) * invArea;
+                        float w2 = edge(x0, y0, x1, y1, px, py) * invArea;
 
-                if (tex != null) {
-                    float invW = w0 * v0.invW + w1 * v1.invW + w2 * v2.invW;
-                    float u = (w0 * v0.u * v0.invW + w1 * v1.u * v1.invW + w2 * v2.u * v2.invW) / invW;
-                    float v = (w0 * v0.v * v0.invW + w1 * v1.v * v1.invW + w2 * v2.v * v2.invW) / invW;
+                        if (w0 < 0 || w1 < 0 || w2 < 0) continue;
 
-                    int tx = clamp((float) (u * (tex.getWidth() - 1)), 0, (int) tex.getWidth() - 1);
-                    int ty = clamp((float) ((1 - v) * (tex.getHeight() - 1)), 0, (int) tex.getHeight() - 1);
+                        float z = w0 * z0 + w1 * z1 + w2 * z2;
+                        if (!zBuffer.testAndSet(x, y, z)) continue;
 
-                    Color tc = tex.getPixelReader().getColor(tx, ty);
+                        int argb;
+                        if (tex != null) {
+                            float invW = w0 * q0 + w1 * q1 + w2 * q2;
+                            float u = (w0 * uw0 + w1 * uw1 + w2 * uw2) / invW;
+                            float v = (w0 * vw0 + w1 * vw1 + w2 * vw2) / invW;
 
-                    float intensity = lightingEnabled ? AMBIENT + K * Math.max(0, normal.dot(lightPos.subtract(worldPos).normalize())) : 1.0f;
+                            argb = bilinear
+                                    ? TextureSampler.sampleBilinear(tex, texWidth, texHeight, u, v)
+                                    : TextureSampler.sampleNearest(tex, texWidth, texHeight, u, v);
+                            if (lodBlend > 0) {
+                                argb = TextureSampler.lerpArgb(argb,
+                                        TextureSampler.sampleBilinear(texNext, nextWidth, nextHeight, u, v), lodBlend);
+                            }
+                        } else {
+                            argb = baseArgb;
+                        }
 
-                    finalColor = new Color(
-                            clamp01(tc.getRed() * intensity),
-                            clamp01(tc.getGreen() * intensity),
-                            clamp01(tc.getBlue() * intensity),
-                            tc.getOpacity()
-                    );
-                } else {
-                    float intensity = lightingEnabled ? AMBIENT + K * Math.max(0, normal.dot(lightPos.subtract(worldPos).normalize())) : 1.0f;
+                        if (lit) {
+                            float wx = w0 * p0x + w1 * p1x + w2 * p2x;
+                            float wy = w0 * p0y + w1 * p1y + w2 * p2y;
+                            float wz = w0 * p0z + w1 * p1z + w2 * p2z;
 
-                    finalColor = new Color(
-                            clamp01(modelBaseColor.getRed() * intensity),
-                            clamp01(modelBaseColor.getGreen() * intensity),
-                            clamp01(modelBaseColor.getBlue() * intensity),
-                            modelBaseColor.getOpacity()
-                    );
+                            float nx = w0 * n0x + w1 * n1x + w2 * n2x;
+                            float ny = w0 * n0y + w1 * n1y + w2 * n2y;
+                            float nz = w0 * n0z + w1 * n1z + w2 * n2z;
+
+                            argb = shade(argb, intensity(nx, ny, nz, lx - wx, ly - wy, lz - wz));
+                        }
+
+                        if (premultiply && argb >>> 24 != 0xFF) argb = premultiply(argb);
+                        pixels[row + x] = argb;
+                    }
                 }
+            }
+        }
+    }
+
+    /**
+     * Рисует отрезок в ARGB-буфер по алгоритму Брезенхэма с фиксированной точкой:
+     * по главной оси шаг ровно в пиксель, вторая координата копится в формате 16.16,
+     * глубина — линейным приращением. Пиксель закрашивается, если отрезок не дальше
+     * уже записанной глубины с учётом сдвига depthBias; сам отрезок глубину не пишет.
+     * <p>
+     * Концы должны быть уже отсечены (см. {@link PolygonClipper#clipLine}), чтобы
+     * координаты укладывались в 16.16.
+     *
+     * @param depthBias относительный сдвиг к камере: 1 - z уменьшается в (1 + depthBias) раз,
+     *                  что примерно соответствует доле расстояния до камеры
+     */
+    public static void rasterizeLine(float ax, float ay, float az,
+                                     float bx, float by, float bz,
+                                     ZBuffer zBuffer, FrameBuffer frame,
+                                     int argb, float depthBias) {
+        int width = Math.min(frame.getWidth(), zBuffer.getWidth());
+        int height = Math.min(frame.getHeight(), zBuffer.getHeight());
+
+        boolean steep = Math.abs(by - ay) > Math.abs(bx - ax);
+        float major0 = steep ? ay : ax, major1 = steep ? by : bx;
+        float minor0 = steep ? ax : ay, minor1 = steep ? bx : by;
+        float z0 = az, z1 = bz;
+        if (major0 > major1) {
+            float t = major0; major0 = major1; major1 = t;
+            t = minor0; minor0 = minor1; minor1 = t;
+            t = z0; z0 = z1; z1 = t;
+        }
 
-                pw.setColor(x, y, finalColor);
+        float length = major1 - major0;
+        float slope = length > 0 ? (minor1 - minor0) / length : 0;
+        float dz = length > 0 ? (z1 - z0) / length : 0;
+
+        // пиксели, центры которых лежат на отрезке по главной оси (короткий отрезок — хотя бы один)
+        int start = (int) Math.ceil(major0 - 0.5f);
+        int end = (int) Math.floor(major1 - 0.5f);
+        if (end < start) start = end = (int) Math.floor(0.5f * (major0 + major1));
+
+        int majorLimit = steep ? height : width;
+        int minorLimit = steep ? width : height;
+        start = Math.max(start, 0);
+        end = Math.min(end, majorLimit - 1);
+        if (start > end) return;
+
+        float offset = start + 0.5f - major0;
+        int minorFx = (int) ((minor0 + slope * offset) * 65536.0f);
+        int slopeFx = (int) (slope * 65536.0f);
+        float z = z0 + dz * offset;
+
+        int[] pixels = frame.getPixels();
+        int stride = frame.getWidth();
+        float keep = 1.0f + depthBias;
+        if (frame.isPremultiplied()) argb = premultiply(argb);
+
+        for (int major = start; major <= end; major++, minorFx += slopeFx, z += dz) {
+            int minor = minorFx >> 16;
+            if (minor < 0 || minor >= minorLimit) continue;
+
+            int x = steep ? minor : major;
+            int y = steep ? major : minor;
+            float biased = 1.0f - (1.0f - z) * keep;
+            if (biased < zBuffer.get(x, y)) {
+                pixels[y * stride + x] = argb;
             }
         }
     }
 
+    /**
+     * Интенсивность освещения по модели Ламберта для ненормированных векторов.
+     * Нулевая нормаль или совпадение точки с источником дают только фоновую составляющую.
+     */
+    private static float intensity(float nx, float ny, float nz, float dx, float dy, float dz) {
+        float nLen2 = nx * nx + ny * ny + nz * nz;
+        float dLen2 = dx * dx + dy * dy + dz * dz;
+        if (nLen2 < 1e-24f || dLen2 < 1e-24f) return AMBIENT;
 
-    // ================= HELPERS =================
+        float cos = (nx * dx + ny * dy + nz * dz) / (float) Math.sqrt(nLen2 * dLen2);
+        return AMBIENT + K * Math.max(0, cos);
+    }
 
-    /** Вспомогательная функция для barycentric координат */
-    private static float edge(float x0, float y0, float x1, float y1, float x2, float y2) {
-        return (x2 - x0) * (y1 - y0) - (y2 - y0) * (x1 - x0);
+    /** Умножает RGB-каналы упакованного цвета на интенсивность, альфа не меняется */
+    private static int shade(int argb, float intensity) {
+        int a = argb >>> 24;
+        int r = channel(((argb >> 16) & 0xFF) * intensity);
+        int g = channel(((argb >> 8) & 0xFF) * intensity);
+        int b = channel((argb & 0xFF) * intensity);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /** Умножает RGB-каналы на альфу (premultiplied ARGB) с округлением */
+    public static int premultiply(int argb) {
+        int a = argb >>> 24;
+        if (a == 0xFF) return argb;
+        int r = (((argb >> 16) & 0xFF) * a + 127) / 255;
+        int g = (((argb >> 8) & 0xFF) * a + 127) / 255;
+        int b = ((argb & 0xFF) * a + 127) / 255;
+        return (a << 24) | (r << 16) | (g << 8) | b;
     }
 
-    /** Ограничение int в диапазоне */
-    private static int clamp(float v, int min, int max) {
-        return (int) Math.max(min, Math.min(max, v));
+    /** Ограничение канала в [0,255] с округлением */
+    private static int channel(float v) {
+        int c = (int) (v + 0.5f);
+        return c < 0 ? 0 : Math.min(c, 255);
     }
 
-    /** Ограничение double в [0,1] */
-    private static double clamp01(double v) {
-        return Math.max(0.0, Math.min(1.0, v));
+    /** Упаковывает Color в ARGB int (округление как у PixelWriter.setColor) */
+    public static int toArgb(javafx.scene.paint.Color color) {
+        int a = (int) Math.round(color.getOpacity() * 255.0);
+        int r = (int) Math.round(color.getRed() * 255.0);
+        int g = (int) Math.round(color.getGreen() * 255.0);
+        int b = (int) Math.round(color.getBlue() * 255.0);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Параметры закраски, общие для всех треугольников кадра.
+     * Собираются один раз и только читаются из потоков растеризации.
+     */
+    public static final class Shading {
+        final TextureSampler texture;
+        final boolean bilinear;
+        final boolean trilinear;
+        final int baseArgb;
+        final boolean lit;
+        final float lx, ly, lz;
+
+        public Shading(Image texture, Vector3f lightPos,
+                       javafx.scene.paint.Color baseColor, boolean lightingEnabled) {
+            this(TextureSampler.of(texture), lightPos, baseColor, lightingEnabled, false, false);
+        }
+
+        /**
+         * @param texture   распакованная текстура с мип-уровнями (может быть null)
+         * @param bilinear  билинейная фильтрация вместо ближайшего текселя
+         * @param trilinear смешивание двух соседних мип-уровней (включает билинейную)
+         */
+        public Shading(TextureSampler texture, Vector3f lightPos,
+                       javafx.scene.paint.Color baseColor, boolean lightingEnabled,
+                       boolean bilinear, boolean trilinear) {
+            this.texture = texture;
+            this.bilinear = bilinear;
+            this.trilinear = trilinear;
+            this.baseArgb = toArgb(baseColor);
+            this.lit = lightingEnabled && lightPos != null;
+            this.lx = lit ? lightPos.getX() : 0;
+            this.ly = lit ? lightPos.getY() : 0;
+            this.lz = lit ? lightPos.getZ() : 0;
+        }
+    }
+
+    // ================= HELPERS =================
+
+    /** Вспомогательная функция для barycentric координат */
+    private static float edge(float x0, float y0, float x1, float y1, float x2, float y2) {
+        return (x2 - x0) * (y1 - y0) - (y2 - y0) * (x1 - x0);
     }
 }
@@ -0,0 +1,225 @@
+package com.cgvsu.render_engine.utils;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Текстура, один раз распакованная из {@link Image} в массив ARGB (построчно, y * width + x).
+ * <p>
+ * Выборка делается статическими функциями над примитивами, без {@link PixelReader}
+ * и без создания Color на пиксель. Сэмплеры кэшируются по объекту Image, так что
+ * повторная установка той же текстуры (например, копии модели) ничего не распаковывает.
+ * <p>
+ * Сразу после распаковки строится цепочка мип-уровней (каждый следующий вдвое меньше,
+ * усреднение блоков 2x2), строки уровня считаются параллельно. При сильном уменьшении
+ * растеризатор выбирает уровень по отношению площади треугольника в текселях к площади
+ * на экране и читает маленький уровень, который помещается в кэш.
+ * <p>
+ * Координаты текстуры: u слева направо, v снизу вверх, как в OBJ.
+ */
+public final class TextureSampler {
+
+    private static final Map<Image, TextureSampler> CACHE =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Уровни меньше этого числа текселей строятся в одном потоке */
+    private static final int PARALLEL_MIP_TEXELS = 128 * 128;
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+
+    // мип-уровни; нулевой — исходная текстура
+    private final int[][] levels;
+    private final int[] levelWidths;
+    private final int[] levelHeights;
+
+    private TextureSampler(int width, int height, int[] pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+
+        int count = 1;
+        for (int w = width, h = height; w > 1 || h > 1; w = Math.max(1, w / 2), h = Math.max(1, h / 2)) count++;
+
+        levels = new int[count][];
+        levelWidths = new int[count];
+        levelHeights = new int[count];
+        levels[0] = pixels;
+        levelWidths[0] = width;
+        levelHeights[0] = height;
+
+        for (int level = 1; level < count; level++) {
+            levelWidths[level] = Math.max(1, levelWidths[level - 1] / 2);
+            levelHeights[level] = Math.max(1, levelHeights[level - 1] / 2);
+            levels[level] = downsample(levels[level - 1], levelWidths[level - 1], levelHeights[level - 1],
+                    levelWidths[level], levelHeights[level]);
+        }
+    }
+
+    /**
+     * Сэмплер для изображения (из кэша или распакованный заново).
+     *
+     * @return null, если изображение пустое, ещё не загружено или не читается
+     */
+    public static TextureSampler of(Image image) {
+        if (image == null) return null;
+
+        TextureSampler cached = CACHE.get(image);
+        if (cached != null) return cached;
+
+        TextureSampler sampler = decode(image);
+        if (sampler != null) CACHE.put(image, sampler);
+        return sampler;
+    }
+
+    /** Сэмплер поверх готового ARGB-массива (массив не копируется) */
+    public static TextureSampler fromArgb(int width, int height, int[] pixels) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Неверный размер текстуры: " + width + "x" + height);
+        }
+        return new TextureSampler(width, height, pixels);
+    }
+
+    private static TextureSampler decode(Image image) {
+        PixelReader reader = image.getPixelReader();
+        int w = (int) image.getWidth();
+        int h = (int) image.getHeight();
+        if (reader == null || w <= 0 || h <= 0) return null;
+
+        int[] argb = new int[w * h];
+        reader.getPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), argb, 0, w);
+        return new TextureSampler(w, h, argb);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Распакованные пиксели; только для чтения */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    // ================= MIPMAPS =================
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    public int[] getPixels(int level) {
+        return levels[level];
+    }
+
+    public int getWidth(int level) {
+        return levelWidths[level];
+    }
+
+    public int getHeight(int level) {
+        return levelHeights[level];
+    }
+
+    /**
+     * Уровень детализации по производным UV, усреднённым по треугольнику:
+     * log2 от числа текселей нулевого уровня на один пиксель экрана по каждой оси.
+     *
+     * @param uvArea     удвоенная площадь треугольника в координатах UV
+     * @param screenArea удвоенная площадь треугольника на экране, в пикселях
+     * @return дробный уровень в диапазоне [0, getLevelCount() - 1]
+     */
+    public float computeLod(float uvArea, float screenArea) {
+        float texels = Math.abs(uvArea) * width * height;
+        float pixelsOnScreen = Math.abs(screenArea);
+        if (texels <= pixelsOnScreen) return 0;
+
+        float lod = pixelsOnScreen > 0
+                ? 0.5f * (float) (Math.log(texels / pixelsOnScreen) / Math.log(2))
+                : levels.length - 1;
+        return Math.min(lod, levels.length - 1);
+    }
+
+    /** Уменьшение вдвое усреднением блоков 2x2 (у нечётного края блок прижимается) */
+    private static int[] downsample(int[] src, int srcW, int srcH, int dstW, int dstH) {
+        int[] dst = new int[dstW * dstH];
+        IntStream rows = IntStream.range(0, dstH);
+        if (dstW * dstH >= PARALLEL_MIP_TEXELS) rows = rows.parallel();
+
+        rows.forEach(y -> {
+            int sy0 = Math.min(2 * y, srcH - 1) * srcW;
+            int sy1 = Math.min(2 * y + 1, srcH - 1) * srcW;
+            for (int x = 0; x < dstW; x++) {
+                int sx0 = Math.min(2 * x, srcW - 1);
+                int sx1 = Math.min(2 * x + 1, srcW - 1);
+                dst[y * dstW + x] = average(src[sy0 + sx0], src[sy0 + sx1], src[sy1 + sx0], src[sy1 + sx1]);
+            }
+        });
+        return dst;
+    }
+
+    private static int average(int c0, int c1, int c2, int c3) {
+        int a = ((c0 >>> 24) + (c1 >>> 24) + (c2 >>> 24) + (c3 >>> 24) + 2) >> 2;
+        int r = (((c0 >> 16) & 0xFF) + ((c1 >> 16) & 0xFF) + ((c2 >> 16) & 0xFF) + ((c3 >> 16) & 0xFF) + 2) >> 2;
+        int g = (((c0 >> 8) & 0xFF) + ((c1 >> 8) & 0xFF) + ((c2 >> 8) & 0xFF) + ((c3 >> 8) & 0xFF) + 2) >> 2;
+        int b = ((c0 & 0xFF) + (c1 & 0xFF) + (c2 & 0xFF) + (c3 & 0xFF) + 2) >> 2;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    // ================= SAMPLING =================
+
+    /** Ближайший тексель (координаты за пределами [0,1] прижимаются к краю) */
+    public static int sampleNearest(int[] pixels, int width, int height, float u, float v) {
+        int tx = clamp(u * (width - 1), width - 1);
+        int ty = clamp((1 - v) * (height - 1), height - 1);
+        return pixels[ty * width + tx];
+    }
+
+    /** Билинейная интерполяция четырёх соседних текселей по каждому каналу ARGB */
+    public static int sampleBilinear(int[] pixels, int width, int height, float u, float v) {
+        float x = Math.max(0, Math.min(width - 1, u * (width - 1)));
+        float y = Math.max(0, Math.min(height - 1, (1 - v) * (height - 1)));
+
+        int x0 = (int) x;
+        int y0 = (int) y;
+        int x1 = Math.min(x0 + 1, width - 1);
+        int y1 = Math.min(y0 + 1, height - 1);
+        float fx = x - x0;
+        float fy = y - y0;
+
+        int row0 = y0 * width;
+        int row1 = y1 * width;
+        return lerpArgb(
+                lerpArgb(pixels[row0 + x0], pixels[row0 + x1], fx),
+                lerpArgb(pixels[row1 + x0], pixels[row1 + x1], fx),
+                fy);
+    }
+
+    /** Покомпонентная линейная интерполяция двух ARGB-цветов */
+    public static int lerpArgb(int c0, int c1, float t) {
+        if (c0 == c1 || t <= 0) return c0;
+        if (t >= 1) return c1;
+
+        int a = lerpChannel(c0 >>> 24, c1 >>> 24, t);
+        int r = lerpChannel((c0 >> 16) & 0xFF, (c1 >> 16) & 0xFF, t);
+        int g = lerpChannel((c0 >> 8) & 0xFF, (c1 >> 8) & 0xFF, t);
+        int b = lerpChannel(c0 & 0xFF, c1 & 0xFF, t);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static int lerpChannel(int a, int b, float t) {
+        return (int) (a + (b - a) * t + 0.5f);
+    }
+
+    private static int clamp(float v, int max) {
+        return (int) Math.max(0, Math.min(max, v));
+    }
+}
@@ -1,10 +1,7 @@
 package com.cgvsu.render_engine.utils;
 
+import com.cgvsu.model.Mesh;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Триангуляция модели:
@@ -15,44 +12,55 @@ public class Triangulator {
 
     /**
      * Применяет триангуляцию ко всем полигонам модели.
+     * Новые полигоны собираются прямо в массивы сетки, без объектов Polygon.
      *
      * @param model Модель, полигоны которой нужно триангулировать
      */
     public static void triangulate(Model model) {
-        if (model == null || model.getPolygons() == null) return;
+        if (model == null) return;
+
+        Mesh mesh = model.getMesh();
+        int[] vertexOffsets = mesh.getVertexOffsets();
+        int[] vertexIndices = mesh.getVertexIndices();
+        int[] textureOffsets = mesh.getTextureOffsets();
+        int[] textureIndices = mesh.getTextureIndices();
 
-        ArrayList<Polygon> newPolygons = new ArrayList<>();
+        Mesh triangles = new Mesh();
+        int[] vertices = new int[3];
+        int[] textures = new int[3];
 
-        for (Polygon polygon : model.getPolygons()) {
-            List<Integer> vertices = polygon.getVertexIndices();
+        for (int p = 0; p < mesh.getPolygonCount(); p++) {
+            int first = vertexOffsets[p];
+            int size = vertexOffsets[p + 1] - first;
+            int firstTexture = textureOffsets[p];
+            int textureCount = textureOffsets[p + 1] - firstTexture;
 
-            if (vertices.size() <= 3) {
+            if (size <= 3) {
                 // Уже треугольник, добавляем как есть
-                newPolygons.add(polygon);
+                triangles.addPolygon(mesh, p);
                 continue;
             }
 
             // Fan triangulation: фиксируем вершину 0, создаем треугольники с каждой парой (i, i+1)
-            for (int i = 1; i < vertices.size() - 1; i++) {
-                Polygon.Builder builder = Polygon.builder()
-                        .addVertexIndex(vertices.get(0))
-                        .addVertexIndex(vertices.get(i))
-                        .addVertexIndex(vertices.get(i + 1));
+            for (int i = 1; i < size - 1; i++) {
+                vertices[0] = vertexIndices[first];
+                vertices[1] = vertexIndices[first + i];
+                vertices[2] = vertexIndices[first + i + 1];
 
                 // Копируем текстурные индексы, если они есть
-                List<Integer> texIndices = polygon.getTextureVertexIndices();
-                if (!texIndices.isEmpty()) {
-                    builder.addTextureVertexIndex(texIndices.get(0))
-                            .addTextureVertexIndex(texIndices.get(i))
-                            .addTextureVertexIndex(texIndices.get(i + 1));
+                boolean hasTexture = textureCount >= size;
+                if (hasTexture) {
+                    textures[0] = textureIndices[firstTexture];
+                    textures[1] = textureIndices[firstTexture + i];
+                    textures[2] = textureIndices[firstTexture + i + 1];
                 }
 
-                // Можно аналогично скопировать нормали, если потребуется
-                newPolygons.add(builder.build());
+                // Нормали полигонов не переносятся: после триангуляции считаются нормали вершин
+                triangles.addPolygon(vertices, 3, hasTexture ? textures : null, 3, null, 0);
             }
         }
 
         // Обновляем полигоны модели на триангулированные
-        model.setPolygons(newPolygons);
+        mesh.replacePolygons(triangles);
     }
 }
@@ -1,14 +1,8 @@
 package com.cgvsu.render_engine.utils;
 
+import com.cgvsu.model.Mesh;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
 import com.cgvsu.utils.math.Matrix4f;
-import com.cgvsu.utils.math.Vector3f;
-import com.cgvsu.utils.math.Vector4f;
-
-import java.util.ArrayList;
-
-import static com.cgvsu.render_engine.GraphicConveyor.multiplyMatrix4ByVector4;
 
 /**
  * Класс для проекции вершин полигона из мировой системы координат
@@ -17,79 +11,69 @@ import static com.cgvsu.render_engine.GraphicConveyor.multiplyMatrix4ByVector4;
 public class VertexProjector {
 
     /**
-     * Проецирует вершины полигона в экранное пространство.
+     * Проецирует все вершины модели ровно один раз за кадр.
+     * Результат пишется в примитивные массивы {@link ProjectedVertices},
+     * по которым затем индексируются треугольники всех проходов рендера.
      *
-     * @param model   Модель, содержащая вершины, текстуры и нормали
-     * @param polygon Полигон, который нужно спроецировать
-     * @param mvp     Матрица Model-View-Projection
-     * @param width   Ширина канвы/экрана
-     * @param height  Высота канвы/экрана
-     * @return Список экранных вершин с текстурными координатами и нормалями
+     * @param model  Модель, содержащая вершины и нормали
+     * @param mvp    Матрица Model-View-Projection
+     * @param width  Ширина канвы/экрана
+     * @param height Высота канвы/экрана
+     * @param out    Буферы для результата (переиспользуются между кадрами)
      */
-    public static ArrayList<Vertex> projectPolygon(
+    public static void projectVertices(
             Model model,
-            Polygon polygon,
             Matrix4f mvp,
             int width,
-            int height
+            int height,
+            ProjectedVertices out
     ) {
-        ArrayList<Vertex> result = new ArrayList<>();
-
-        // Проходим по всем вершинам полигона
-        for (int i = 0; i < polygon.getVertexIndices().size(); i++) {
-            int vi = polygon.getVertexIndices().get(i);
-
-            // Мировая позиция вершины
-            Vector3f worldPos = model.getVertices().get(vi);
-
-            // Нормаль вершины (усреднённая по полигонам)
-            Vector3f normal = model.getNormals().get(vi).normalize();
-
-            // Преобразуем в clip space через MVP
-            Vector4f clip = multiplyMatrix4ByVector4(
-                    mvp,
-                    new Vector4f(worldPos.getX(), worldPos.getY(), worldPos.getZ(), 1.0f)
-            );
-
-            // Проверка на деление на ноль (W близко к нулю)
-            if (Math.abs(clip.getW()) < 1e-6f) continue;
-
-            float invW = 1.0f / clip.getW();
-
-            // Нормализованные координаты устройства (NDC)
-            float ndcX = clip.getX() * invW;
-            float ndcY = clip.getY() * invW;
-            float ndcZ = clip.getZ() * invW;
-
-            // Преобразуем в экранные координаты
-            float screenX = (ndcX + 1.0f) * 0.5f * width;
-            float screenY = (1.0f - ndcY) * 0.5f * height;
-
-            // Текстурные координаты (если есть)
-            float u = 0.0f;
-            float vTex = 0.0f;
-
-            if (!polygon.getTextureVertexIndices().isEmpty()) {
-                int ti = polygon.getTextureVertexIndices().get(i);
-                if (ti >= 0 && ti < model.getTextureVertices().size()) {
-                    u = model.getTextureVertices().get(ti).getX();
-                    vTex = model.getTextureVertices().get(ti).getY();
+        Mesh mesh = model.getMesh();
+        float[] positions = mesh.getPositions();
+        float[] normals = mesh.getNormals();
+        int count = mesh.getVertexCount();
+        out.reset(count);
+
+        float m00 = mvp.get(0, 0), m01 = mvp.get(0, 1), m02 = mvp.get(0, 2), m03 = mvp.get(0, 3);
+        float m10 = mvp.get(1, 0), m11 = mvp.get(1, 1), m12 = mvp.get(1, 2), m13 = mvp.get(1, 3);
+        float m20 = mvp.get(2, 0), m21 = mvp.get(2, 1), m22 = mvp.get(2, 2), m23 = mvp.get(2, 3);
+        float m30 = mvp.get(3, 0), m31 = mvp.get(3, 1), m32 = mvp.get(3, 2), m33 = mvp.get(3, 3);
+
+        float halfW = 0.5f * width;
+        float halfH = 0.5f * height;
+        boolean hasNormals = mesh.getNormalCount() >= count;
+
+        for (int i = 0; i < count; i++) {
+            float x = positions[3 * i], y = positions[3 * i + 1], z = positions[3 * i + 2];
+
+            out.posX[i] = x;
+            out.posY[i] = y;
+            out.posZ[i] = z;
+
+            // Нормаль нормируется один раз на вершину; нулевая остаётся нулевой
+            float nx = 0, ny = 0, nz = 0;
+            if (hasNormals) {
+                nx = normals[3 * i];
+                ny = normals[3 * i + 1];
+                nz = normals[3 * i + 2];
+                float len = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (len > 1e-12f) {
+                    nx /= len;
+                    ny /= len;
+                    nz /= len;
                 }
             }
+            out.normalX[i] = nx;
+            out.normalY[i] = ny;
+            out.normalZ[i] = nz;
 
-            // Добавляем вершину в результат
-            result.add(new Vertex(
-                    screenX,
-                    screenY,
-                    ndcZ,
-                    invW,
-                    u,
-                    vTex,
-                    worldPos,
-                    normal
-            ));
-        }
+            // clip space
+            out.clipX[i] = m00 * x + m01 * y + m02 * z + m03;
+            out.clipY[i] = m10 * x + m11 * y + m12 * z + m13;
+            out.clipZ[i] = m20 * x + m21 * y + m22 * z + m23;
+            out.clipW[i] = m30 * x + m31 * y + m32 * z + m33;
 
-        return result;
+            out.project(i, halfW, halfH);
+        }
     }
 }
@@ -0,0 +1,197 @@
+package com.cgvsu.utils.objtools;
+
+import com.cgvsu.model.Mesh;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Двоичный кэш подготовленных сеток (после триангуляции и расчёта нормалей).
+ * <p>
+ * Файл кэша лежит рядом с OBJ ({@code model.obj.meshcache}) или в отдельном каталоге.
+ * Заголовок (little-endian): сигнатура, версия формата, размер, время изменения
+ * и отпечаток исходного файла; дальше сетка в формате {@link Mesh#writeTo}.
+ * Отпечаток — хэш первых и последних 64 КБ, он ловит подмену файла с сохранением
+ * размера и времени, не читая файл целиком. Кэш читается через отображение в память,
+ * так что повторное открытие — это копирование массивов вместо разбора текста.
+ * <p>
+ * Кэш вспомогательный: устаревший, повреждённый или нечитаемый файл кэша — просто промах.
+ */
+public final class MeshCache {
+
+    /** Загрузка и подготовка сетки при промахе кэша */
+    @FunctionalInterface
+    public interface Loader {
+        Mesh load(Path source) throws IOException;
+    }
+
+    /** Сигнатура "S3DVMESH" */
+    private static final long MAGIC = 0x4853454D56443353L;
+
+    /** Меняется при изменении формата или подготовки сетки (триангуляция, нормали) */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 8 + 4 + 3 * 8;
+    private static final String EXTENSION = ".meshcache";
+    private static final int FINGERPRINT_BLOCK = 64 * 1024;
+
+    private final Path directory;   // null — рядом с исходным файлом
+
+    /** Кэш рядом с файлами OBJ */
+    public MeshCache() {
+        this(null);
+    }
+
+    /** Кэш в отдельном каталоге (создаётся при первой записи) */
+    public MeshCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /** Путь файла кэша для исходного файла */
+    public Path cacheFile(Path source) {
+        String name = source.getFileName() + EXTENSION;
+        if (directory == null) return source.resolveSibling(name);
+        // в общем каталоге одноимённые файлы из разных мест различаются хэшем пути
+        String key = Integer.toHexString(source.toAbsolutePath().normalize().toString().hashCode());
+        return directory.resolve(key + "-" + name);
+    }
+
+    /**
+     * Сетка из кэша, а при промахе — loader.load(source) с записью результата в кэш.
+     * Ошибка записи кэша не мешает загрузке.
+     */
+    public Mesh load(Path source, Loader loader) throws IOException {
+        Stamp stamp = Stamp.of(source);   // до разбора: правка файла во время загрузки не попадёт в кэш
+        Mesh cached = read(source, stamp);
+        if (cached != null) return cached;
+
+        Mesh mesh = loader.load(source);
+        try {
+            write(source, stamp, mesh);
+        } catch (IOException e) {
+            System.err.println("Mesh cache not written for " + source + ": " + e.getMessage());
+        }
+        return mesh;
+    }
+
+    /** Сетка из кэша или null, если кэша нет или он не соответствует файлу */
+    public Mesh find(Path source) {
+        try {
+            return read(source, Stamp.of(source));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Записывает сетку в кэш для текущего состояния исходного файла */
+    public void store(Path source, Mesh mesh) throws IOException {
+        write(source, Stamp.of(source), mesh);
+    }
+
+    private Mesh read(Path source, Stamp stamp) {
+        Path file = cacheFile(source);
+        // отображение снимается при закрытии арены: файл кэша можно сразу подменить
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) return null;
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena).asByteBuffer();
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getLong() != MAGIC || buffer.getInt() != FORMAT_VERSION) return null;
+            if (!stamp.equals(new Stamp(buffer.getLong(), buffer.getLong(), buffer.getLong()))) return null;
+
+            Mesh mesh = Mesh.readFrom(buffer);
+            return buffer.hasRemaining() ? null : mesh;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Mesh cache ignored for " + source + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path source, Stamp stamp, Mesh mesh) throws IOException {
+        if (HEADER_SIZE + mesh.binarySize() > Integer.MAX_VALUE) return;   // не отобразится при чтении
+        Path file = cacheFile(source);
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        // пишем во временный файл и подменяем целиком: читатель не увидит половину кэша
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putLong(MAGIC).putInt(FORMAT_VERSION)
+                        .putLong(stamp.size).putLong(stamp.modified).putLong(stamp.fingerprint)
+                        .flip();
+                while (header.hasRemaining()) channel.write(header);
+                mesh.writeTo(channel);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Размер, время изменения и отпечаток исходного файла */
+    static final class Stamp {
+        final long size;
+        final long modified;
+        final long fingerprint;
+
+        Stamp(long size, long modified, long fingerprint) {
+            this.size = size;
+            this.modified = modified;
+            this.fingerprint = fingerprint;
+        }
+
+        static Stamp of(Path source) throws IOException {
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long modified = Files.getLastModifiedTime(source).toMillis();
+                return new Stamp(size, modified, fingerprint(channel, size));
+            }
+        }
+
+        /** FNV-1a по первым и последним FINGERPRINT_BLOCK байтам */
+        private static long fingerprint(FileChannel channel, long size) throws IOException {
+            long hash = 0xCBF29CE484222325L;
+            ByteBuffer block = ByteBuffer.allocate(FINGERPRINT_BLOCK);
+            long tail = Math.max(FINGERPRINT_BLOCK, size - FINGERPRINT_BLOCK);
+            for (long position : new long[]{0, tail}) {
+                block.clear();
+                while (block.hasRemaining() && position + block.position() < size) {
+                    if (channel.read(block, position + block.position()) < 0) break;
+                }
+                for (int i = 0; i < block.position(); i++) {
+                    hash = (hash ^ (block.get(i) & 0xFF)) * 0x100000001B3L;
+                }
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Stamp other)) return false;
+            return size == other.size && modified == other.modified && fingerprint == other.fingerprint;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(fingerprint);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.cgvsu.utils.objtools;
+
+import com.cgvsu.model.Mesh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Разбор строк OBJ прямо из байтов в {@link Mesh}.
+ * <p>
+ * Слова строки находятся по границам пробельных символов, числа разбираются на месте,
+ * индексы полигона копятся в переиспользуемых массивах. На строку не создаётся ни строк,
+ * ни списков, ни обёрток Integer — объекты появляются только для сообщений об ошибках.
+ * Сообщения и номера строк те же, что у построчного разбора {@link ObjReader}.
+ */
+final class ObjParser {
+
+    /** Точные степени десяти в double (до 10^22 включительно) */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Метка порядка байтов UTF-8 (EF BB BF) */
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    /** Начальный размер буфера потокового чтения; растёт только под строку длиннее буфера */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /** Полигоны длиннее этого проверяются на повторы сортировкой, короче — перебором */
+    private static final int SORT_DUPLICATES_FROM = 16;
+
+    private final Mesh mesh;   // null — только подсчёт строк элементов
+
+    // элементы, объявленные до начала разбираемого фрагмента файла
+    private final int vertexBase;
+    private final int textureBase;
+    private final int normalBase;
+
+    // число строк v, vt, vn (в режиме подсчёта)
+    int vertexLines;
+    int textureLines;
+    int normalLines;
+
+    // границы слов текущей строки: [wordStart[i], wordEnd[i])
+    private int[] wordStart = new int[16];
+    private int[] wordEnd = new int[16];
+
+    private int[] vertices = new int[16];
+    private int[] textures = new int[16];
+    private int[] normals = new int[16];
+    private int[] sorted = new int[16];
+
+    // разобранный элемент полигона; 0 — часть отсутствует
+    private int faceV, faceVt, faceVn;
+
+    ObjParser(Mesh mesh) {
+        this(mesh, 0, 0, 0);
+    }
+
+    /**
+     * Разбор фрагмента файла: индексы полигонов разрешаются так, будто до фрагмента
+     * уже объявлено vertexBase вершин, textureBase текстурных координат и normalBase нормалей.
+     * Сами элементы в mesh нумеруются с нуля.
+     */
+    ObjParser(Mesh mesh, int vertexBase, int textureBase, int normalBase) {
+        this.mesh = mesh;
+        this.vertexBase = vertexBase;
+        this.textureBase = textureBase;
+        this.normalBase = normalBase;
+    }
+
+    /** Парсер, который ничего не разбирает, а только считает строки v, vt и vn */
+    static ObjParser counter() {
+        return new ObjParser(null);
+    }
+
+    /**
+     * Разбирает строки из buf[from, to). Строки разделяются \n, \r\n или \r;
+     * последняя строка может не иметь перевода строки.
+     *
+     * @param line номер строки перед первой строкой фрагмента
+     * @return номер последней разобранной строки
+     */
+    int parse(byte[] buf, int from, int to, int line) {
+        int pos = from;
+        while (pos < to) {
+            int end = pos;
+            while (end < to && buf[end] != '\n' && buf[end] != '\r') end++;
+            line++;
+            parseLine(buf, pos, end, line);
+            if (end + 1 < to && buf[end] == '\r' && buf[end + 1] == '\n') end++;
+            pos = end + 1;
+        }
+        return line;
+    }
+
+    /**
+     * Разбирает поток целиком, держа в памяти только буфер и неполную последнюю строку.
+     * Поток не закрывается.
+     *
+     * @param line      номер строки перед началом потока
+     * @param fileStart поток начинается с начала файла: пропускается метка порядка байтов UTF-8
+     * @return номер последней разобранной строки
+     */
+    int parse(InputStream in, int bufferSize, int line, boolean fileStart) throws IOException {
+        byte[] buf = new byte[bufferSize];
+        int filled = 0;   // buf[0, filled) — прочитанные, но ещё не разобранные байты
+        boolean started = !fileStart;
+        boolean skipLineFeed = false;   // прошлый фрагмент кончился на \r, за ним может идти \n
+
+        while (true) {
+            if (filled == buf.length) buf = Arrays.copyOf(buf, 2 * buf.length);
+            int read = in.read(buf, filled, buf.length - filled);
+            boolean eof = read < 0;
+            if (!eof) filled += read;
+
+            int start = 0;
+            if (!started) {
+                // ждём первые 3 байта, чтобы узнать метку порядка байтов
+                if (filled < BOM.length && !eof) continue;
+                started = true;
+                if (startsWithBom(buf, filled)) start = BOM.length;
+            }
+            if (skipLineFeed && start < filled) {
+                if (buf[start] == '\n') start++;
+                skipLineFeed = false;
+            }
+
+            if (eof) {
+                return parse(buf, start, filled, line);
+            }
+
+            // разбираем до последнего перевода строки, хвост переносим в начало буфера
+            int end = filled;
+            while (end > start && buf[end - 1] != '\n' && buf[end - 1] != '\r') end--;
+            if (end > start) {
+                line = parse(buf, start, end, line);
+                skipLineFeed = buf[end - 1] == '\r';
+                start = end;
+            }
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, filled - start);
+                filled -= start;
+            }
+        }
+    }
+
+    static boolean startsWithBom(byte[] buf, int length) {
+        return length >= BOM.length && buf[0] == BOM[0] && buf[1] == BOM[1] && buf[2] == BOM[2];
+    }
+
+    /** Разбирает одну строку без перевода строки */
+    void parseLine(byte[] buf, int from, int to, int line) {
+        int words = split(buf, from, to);
+        if (words == 0 || buf[wordStart[0]] == '#') return;
+        if (mesh == null) {
+            count(buf);
+            return;
+        }
+
+        try {
+            int start = wordStart[0];
+            switch (wordEnd[0] - start) {
+                case 1 -> {
+                    if (buf[start] == 'v') parseVertex(buf, words, line);
+                    else if (buf[start] == 'f') parseFace(buf, words, line);
+                }
+                case 2 -> {
+                    if (buf[start] != 'v') return;
+                    if (buf[start + 1] == 't') parseTextureVertex(buf, words, line);
+                    else if (buf[start + 1] == 'n') parseNormal(buf, words, line);
+                }
+                default -> {
+                    // Игнорируем неизвестные токены
+                }
+            }
+        } catch (ObjReaderException e) {
+            throw new ObjReaderException(e.getMessage() + " at line " + line, line);
+        }
+    }
+
+    private void count(byte[] buf) {
+        int start = wordStart[0];
+        int length = wordEnd[0] - start;
+        if (buf[start] != 'v' || length > 2) return;
+        if (length == 1) vertexLines++;
+        else if (buf[start + 1] == 't') textureLines++;
+        else if (buf[start + 1] == 'n') normalLines++;
+    }
+
+    private void parseVertex(byte[] buf, int words, int line) {
+        // Четвёртая координата w (однородная) игнорируется
+        if (words < 4)
+            throw new ObjReaderException("Vertex must contain at least 3 numbers.", line);
+        try {
+            mesh.addVertex(word(buf, 1), word(buf, 2), word(buf, 3));
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Failed to parse float value in vertex.", line);
+        }
+    }
+
+    private void parseTextureVertex(byte[] buf, int words, int line) {
+        // Третья текстурная координата игнорируется
+        if (words < 3)
+            throw new ObjReaderException("Texture vertex must contain at least 2 numbers.", line);
+        try {
+            mesh.addTextureVertex(word(buf, 1), word(buf, 2));
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Failed to parse float value in texture vertex.", line);
+        }
+    }
+
+    private void parseNormal(byte[] buf, int words, int line) {
+        if (words != 4)
+            throw new ObjReaderException("Normal must contain exactly 3 numbers.", line);
+        try {
+            mesh.addNormal(word(buf, 1), word(buf, 2), word(buf, 3));
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Failed to parse float value in normal.", line);
+        }
+    }
+
+    private void parseFace(byte[] buf, int words, int line) {
+        int count = words - 1;
+        if (count < 3)
+            throw new ObjReaderException("Polygon must have at least 3 vertices.", line);
+        if (vertices.length < count) {
+            int capacity = Math.max(count, 2 * vertices.length);
+            vertices = new int[capacity];
+            textures = new int[capacity];
+            normals = new int[capacity];
+            sorted = new int[capacity];
+        }
+
+        boolean hasTexture = false;
+        boolean hasNormal = false;
+        for (int i = 0; i < count; i++) {
+            parseFaceWord(buf, wordStart[i + 1], wordEnd[i + 1], line);
+
+            // Проверяем согласованность: все вершины должны иметь одинаковый формат
+            if (i == 0) {
+                hasTexture = faceVt != 0;
+                hasNormal = faceVn != 0;
+            } else {
+                if (hasTexture != (faceVt != 0)) {
+                    throw new ObjReaderException("Inconsistent face format: texture coordinates must be present for all vertices or absent for all.", line);
+                }
+                if (hasNormal != (faceVn != 0)) {
+                    throw new ObjReaderException("Inconsistent face format: normals must be present for all vertices or absent for all.", line);
+                }
+            }
+
+            vertices[i] = ObjReader.resolveIndex(faceV, vertexBase + mesh.getVertexCount(), line, "vertex");
+            if (hasTexture) {
+                textures[i] = ObjReader.resolveIndex(faceVt, textureBase + mesh.getTextureVertexCount(), line, "texture");
+            }
+            if (hasNormal) {
+                normals[i] = ObjReader.resolveIndex(faceVn, normalBase + mesh.getNormalCount(), line, "normal");
+            }
+        }
+
+        // Проверяем, что полигон не дегенеративный (все вершины разные)
+        if (hasDuplicates(count)) {
+            throw new ObjReaderException("Polygon has duplicate vertices.", line);
+        }
+
+        mesh.addPolygon(vertices, count,
+                hasTexture ? textures : null, count,
+                hasNormal ? normals : null, count);
+    }
+
+    /** Разбирает элемент полигона v, v/vt, v//vn или v/vt/vn в faceV, faceVt, faceVn */
+    private void parseFaceWord(byte[] buf, int from, int to, int line) {
+        int slash1 = -1;
+        int slash2 = -1;
+        for (int i = from; i < to; i++) {
+            if (buf[i] != '/') continue;
+            if (slash1 < 0) {
+                slash1 = i;
+            } else if (slash2 < 0) {
+                slash2 = i;
+            } else {
+                throw new ObjReaderException("Invalid face element format: '" + text(buf, from, to)
+                        + "'. Expected format: v/vt/vn, v//vn, v/vt/, or v", line);
+            }
+        }
+
+        int vEnd = slash1 < 0 ? to : slash1;
+        faceV = parseIndex(buf, from, vEnd, line, "vertex");
+        if (faceV == 0) {
+            throw new ObjReaderException("Vertex index cannot be zero.", line);
+        }
+
+        // Пустая часть означает, что индекса нет
+        faceVt = 0;
+        faceVn = 0;
+        if (slash1 >= 0) {
+            int vtEnd = slash2 < 0 ? to : slash2;
+            if (vtEnd > slash1 + 1) faceVt = parseOptionalIndex(buf, slash1 + 1, vtEnd, line, "texture");
+        }
+        if (slash2 >= 0 && to > slash2 + 1) {
+            faceVn = parseOptionalIndex(buf, slash2 + 1, to, line, "normal");
+        }
+    }
+
+    /** Индекс текстуры или нормали; ноль здесь означал бы «нет индекса», поэтому он сразу ошибка */
+    private static int parseOptionalIndex(byte[] buf, int from, int to, int line, String type) {
+        int index = parseIndex(buf, from, to, line, type);
+        if (index == 0) throw new ObjReaderException(type + " index cannot be zero.", line);
+        return index;
+    }
+
+    private static int parseIndex(byte[] buf, int from, int to, int line, String type) {
+        try {
+            return parseInt(buf, from, to);
+        } catch (NumberFormatException e) {
+            throw new ObjReaderException("Failed to parse " + type + " index: '" + text(buf, from, to) + "'", line);
+        }
+    }
+
+    private boolean hasDuplicates(int count) {
+        if (count < SORT_DUPLICATES_FROM) {
+            for (int i = 1; i < count; i++) {
+                for (int j = 0; j < i; j++) {
+                    if (vertices[i] == vertices[j]) return true;
+                }
+            }
+            return false;
+        }
+        System.arraycopy(vertices, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        for (int i = 1; i < count; i++) {
+            if (sorted[i] == sorted[i - 1]) return true;
+        }
+        return false;
+    }
+
+    // --------------------- Слова ---------------------
+
+    /** Находит слова строки; возвращает их число */
+    private int split(byte[] buf, int from, int to) {
+        int words = 0;
+        int pos = from;
+        while (true) {
+            while (pos < to && isSpace(buf[pos])) pos++;
+            if (pos == to) return words;
+            if (words == wordStart.length) {
+                wordStart = Arrays.copyOf(wordStart, 2 * words);
+                wordEnd = Arrays.copyOf(wordEnd, 2 * words);
+            }
+            wordStart[words] = pos;
+            while (pos < to && !isSpace(buf[pos])) pos++;
+            wordEnd[words++] = pos;
+        }
+    }
+
+    private float word(byte[] buf, int word) {
+        return parseFloat(buf, wordStart[word], wordEnd[word]);
+    }
+
+    /** Пробелом считается любой управляющий символ ASCII и сам пробел (как в String.trim) */
+    private static boolean isSpace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private static String text(byte[] buf, int from, int to) {
+        return new String(buf, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    // --------------------- Числа ---------------------
+
+    /**
+     * Разбирает float так же, как {@link Float#parseFloat}, но без создания строки.
+     * <p>
+     * Обычная десятичная запись ([+-]цифры[.цифры][e[+-]цифры]) с мантиссой до 2^53
+     * и порядком до 22 переводится в double одним точным умножением или делением
+     * (результат округлён верно), а затем в float. Двойное округление может ошибиться
+     * только если double попал точно посередине между соседними float — такие числа,
+     * как и всё остальное (NaN, Infinity, шестнадцатеричная запись, длинные мантиссы),
+     * разбирает {@link Float#parseFloat}.
+     *
+     * @throws NumberFormatException если слово не число
+     */
+    static float parseFloat(byte[] buf, int from, int to) {
+        int pos = from;
+        boolean negative = false;
+        if (pos < to && (buf[pos] == '-' || buf[pos] == '+')) {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean digits = false;
+        for (; pos < to; pos++) {
+            int d = buf[pos] - '0';
+            if (d < 0 || d > 9) break;
+            digits = true;
+            if (mantissa == 0 && d == 0) continue;
+            if (++significant > 16) return slowFloat(buf, from, to);
+            mantissa = 10 * mantissa + d;
+        }
+        if (pos < to && buf[pos] == '.') {
+            for (pos++; pos < to; pos++) {
+                int d = buf[pos] - '0';
+                if (d < 0 || d > 9) break;
+                digits = true;
+                scale--;
+                if (mantissa == 0 && d == 0) continue;
+                if (++significant > 16) return slowFloat(buf, from, to);
+                mantissa = 10 * mantissa + d;
+            }
+        }
+        if (!digits) return slowFloat(buf, from, to);
+
+        if (pos < to && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < to && (buf[pos] == '-' || buf[pos] == '+')) {
+                negativeExponent = buf[pos] == '-';
+                pos++;
+            }
+            int exponent = 0;
+            int exponentStart = pos;
+            for (; pos < to; pos++) {
+                int d = buf[pos] - '0';
+                if (d < 0 || d > 9) break;
+                if (exponent > 1000) return slowFloat(buf, from, to);
+                exponent = 10 * exponent + d;
+            }
+            if (pos == exponentStart) return slowFloat(buf, from, to);
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (pos != to) return slowFloat(buf, from, to);
+
+        if (mantissa == 0) return negative ? -0f : 0f;
+        if (mantissa > (1L << 53) || scale < -22 || scale > 22) return slowFloat(buf, from, to);
+
+        double value = scale >= 0 ? mantissa * POW10[scale] : mantissa / POW10[-scale];
+        // 29 младших бит мантиссы double отбрасываются при переводе во float: ровно половина — спорный случай
+        if ((Double.doubleToRawLongBits(value) & 0x1FFFFFFFL) == 0x10000000L) return slowFloat(buf, from, to);
+        return (float) (negative ? -value : value);
+    }
+
+    private static float slowFloat(byte[] buf, int from, int to) {
+        return Float.parseFloat(text(buf, from, to));
+    }
+
+    /**
+     * Разбирает int так же, как {@link Integer#parseInt}, но без создания строки.
+     *
+     * @throws NumberFormatException если слово не число или не помещается в int
+     */
+    static int parseInt(byte[] buf, int from, int to) {
+        int pos = from;
+        boolean negative = false;
+        if (pos < to && (buf[pos] == '-' || buf[pos] == '+')) {
+            negative = buf[pos] == '-';
+            pos++;
+        }
+        // до 9 цифр переполнения нет; длинные и необычные записи — через Integer.parseInt
+        if (pos == to || to - pos > 9) return Integer.parseInt(text(buf, from, to));
+
+        int value = 0;
+        for (; pos < to; pos++) {
+            int d = buf[pos] - '0';
+            if (d < 0 || d > 9) return Integer.parseInt(text(buf, from, to));
+            value = 10 * value + d;
+        }
+        return negative ? -value : value;
+    }
+}
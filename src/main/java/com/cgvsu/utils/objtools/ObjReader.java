@@ -2,58 +2,72 @@ package com.cgvsu.utils.objtools;
 
 import com.cgvsu.utils.math.Vector2f;
 import com.cgvsu.utils.math.Vector3f;
+import com.cgvsu.model.Mesh;
 import com.cgvsu.model.Model;
 import com.cgvsu.model.Polygon;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
 public class ObjReader {
 
-    private static final String OBJ_VERTEX_TOKEN = "v";
-    private static final String OBJ_TEXTURE_TOKEN = "vt";
-    private static final String OBJ_NORMAL_TOKEN = "vn";
-    private static final String OBJ_FACE_TOKEN = "f";
-
+    /**
+     * Читает модель из текста OBJ.
+     * <p>
+     * Текст разбирается побайтно {@link ObjParser} прямо в сетку модели; методы разбора
+     * отдельных слов ниже работают со словами-строками.
+     */
     public static Model read(String fileContent) {
         Model result = new Model();
+        byte[] bytes = fileContent.getBytes(StandardCharsets.UTF_8);
+        int start = ObjParser.startsWithBom(bytes, bytes.length) ? 3 : 0;
+        new ObjParser(result.getMesh()).parse(bytes, start, bytes.length, 0);
+        return finish(result);
+    }
 
-        int lineInd = 0;
-        Scanner scanner = new Scanner(removeBOM(fileContent));
-
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine().trim();
-            lineInd++;
-
-            if (line.isEmpty() || line.startsWith("#")) continue;
-
-            ArrayList<String> words = new ArrayList<>(Arrays.asList(line.split("\\s+")));
-            if (words.isEmpty()) continue;
-
-            String token = words.remove(0);
-
-            try {
-                switch (token) {
-                    case OBJ_VERTEX_TOKEN ->
-                            result.getVertices().add(parseVertex(words, lineInd));
-                    case OBJ_TEXTURE_TOKEN ->
-                            result.getTextureVertices().add(parseTextureVertex(words, lineInd));
-                    case OBJ_NORMAL_TOKEN ->
-                            result.getNormals().add(parseNormal(words, lineInd));
-                    case OBJ_FACE_TOKEN ->
-                            result.getPolygons().add(parseFace(words, lineInd, result));
-                    default -> {
-                        // Игнорируем неизвестные токены
-                    }
-                }
-            } catch (ObjReaderException e) {
-                throw new ObjReaderException(e.getMessage() + " at line " + lineInd, lineInd);
-            }
+    /**
+     * Читает модель из файла OBJ потоком: в памяти держится буфер фиксированного
+     * размера, а не весь текст, так что пик памяти определяется размером сетки.
+     */
+    public static Model read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
         }
+    }
 
-        validateModel(result);
+    /** Читает модель из потока до конца; поток не закрывается */
+    public static Model read(InputStream in) throws IOException {
+        Model result = new Model();
+        new ObjParser(result.getMesh()).parse(in, ObjParser.BUFFER_SIZE, 0, true);
+        return finish(result);
+    }
 
+    /** Читает модель из канала до конца; канал не закрывается */
+    public static Model read(ReadableByteChannel channel) throws IOException {
+        return read(Channels.newInputStream(channel));
+    }
+
+    /**
+     * Читает большой файл OBJ параллельно: файл отображается в память и разбирается
+     * кусками на всех ядрах (см. {@link ParallelObjReader}). Результат и ошибки те же,
+     * что у {@link #read(Path)}; небольшие файлы и однопроцессорные машины обходятся им же.
+     */
+    public static Model readParallel(Path file) throws IOException {
+        if (Files.size(file) < ParallelObjReader.PARALLEL_FROM
+                || ForkJoinPool.getCommonPoolParallelism() < 2) return read(file);
+        return finish(new Model(ParallelObjReader.read(file)));
+    }
+
+    private static Model finish(Model result) {
+        validateModel(result);
+        result.getMesh().trimToSize();
         return result;
     }
 
@@ -251,27 +265,23 @@ public class ObjReader {
     }
 
     protected static void validateModel(Model m) {
-        if (m.getVertices().isEmpty())
+        Mesh mesh = m.getMesh();
+        if (mesh.getVertexCount() == 0)
             throw new ObjReaderException("OBJ file contains no vertices.", 0);
-        if (m.getPolygons().isEmpty())
+        if (mesh.getPolygonCount() == 0)
             throw new ObjReaderException("OBJ file contains no faces.", 0);
 
         // Дополнительная проверка: все полигоны должны ссылаться на существующие вершины
-        int vertexCount = m.getVertices().size();
-        for (int i = 0; i < m.getPolygons().size(); i++) {
-            Polygon poly = m.getPolygons().get(i);
-            for (int vertexIndex : poly.getVertexIndices()) {
+        int vertexCount = mesh.getVertexCount();
+        int[] offsets = mesh.getVertexOffsets();
+        int[] indices = mesh.getVertexIndices();
+        for (int i = 0; i < mesh.getPolygonCount(); i++) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                int vertexIndex = indices[k];
                 if (vertexIndex < 0 || vertexIndex >= vertexCount) {
                     throw new ObjReaderException("Polygon " + i + " references non-existent vertex: " + vertexIndex, 0);
                 }
             }
         }
     }
-
-    private static String removeBOM(String text) {
-        if (text.startsWith("\uFEFF")) {
-            return text.substring(1);
-        }
-        return text;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package com.cgvsu.utils.objtools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Растущий буфер текста OBJ: числа пишутся прямо в байты, без промежуточных строк.
+ */
+final class ObjTextBuffer {
+
+    /** Шесть знаков после точки, как у %.6f */
+    private static final long SCALE = 1_000_000;
+
+    /**
+     * Быстрый путь только для |value| < 10^9: тогда value * 10^6 в double вычисляется
+     * точно (24 бита мантиссы float на 14 бит множителя 15625 · 2^6) и меньше 2^53.
+     */
+    private static final double MAX_SCALED = 1e15;
+
+    /**
+     * Запас у середины между соседними результатами. %.6f округляет не само значение,
+     * а его кратчайшую десятичную запись как double; они различаются меньше чем на
+     * половину ulp (около 1.1e-16 относительно), запас взят с избытком.
+     */
+    private static final double TIE_MARGIN = 1e-15;
+
+    private byte[] data;
+    private int size;
+
+    ObjTextBuffer(int capacity) {
+        data = new byte[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Выводит содержимое и очищает буфер */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(data, 0, size);
+        size = 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    ObjTextBuffer append(char c) {
+        ensureCapacity(1);
+        data[size++] = (byte) c;
+        return this;
+    }
+
+    /** Строка в UTF-8 (комментарии могут быть не ASCII) */
+    ObjTextBuffer append(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, data, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    ObjTextBuffer append(long value) {
+        ensureCapacity(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) return append(Long.toString(value));
+            data[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) digits++;
+        int end = size + digits;
+        for (int at = end - 1; at >= size; at--) {
+            data[at] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size = end;
+        return this;
+    }
+
+    /**
+     * Число так же, как {@code String.format(Locale.ROOT, "%.6f", value)} с отброшенными
+     * хвостовыми нулями и точкой: 1.5 → "1.5", 2.0 → "2", -0.0000001 → "-0".
+     * Спорные случаи (почти ровно посередине) и большие числа форматирует String.format.
+     */
+    ObjTextBuffer appendCompact(float value) {
+        boolean negative = Float.floatToRawIntBits(value) < 0;   // как у %.6f: и для -0.0
+        double scaled = Math.abs((double) value) * SCALE;
+        if (!(scaled < MAX_SCALED)) return appendCompactSlow(value);
+
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        if (Math.abs(fraction - 0.5) <= scaled * TIE_MARGIN) return appendCompactSlow(value);
+        long rounded = (long) floor + (fraction > 0.5 ? 1 : 0);
+
+        ensureCapacity(24);
+        if (negative) data[size++] = '-';
+        append(rounded / SCALE);
+
+        int decimals = (int) (rounded % SCALE);
+        if (decimals == 0) return this;
+        int digits = 6;
+        while (decimals % 10 == 0) {
+            decimals /= 10;
+            digits--;
+        }
+        data[size++] = '.';
+        int end = size + digits;
+        for (int at = end - 1; at >= size; at--) {
+            data[at] = (byte) ('0' + decimals % 10);
+            decimals /= 10;
+        }
+        size = end;
+        return this;
+    }
+
+    private ObjTextBuffer appendCompactSlow(float value) {
+        String result = String.format(Locale.ROOT, "%.6f", value);
+        int end = result.length();
+        while (result.charAt(end - 1) == '0') end--;
+        if (result.charAt(end - 1) == '.') end--;
+        ensureCapacity(end);
+        for (int i = 0; i < end; i++) data[size++] = (byte) result.charAt(i);
+        return this;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(size + extra, 2 * data.length));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(data, 0, size, StandardCharsets.UTF_8);
+    }
+}
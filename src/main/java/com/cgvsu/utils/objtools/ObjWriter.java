@@ -1,140 +1,166 @@
 package com.cgvsu.utils.objtools;
 
-import com.cgvsu.utils.math.Vector2f;
-import com.cgvsu.utils.math.Vector3f;
+import com.cgvsu.model.Mesh;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Locale;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Запись модели в OBJ.
+ * <p>
+ * Модель сначала целиком проверяется, затем текст идёт в поток блоками строк: числа
+ * форматируются прямо в байты ({@link ObjTextBuffer}), весь файл в памяти не строится.
+ * На больших моделях блоки форматируются параллельно волнами по нескольку на поток
+ * и пишутся по порядку, так что дополнительная память не зависит от размера модели.
+ */
 public class ObjWriter {
 
+    private static final String DEFAULT_COMMENT = "Exported by Lapin Nikita ObjWriter";
+
+    /** Строк в одном блоке (около полумегабайта текста) */
+    private static final int LINES_PER_BLOCK = 1 << 14;
+
+    /** С какого числа строк в разделе блоки форматируются параллельно */
+    private static final int PARALLEL_LINES = 1 << 16;
+
+    /** Сборка текста для одной строки раздела */
+    @FunctionalInterface
+    private interface LineFormatter {
+        void format(ObjTextBuffer out, int index);
+    }
+
     public static void write(Model model, String filePath) throws IOException {
-        String content = modelToString(model);
-        Files.writeString(Path.of(filePath), content);
+        write(model, DEFAULT_COMMENT, Path.of(filePath));
+    }
+
+    /** Записывает модель в файл; при ошибке проверки файл не создаётся и не меняется */
+    public static void write(Model model, String comment, Path file) throws IOException {
+        validateModel(model);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeValidated(model.getMesh(), comment, out);
+        }
+    }
+
+    /** Записывает модель в поток; поток не закрывается */
+    public static void write(Model model, String comment, OutputStream out) throws IOException {
+        validateModel(model);
+        writeValidated(model.getMesh(), comment, out);
     }
 
     public static String modelToString(Model model) {
-        return modelToString(model, "Exported by Lapin Nikita ObjWriter");
+        return modelToString(model, DEFAULT_COMMENT);
     }
 
     public static String modelToString(Model model, String comment) {
-        if (model == null) {
-            throw new ObjWriterException("Model cannot be null");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(model, comment, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // запись в память не бросает
         }
+        return out.toString(StandardCharsets.UTF_8);
+    }
 
-        StringBuilder sb = new StringBuilder();
+    private static void writeValidated(Mesh mesh, String comment, OutputStream out) throws IOException {
+        int vertexCount = mesh.getVertexCount();
+        int textureCount = mesh.getTextureVertexCount();
+        int normalCount = mesh.getNormalCount();
+        int polygonCount = mesh.getPolygonCount();
 
+        ObjTextBuffer text = new ObjTextBuffer(256);
         if (comment != null && !comment.isEmpty()) {
-            sb.append("# ").append(comment).append("\n");
+            text.append("# ").append(comment).append('\n');
+            text.writeTo(out);
         }
 
-        try {
-            List<Vector3f> vertices = model.getVertices();
-            for (int i = 0; i < vertices.size(); i++) {
-                Vector3f vertex = vertices.get(i);
-                validateVertex(vertex, i);
-                sb.append("v ")
-                        .append(formatFloatCompact(vertex.getX()))
-                        .append(" ")
-                        .append(formatFloatCompact(vertex.getY()))
-                        .append(" ")
-                        .append(formatFloatCompact(vertex.getZ()))
-                        .append("\n");
-            }
-
-            if (!vertices.isEmpty() &&
-                    ((model.getTextureVertices() != null && !model.getTextureVertices().isEmpty()) ||
-                            (model.getNormals() != null && !model.getNormals().isEmpty()))) {
-                sb.append("\n");
-            }
-
-            List<Vector2f> textureVertices = model.getTextureVertices();
-            if (textureVertices != null) {
-                for (int i = 0; i < textureVertices.size(); i++) {
-                    Vector2f textureVertex = textureVertices.get(i);
-                    validateTextureVertex(textureVertex, i);
-                    sb.append("vt ")
-                            .append(formatFloatCompact(textureVertex.getX()))
-                            .append(" ")
-                            .append(formatFloatCompact(textureVertex.getY()))
-                            .append("\n");
+        float[] xyz = mesh.getPositions();
+        writeLines(out, vertexCount, (line, i) -> line.append("v ")
+                .appendCompact(xyz[3 * i]).append(' ')
+                .appendCompact(xyz[3 * i + 1]).append(' ')
+                .appendCompact(xyz[3 * i + 2]).append('\n'));
+
+        if (vertexCount > 0 && (textureCount > 0 || normalCount > 0)) blankLine(out, text);
+
+        float[] uv = mesh.getTextureCoords();
+        writeLines(out, textureCount, (line, i) -> line.append("vt ")
+                .appendCompact(uv[2 * i]).append(' ')
+                .appendCompact(uv[2 * i + 1]).append('\n'));
+
+        if (textureCount > 0 && normalCount > 0) blankLine(out, text);
+
+        float[] normals = mesh.getNormals();
+        writeLines(out, normalCount, (line, i) -> line.append("vn ")
+                .appendCompact(normals[3 * i]).append(' ')
+                .appendCompact(normals[3 * i + 1]).append(' ')
+                .appendCompact(normals[3 * i + 2]).append('\n'));
+
+        if ((vertexCount > 0 || textureCount > 0 || normalCount > 0) && polygonCount > 0) blankLine(out, text);
+
+        int[] vertexOffsets = mesh.getVertexOffsets();
+        int[] vertexIndices = mesh.getVertexIndices();
+        int[] textureOffsets = mesh.getTextureOffsets();
+        int[] textureIndices = mesh.getTextureIndices();
+        int[] normalOffsets = mesh.getNormalOffsets();
+        int[] normalIndices = mesh.getNormalIndices();
+        writeLines(out, polygonCount, (line, p) -> {
+            int vertexStart = vertexOffsets[p];
+            int textureStart = textureOffsets[p];
+            int normalStart = normalOffsets[p];
+            boolean hasTextures = textureOffsets[p + 1] > textureStart;
+            boolean hasNormals = normalOffsets[p + 1] > normalStart;
+
+            line.append('f');
+            for (int j = 0; j < vertexOffsets[p + 1] - vertexStart; j++) {
+                line.append(' ').append(vertexIndices[vertexStart + j] + 1L);
+                if (hasTextures || hasNormals) {
+                    line.append('/');
+                    if (hasTextures) line.append(textureIndices[textureStart + j] + 1L);
+                    if (hasNormals) line.append('/').append(normalIndices[normalStart + j] + 1L);
                 }
             }
+            line.append('\n');
+        });
+    }
 
-            if (textureVertices != null && !textureVertices.isEmpty() &&
-                    model.getNormals() != null && !model.getNormals().isEmpty()) {
-                sb.append("\n");
-            }
-
-            List<Vector3f> normals = model.getNormals();
-            if (normals != null) {
-                for (int i = 0; i < normals.size(); i++) {
-                    Vector3f normal = normals.get(i);
-                    validateNormal(normal, i);
-                    sb.append("vn ")
-                            .append(formatFloatCompact(normal.getX()))
-                            .append(" ")
-                            .append(formatFloatCompact(normal.getY()))
-                            .append(" ")
-                            .append(formatFloatCompact(normal.getZ()))
-                            .append("\n");
-                }
-            }
-
-            if ((!vertices.isEmpty() ||
-                    (textureVertices != null && !textureVertices.isEmpty()) ||
-                    (normals != null && !normals.isEmpty())) &&
-                    !model.getPolygons().isEmpty()) {
-                sb.append("\n");
-            }
-
-            List<Polygon> polygons = model.getPolygons();
-            for (int i = 0; i < polygons.size(); i++) {
-                Polygon polygon = polygons.get(i);
-                validatePolygon(polygon, i,
-                        vertices.size(),
-                        textureVertices != null ? textureVertices.size() : 0,
-                        normals != null ? normals.size() : 0);
-
-                sb.append("f");
-                List<Integer> vertexIndices = polygon.getVertexIndices();
-                List<Integer> textureVertexIndices = polygon.getTextureVertexIndices();
-                List<Integer> normalIndices = polygon.getNormalIndices();
-
-                boolean hasTextures = textureVertexIndices != null && !textureVertexIndices.isEmpty();
-                boolean hasNormals = normalIndices != null && !normalIndices.isEmpty();
-
-                for (int j = 0; j < vertexIndices.size(); j++) {
-                    sb.append(" ");
-                    sb.append(vertexIndices.get(j) + 1);
-
-                    if (hasTextures || hasNormals) {
-                        sb.append("/");
-
-                        if (hasTextures) {
-                            sb.append(textureVertexIndices.get(j) + 1);
-                        }
-
-                        if (hasNormals) {
-                            sb.append("/").append(normalIndices.get(j) + 1);;
-                        }
-                    }
-                }
-                sb.append("\n");
-            }
+    private static void blankLine(OutputStream out, ObjTextBuffer text) throws IOException {
+        text.append('\n').writeTo(out);
+    }
 
-        } catch (IndexOutOfBoundsException e) {
-            throw new ObjWriterException("Invalid model data structure", e);
-        } catch (NullPointerException e) {
-            throw new ObjWriterException("Model contains null elements", e);
+    /**
+     * Пишет count строк блоками. Крупные разделы форматируются параллельно волнами
+     * по два блока на поток; блоки волны выводятся по порядку.
+     */
+    private static void writeLines(OutputStream out, int count, LineFormatter formatter) throws IOException {
+        if (count == 0) return;
+        int blocks = (count + LINES_PER_BLOCK - 1) / LINES_PER_BLOCK;
+        boolean parallel = count >= PARALLEL_LINES && ForkJoinPool.getCommonPoolParallelism() > 1;
+        int wave = parallel ? Math.min(blocks, 2 * ForkJoinPool.getCommonPoolParallelism()) : 1;
+
+        ObjTextBuffer[] buffers = new ObjTextBuffer[wave];
+        for (int k = 0; k < wave; k++) buffers[k] = new ObjTextBuffer(1 << 16);
+
+        for (int first = 0; first < blocks; first += wave) {
+            int blockBase = first;
+            int inWave = Math.min(wave, blocks - first);
+            IntStream range = IntStream.range(0, inWave);
+            if (parallel) range = range.parallel();
+            range.forEach(k -> {
+                ObjTextBuffer buffer = buffers[k];
+                buffer.clear();
+                int from = (blockBase + k) * LINES_PER_BLOCK;
+                int to = Math.min(count, from + LINES_PER_BLOCK);
+                for (int i = from; i < to; i++) formatter.format(buffer, i);
+            });
+            for (int k = 0; k < inWave; k++) buffers[k].writeTo(out);
         }
-
-        return sb.toString();
     }
 
     protected static String formatFloatCompact(float value) {
@@ -144,78 +170,54 @@ public class ObjWriter {
         if (Float.isInfinite(value)) {
             throw new ObjWriterException("Cannot format infinite value");
         }
-
-        String result = String.format(Locale.ROOT, "%.6f", value);
-
-        if (result.contains(".")) {
-            result = result.replaceAll("0*$", "");
-            if (result.endsWith(".")) {
-                result = result.substring(0, result.length() - 1);
-            }
-        }
-
-        return result;
+        return new ObjTextBuffer(24).appendCompact(value).toString();
     }
 
-    protected static void validateVertex(Vector3f vertex, int index) {
-        if (vertex == null) {
-            throw new ObjWriterException("Vertex at index " + index + " is null");
-        }
-        if (Float.isNaN(vertex.getX()) || Float.isNaN(vertex.getY()) || Float.isNaN(vertex.getZ())) {
-            throw new ObjWriterException("Vertex at index " + index + " contains NaN values");
-        }
-        if (Float.isInfinite(vertex.getX()) || Float.isInfinite(vertex.getY()) || Float.isInfinite(vertex.getZ())) {
-            throw new ObjWriterException("Vertex at index " + index + " contains infinite values");
-        }
-    }
+    // --------------------- Проверка ---------------------
 
-    protected static void validateTextureVertex(Vector2f textureVertex, int index) {
-        if (textureVertex == null) {
-            throw new ObjWriterException("Texture vertex at index " + index + " is null");
-        }
-        if (Float.isNaN(textureVertex.getX()) || Float.isNaN(textureVertex.getY())) {
-            throw new ObjWriterException("Texture vertex at index " + index + " contains NaN values");
+    protected static void validateModel(Model model) {
+        if (model == null) {
+            throw new ObjWriterException("Model cannot be null");
         }
-        if (Float.isInfinite(textureVertex.getX()) || Float.isInfinite(textureVertex.getY())) {
-            throw new ObjWriterException("Texture vertex at index " + index + " contains infinite values");
+        Mesh mesh = model.getMesh();
+        validateElements("Vertex", mesh.getPositions(), mesh.getVertexCount(), 3);
+        validateElements("Texture vertex", mesh.getTextureCoords(), mesh.getTextureVertexCount(), 2);
+        validateElements("Normal", mesh.getNormals(), mesh.getNormalCount(), 3);
+        for (int p = 0; p < mesh.getPolygonCount(); p++) {
+            validatePolygon(mesh, p);
         }
     }
 
-    protected static void validateNormal(Vector3f normal, int index) {
-        if (normal == null) {
-            throw new ObjWriterException("Normal at index " + index + " is null");
-        }
-        if (Float.isNaN(normal.getX()) || Float.isNaN(normal.getY()) || Float.isNaN(normal.getZ())) {
-            throw new ObjWriterException("Normal at index " + index + " contains NaN values");
-        }
-        if (Float.isInfinite(normal.getX()) || Float.isInfinite(normal.getY()) || Float.isInfinite(normal.getZ())) {
-            throw new ObjWriterException("Normal at index " + index + " contains infinite values");
+    private static void validateElements(String kind, float[] values, int count, int components) {
+        for (int i = 0; i < count * components; i++) {
+            if (Float.isFinite(values[i])) continue;
+            int index = i / components;
+            // NaN в любой координате элемента важнее бесконечности
+            for (int c = index * components; c < (index + 1) * components; c++) {
+                if (Float.isNaN(values[c])) {
+                    throw new ObjWriterException(kind + " at index " + index + " contains NaN values");
+                }
+            }
+            throw new ObjWriterException(kind + " at index " + index + " contains infinite values");
         }
     }
 
-    protected static void validatePolygon(Polygon polygon, int polyIndex, int vertexCount,
-                                          int textureVertexCount, int normalCount) {
-        if (polygon == null) {
-            throw new ObjWriterException("Polygon at index " + polyIndex + " is null");
-        }
-
-        List<Integer> vertexIndices = polygon.getVertexIndices();
-        List<Integer> textureVertexIndices = polygon.getTextureVertexIndices();
-        List<Integer> normalIndices = polygon.getNormalIndices();
-
-        if (vertexIndices == null) {
-            throw new ObjWriterException("Polygon at index " + polyIndex + " has null vertex indices");
-        }
+    protected static void validatePolygon(Mesh mesh, int polyIndex) {
+        int[] vertexOffsets = mesh.getVertexOffsets();
+        int size = vertexOffsets[polyIndex + 1] - vertexOffsets[polyIndex];
 
-        if (vertexIndices.isEmpty()) {
+        if (size == 0) {
             throw new ObjWriterException("Polygon at index " + polyIndex + " has no vertices");
         }
 
-        if (vertexIndices.size() < 3) {
+        if (size < 3) {
             throw new ObjWriterException("Polygon at index " + polyIndex + " has less than 3 vertices");
         }
 
-        for (int vertexIndex : vertexIndices) {
+        int vertexCount = mesh.getVertexCount();
+        int[] vertexIndices = mesh.getVertexIndices();
+        for (int k = vertexOffsets[polyIndex]; k < vertexOffsets[polyIndex + 1]; k++) {
+            int vertexIndex = vertexIndices[k];
             if (vertexIndex < 0 || vertexIndex >= vertexCount) {
                 throw new ObjWriterException(
                         "Polygon at index " + polyIndex + " references invalid vertex index " +
@@ -224,38 +226,32 @@ public class ObjWriter {
             }
         }
 
-        if (textureVertexIndices != null && !textureVertexIndices.isEmpty()) {
-            if (textureVertexIndices.size() != vertexIndices.size()) {
-                throw new ObjWriterException(
-                        "Polygon at index " + polyIndex + " has mismatched vertex and texture vertex counts"
-                );
-            }
+        validateIndices(polyIndex, size, mesh.getTextureOffsets(), mesh.getTextureIndices(),
+                mesh.getTextureVertexCount(), "texture vertex", "texture vertices");
+        validateIndices(polyIndex, size, mesh.getNormalOffsets(), mesh.getNormalIndices(),
+                mesh.getNormalCount(), "normal", "normals");
+    }
 
-            for (int texIndex : textureVertexIndices) {
-                if (texIndex < 0 || texIndex >= textureVertexCount) {
-                    throw new ObjWriterException(
-                            "Polygon at index " + polyIndex + " references invalid texture vertex index " +
-                                    texIndex + " (available texture vertices: 0-" + (textureVertexCount - 1) + ")"
-                    );
-                }
-            }
+    private static void validateIndices(int polyIndex, int size, int[] offsets, int[] indices, int count,
+                                        String kind, String plural) {
+        int from = offsets[polyIndex];
+        int to = offsets[polyIndex + 1];
+        if (from == to) return;
+
+        if (to - from != size) {
+            throw new ObjWriterException(
+                    "Polygon at index " + polyIndex + " has mismatched vertex and " + kind + " counts"
+            );
         }
 
-        if (normalIndices != null && !normalIndices.isEmpty()) {
-            if (normalIndices.size() != vertexIndices.size()) {
+        for (int k = from; k < to; k++) {
+            int index = indices[k];
+            if (index < 0 || index >= count) {
                 throw new ObjWriterException(
-                        "Polygon at index " + polyIndex + " has mismatched vertex and normal counts"
+                        "Polygon at index " + polyIndex + " references invalid " + kind + " index " +
+                                index + " (available " + plural + ": 0-" + (count - 1) + ")"
                 );
             }
-
-            for (int normalIndex : normalIndices) {
-                if (normalIndex < 0 || normalIndex >= normalCount) {
-                    throw new ObjWriterException(
-                            "Polygon at index " + polyIndex + " references invalid normal index " +
-                                    normalIndex + " (available normals: 0-" + (normalCount - 1) + ")"
-                    );
-                }
-            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+package com.cgvsu.utils.objtools;
+
+import com.cgvsu.model.Mesh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Параллельный разбор большого файла OBJ, отображённого в память.
+ * <p>
+ * Файл делится на куски по границам строк, каждый кусок отображается через
+ * {@link FileChannel#map(FileChannel.MapMode, long, long, Arena)}. Отображения
+ * принадлежат одной арене и снимаются сразу после разбора, а не при сборке мусора:
+ * иначе файл оставался бы занятым (в Windows его нельзя перезаписать). Первый проход параллельно считает в кусках строки
+ * и объявления v, vt, vn (это в разы быстрее разбора чисел); префиксные суммы дают
+ * каждому куску номер первой строки и число элементов, объявленных до него.
+ * Второй проход параллельно разбирает куски в отдельные сетки, разрешая индексы
+ * полигонов — в том числе относительные — по общим счётчикам, поэтому ошибки
+ * сообщают те же тексты и номера строк, что и последовательный разбор.
+ * Сетки кусков склеиваются {@link Mesh#concat}.
+ */
+final class ParallelObjReader {
+
+    /** Файлы меньше этого читаются потоком: параллельность не окупится */
+    static final long PARALLEL_FROM = 8L << 20;
+
+    private static final long MIN_CHUNK = 4L << 20;
+    private static final long MAX_CHUNK = 1L << 30;   // одно отображение не больше 2 ГБ
+    private static final int CHUNKS_PER_THREAD = 4;   // запас для выравнивания нагрузки
+    private static final int PROBE_SIZE = 4096;
+
+    private ParallelObjReader() {
+    }
+
+    static Mesh read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, chunkCount(channel.size()));
+        }
+    }
+
+    /** Число кусков: несколько на поток, но не мельче MIN_CHUNK и не крупнее MAX_CHUNK */
+    static int chunkCount(long size) {
+        long chunks = Math.min(size / MIN_CHUNK, (long) CHUNKS_PER_THREAD * ForkJoinPool.getCommonPoolParallelism());
+        chunks = Math.max(chunks, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+        return (int) Math.max(1, chunks);
+    }
+
+    static Mesh read(FileChannel channel, int chunkCount) throws IOException {
+        long[] bounds = split(channel, chunkCount);
+        int chunks = bounds.length - 1;
+        // общая арена: куски читаются из потоков пула
+        try (Arena arena = Arena.ofShared()) {
+            ByteBuffer[] mapped = new ByteBuffer[chunks];
+            for (int i = 0; i < chunks; i++) {
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i], arena)
+                        .asByteBuffer();
+            }
+            return parseChunks(mapped);
+        }
+    }
+
+    private static Mesh parseChunks(ByteBuffer[] mapped) {
+        int chunks = mapped.length;
+
+        // Проход 1: строки и элементы в каждом куске
+        ObjParser[] counters = new ObjParser[chunks];
+        int[] lines = new int[chunks];
+        IntStream.range(0, chunks).parallel().forEach(i -> {
+            counters[i] = ObjParser.counter();
+            lines[i] = parse(counters[i], mapped[i], 0, i == 0);
+        });
+
+        // Префиксные суммы: что объявлено до начала каждого куска
+        int[] lineBase = new int[chunks];
+        int[] vertexBase = new int[chunks];
+        int[] textureBase = new int[chunks];
+        int[] normalBase = new int[chunks];
+        for (int i = 1; i < chunks; i++) {
+            lineBase[i] = Math.addExact(lineBase[i - 1], lines[i - 1]);
+            vertexBase[i] = Math.addExact(vertexBase[i - 1], counters[i - 1].vertexLines);
+            textureBase[i] = Math.addExact(textureBase[i - 1], counters[i - 1].textureLines);
+            normalBase[i] = Math.addExact(normalBase[i - 1], counters[i - 1].normalLines);
+        }
+
+        // Проход 2: разбор кусков; при ошибках побеждает самая ранняя по файлу
+        Mesh[] parts = new Mesh[chunks];
+        ObjReaderException[] errors = new ObjReaderException[chunks];
+        IntStream.range(0, chunks).parallel().forEach(i -> {
+            Mesh part = new Mesh();
+            part.ensureVertexCapacity(counters[i].vertexLines);
+            try {
+                parse(new ObjParser(part, vertexBase[i], textureBase[i], normalBase[i]), mapped[i], lineBase[i], i == 0);
+                parts[i] = part;
+            } catch (ObjReaderException e) {
+                errors[i] = e;
+            }
+        });
+        for (ObjReaderException error : errors) {
+            if (error != null) throw error;
+        }
+        return Mesh.concat(Arrays.asList(parts));
+    }
+
+    private static int parse(ObjParser parser, ByteBuffer chunk, int line, boolean fileStart) {
+        try {
+            return parser.parse(new BufferInput(chunk), ObjParser.BUFFER_SIZE, line, fileStart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // чтение из памяти не бросает
+        }
+    }
+
+    /**
+     * Границы кусков: bounds[i] — начало строки, bounds[last] — размер файла.
+     * Пустые куски (строка длиннее куска) отбрасываются.
+     */
+    static long[] split(FileChannel channel, int chunkCount) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>(chunkCount + 1);
+        bounds.add(0L);
+        for (int i = 1; i < chunkCount; i++) {
+            long previous = bounds.get(bounds.size() - 1);
+            long nominal = size * i / chunkCount;
+            if (nominal <= previous) continue;
+            long start = lineStart(channel, nominal, size);
+            if (start < size) bounds.add(start);
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /** Начало первой строки после позиции from (пара \r\n не разрывается) */
+    private static long lineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long pos = from;
+        boolean afterCarriageReturn = false;
+        while (pos < size) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                byte b = probe.get(i);
+                if (afterCarriageReturn) return b == '\n' ? pos + i + 1 : pos + i;
+                if (b == '\n') return pos + i + 1;
+                if (b == '\r') afterCarriageReturn = true;
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    /** Поток поверх буфера (своя позиция, сам буфер не меняется) */
+    private static final class BufferInput extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInput(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -2,6 +2,7 @@ module com.cgvsu {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.desktop;
+    requires java.management;
 
     // Экспортируем все пакеты, которые используются в FXML
     exports com.cgvsu;
@@ -0,0 +1,62 @@
+package com.cgvsu;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailBatchTest {
+
+    private static final String CUBE = String.join("\n",
+            "v -1 -1 -1", "v 1 -1 -1", "v 1 1 -1", "v -1 1 -1",
+            "v -1 -1 1", "v 1 -1 1", "v 1 1 1", "v -1 1 1",
+            "f 5 6 7 8", "f 2 1 4 3", "f 6 2 3 7",
+            "f 1 5 8 4", "f 8 7 3 4", "f 1 2 6 5", "");
+
+    @Test
+    void testWritesThumbnailPerModelKeepingDirectories(@TempDir Path dir) throws Exception {
+        Path input = dir.resolve("in");
+        Files.createDirectories(input.resolve("sub"));
+        Files.writeString(input.resolve("a.obj"), CUBE);
+        Files.writeString(input.resolve("sub").resolve("b.OBJ"), CUBE);
+        Files.writeString(input.resolve("broken.obj"), "f 1 2 3\n");
+        Files.writeString(input.resolve("notes.txt"), "not a model");
+
+        ThumbnailBatch batch = new ThumbnailBatch(dir.resolve("out"), 32, 24, 2);
+        ThumbnailBatch.Report report = batch.run(input);
+
+        assertEquals(2, report.getModels());
+        assertEquals(1, report.getFailed());
+        assertEquals(24, report.getTriangles());
+        assertTrue(report.getPeakHeapBytes() > 0);
+
+        BufferedImage image = ImageIO.read(dir.resolve("out").resolve("sub").resolve("b.png").toFile());
+        assertEquals(32, image.getWidth());
+        assertEquals(24, image.getHeight());
+        // модель в центре кадра, по краям фон
+        assertNotEquals(image.getRGB(0, 0), image.getRGB(16, 12));
+        assertTrue(Files.exists(dir.resolve("out").resolve("a.png")));
+    }
+
+    @Test
+    void testRejectsInvalidParameters(@TempDir Path dir) {
+        assertThrows(IllegalArgumentException.class, () -> new ThumbnailBatch(dir, 0, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ThumbnailBatch(dir, 10, 10, 0));
+    }
+
+    @Test
+    void testRejectsMalformedCommandLineOptions(@TempDir Path dir) {
+        for (String[] options : new String[][]{
+                {"--size"}, {"--threads"}, {"--size", "256"}, {"--size", "axb"},
+                {"--size", "32x"}, {"--threads", "two"}, {"--threads", "0"}, {"--verbose"}}) {
+            assertThrows(IllegalArgumentException.class, () -> ThumbnailBatch.fromArgs(dir, options, 0),
+                    String.join(" ", options));
+        }
+        assertNotNull(ThumbnailBatch.fromArgs(dir, new String[]{"--size", "32X24", "--threads", "2", "--cull-back-faces"}, 0));
+    }
+}
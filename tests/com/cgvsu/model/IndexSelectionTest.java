@@ -0,0 +1,102 @@
+package com.cgvsu.model;
+
+import com.cgvsu.utils.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexSelectionTest {
+
+    @Test
+    void testLargeRangeStaysCompact() {
+        IndexSelection selection = IndexSelection.range(0, 2_000_000);
+
+        assertEquals(2_000_001, selection.size());
+        assertTrue(selection.contains(1_234_567));
+        assertFalse(selection.contains(2_000_001));
+        assertEquals(2_000_000, selection.last());
+        assertTrue(selection.estimateBytes() < 1024);
+        assertEquals("0-2000000", selection.toString());
+    }
+
+    @Test
+    void testRangesMergeAndIterateInOrder() {
+        IndexSelection selection = new IndexSelection();
+        selection.add(10);
+        selection.addRange(3, 5);
+        selection.addRange(6, 8);       // касается 3-5 — сливается
+        selection.add(65_535);
+        selection.add(65_536);          // продолжение через границу блока
+        selection.add(9);               // 3-8 и 10 сливаются в 3-10
+
+        assertEquals("3-10,65535-65536", selection.toString());
+        assertEquals(10, selection.size());
+        assertEquals(3, selection.first());
+        assertEquals(65_535, selection.next(11));
+        assertEquals(-1, selection.next(65_537));
+    }
+
+    @Test
+    void testIterationEndsAfterMaxIndex() {
+        IndexSelection selection = new IndexSelection();
+        selection.add(7);
+        selection.add(Integer.MAX_VALUE);
+
+        List<Integer> visited = new ArrayList<>();
+        for (int i = selection.first(); i >= 0 && visited.size() < 3; i = selection.next(i + 1)) visited.add(i);
+
+        assertEquals(List.of(7, Integer.MAX_VALUE), visited);
+        assertEquals(Integer.MAX_VALUE, selection.last());
+        assertEquals(-1, selection.next(Integer.MIN_VALUE));
+    }
+
+    @Test
+    void testScatteredIndicesSwitchToBitmap() {
+        IndexSelection selection = new IndexSelection();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 200_000; i += 3) {
+            selection.add(i);
+            expected.set(i);
+        }
+        selection.addRange(100, 400);
+        expected.set(100, 401);
+
+        assertEquals(expected.cardinality(), selection.size());
+        assertEquals(expected, selection.toBitSet(Integer.MAX_VALUE));
+        // не больше ~1 бита на индекс диапазона
+        assertTrue(selection.estimateBytes() < 200_000 / 8 + 8 * 1024);
+    }
+
+    @Test
+    void testRejectsNegativeAndReversedRanges() {
+        IndexSelection selection = new IndexSelection();
+        assertThrows(IllegalArgumentException.class, () -> selection.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> selection.addRange(5, 4));
+    }
+
+    @Test
+    void testModelDeletesSelection() {
+        Model model = new Model();
+        ArrayList<Vector3f> vertices = new ArrayList<>();
+        for (int i = 0; i < 6; i++) vertices.add(new Vector3f(i, 0, 0));
+        model.setVertices(vertices);
+        ArrayList<Polygon> polygons = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            polygons.add(Polygon.builder().setVertexIndices(List.of(i, i + 1, i + 2)).build());
+        }
+        model.setPolygons(polygons);
+
+        assertEquals(2, model.deletePolygons(IndexSelection.range(1, 2)));
+        assertEquals(2, model.getPolygons().size());
+
+        IndexSelection vertexSelection = IndexSelection.range(5, 100); // за пределами — пропускаются
+        assertEquals(1, model.deleteVertices(vertexSelection));
+        assertEquals(5, model.getVertices().size());
+        assertEquals(List.of(0, 1, 2), model.getPolygons().get(0).getVertexIndices());
+        assertEquals(1, model.getPolygons().size());
+    }
+}
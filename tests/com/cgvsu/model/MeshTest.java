@@ -0,0 +1,162 @@
+package com.cgvsu.model;
+
+import com.cgvsu.utils.math.Vector2f;
+import com.cgvsu.utils.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeshTest {
+
+    private static Polygon polygon(Integer... vertices) {
+        return Polygon.builder().setVertexIndices(List.of(vertices)).build();
+    }
+
+    @Test
+    void testPolygonsAreStoredInCsrArrays() {
+        Mesh mesh = new Mesh();
+        mesh.addPolygon(polygon(0, 1, 2));
+        mesh.addPolygon(Polygon.builder()
+                .setVertexIndices(List.of(2, 3, 4, 5))
+                .setTextureVertexIndices(List.of(7, 8, 9, 10))
+                .build());
+
+        assertEquals(2, mesh.getPolygonCount());
+        assertEquals(7, mesh.getCornerCount());
+        assertEquals(3, mesh.getVertexOffsets()[1]);
+        assertEquals(7, mesh.getVertexOffsets()[2]);
+        assertEquals(4, mesh.getVertexIndices()[5]);
+        // у первого полигона текстурных индексов нет
+        assertEquals(0, mesh.getTextureOffsets()[1]);
+        assertEquals(List.of(7, 8, 9, 10), mesh.getPolygon(1).getTextureVertexIndices());
+    }
+
+    @Test
+    void testRemovePolygonsCompactsInOnePass() {
+        Mesh mesh = new Mesh();
+        for (int i = 0; i < 5; i++) mesh.addPolygon(polygon(i, i + 1, i + 2));
+        long topology = mesh.getTopologyVersion();
+
+        BitSet removed = new BitSet();
+        removed.set(1);
+        removed.set(3);
+        removed.set(10); // за пределами — игнорируется
+        assertEquals(2, mesh.removePolygons(removed));
+
+        assertEquals(3, mesh.getPolygonCount());
+        assertEquals(List.of(2, 3, 4), mesh.getPolygon(1).getVertexIndices());
+        assertEquals(List.of(4, 5, 6), mesh.getPolygon(2).getVertexIndices());
+        assertNotEquals(topology, mesh.getTopologyVersion());
+    }
+
+    @Test
+    void testRemoveVerticesRemapsAndDropsPolygons() {
+        Mesh mesh = new Mesh();
+        for (int i = 0; i < 6; i++) mesh.addVertex(i, 10 * i, 0);
+        mesh.addPolygon(polygon(0, 1, 2));
+        mesh.addPolygon(polygon(2, 3, 5));
+        mesh.addPolygon(polygon(3, 4, 5));
+
+        BitSet removed = new BitSet();
+        removed.set(1);
+        removed.set(4);
+        assertEquals(2, mesh.removeVertices(removed));
+
+        assertEquals(4, mesh.getVertexCount());
+        assertEquals(5, mesh.getPositions()[3 * 3]);   // бывшая вершина 5
+        assertEquals(1, mesh.getPolygonCount());
+        assertEquals(List.of(1, 2, 3), mesh.getPolygon(0).getVertexIndices());
+    }
+
+    @Test
+    void testRemoveVerticesOnLargeMeshMatchesPerPolygonCheck() {
+        int side = 300;   // 90 000 вершин, ~180 000 треугольников — параллельная перенумерация
+        Mesh mesh = new Mesh();
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) mesh.addVertex(x, y, 0);
+        }
+        int[] triangle = new int[3];
+        for (int y = 0; y + 1 < side; y++) {
+            for (int x = 0; x + 1 < side; x++) {
+                int v = y * side + x;
+                triangle[0] = v;
+                triangle[1] = v + 1;
+                triangle[2] = v + side;
+                mesh.addPolygon(triangle, 3, null, 0, null, 0);
+                triangle[0] = v + 1;
+                triangle[1] = v + side + 1;
+                triangle[2] = v + side;
+                mesh.addPolygon(triangle, 3, null, 0, null, 0);
+            }
+        }
+
+        BitSet removed = new BitSet();
+        for (int v = 0; v < side * side; v += 7) removed.set(v);
+
+        int expectedPolygons = 0;
+        for (int p = 0; p < mesh.getPolygonCount(); p++) {
+            boolean keep = true;
+            for (int i = 3 * p; i < 3 * p + 3; i++) keep &= !removed.get(mesh.getVertexIndices()[i]);
+            if (keep) expectedPolygons++;
+        }
+
+        assertEquals(removed.cardinality(), mesh.removeVertices(removed));
+        assertEquals(side * side - removed.cardinality(), mesh.getVertexCount());
+        assertEquals(expectedPolygons, mesh.getPolygonCount());
+
+        float[] positions = mesh.getPositions();
+        for (int i = 0; i < mesh.getCornerCount(); i++) {
+            int v = mesh.getVertexIndices()[i];
+            assertTrue(v >= 0 && v < mesh.getVertexCount());
+            int original = (int) (positions[3 * v + 1] * side + positions[3 * v]);
+            assertFalse(removed.get(original));
+        }
+    }
+
+    @Test
+    void testModelViewsWriteThroughToMesh() {
+        Model model = new Model();
+        model.getVertices().add(new Vector3f(1, 2, 3));
+        model.getVertices().add(new Vector3f(4, 5, 6));
+        model.getTextureVertices().add(new Vector2f(0.25f, 0.75f));
+        model.getPolygons().add(polygon(0, 1, 0));
+
+        Mesh mesh = model.getMesh();
+        assertEquals(2, mesh.getVertexCount());
+        assertEquals(5, mesh.getPositions()[4]);
+        assertEquals(0.75f, mesh.getTextureCoords()[1]);
+
+        long version = model.getGeometryVersion();
+        long topology = mesh.getTopologyVersion();
+        model.getVertices().set(0, new Vector3f(7, 8, 9));
+        assertEquals(7, mesh.getPositions()[0]);
+        assertNotEquals(version, model.getGeometryVersion());
+        assertEquals(topology, mesh.getTopologyVersion()); // координаты — не топология
+
+        model.getPolygons().set(0, polygon(1, 0, 1, 0));
+        assertEquals(4, mesh.getPolygonSize(0));
+        assertNotEquals(topology, mesh.getTopologyVersion());
+    }
+
+    @Test
+    void testCompactStorageSize() {
+        Mesh mesh = new Mesh();
+        int n = 1000;
+        for (int i = 0; i < n; i++) mesh.addVertex(i, i, i);
+        int[] triangle = new int[3];
+        for (int i = 0; i + 2 < n; i++) {
+            triangle[0] = i;
+            triangle[1] = i + 1;
+            triangle[2] = i + 2;
+            mesh.addPolygon(triangle, 3, null, 0, null, 0);
+        }
+        mesh.trimToSize();
+
+        // 12 байт на вершину, 12 байт индексов и 3 смещения на треугольник
+        long expected = 12L * n + (12L + 12) * (n - 2) + 12;
+        assertEquals(expected, mesh.estimateBytes());
+    }
+}
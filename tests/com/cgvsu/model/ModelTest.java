@@ -234,4 +234,32 @@ class ModelTest {
         model.setLightingEnabled(true);
         assertTrue(model.isLightingEnabled());
     }
+
+    @Test
+    void testGeometryVersionChangesOnlyOnActualEdit() {
+        long before = model.getGeometryVersion();
+
+        assertEquals(0, model.deletePolygons(List.of(10)));
+        assertEquals(before, model.getGeometryVersion());
+
+        model.deletePolygon(0);
+        long afterDelete = model.getGeometryVersion();
+        assertNotEquals(before, afterDelete);
+
+        model.deleteVertex(3);
+        assertNotEquals(afterDelete, model.getGeometryVersion());
+    }
+
+    @Test
+    void testAppearanceVersionIsSeparateFromGeometry() {
+        long geometry = model.getGeometryVersion();
+        long appearance = model.getAppearanceVersion();
+
+        model.setLightingEnabled(model.isLightingEnabled()); // без изменения
+        assertEquals(appearance, model.getAppearanceVersion());
+
+        model.setLightingEnabled(!model.isLightingEnabled());
+        assertNotEquals(appearance, model.getAppearanceVersion());
+        assertEquals(geometry, model.getGeometryVersion());
+    }
 }
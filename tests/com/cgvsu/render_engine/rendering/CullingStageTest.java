@@ -0,0 +1,91 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.utils.ProjectedVertices;
+import com.cgvsu.render_engine.utils.Rasterizer;
+import com.cgvsu.render_engine.utils.VertexProjector;
+import com.cgvsu.utils.math.Matrix4f;
+import com.cgvsu.utils.math.Vector3f;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CullingStageTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+
+    private static final float[] NO_UV = new float[6];
+
+    private static Matrix4f mvp(Vector3f eye) {
+        Camera camera = TestScenes.camera(eye, WIDTH, HEIGHT);
+        return camera.getProjectionMatrix().multiply(camera.getViewMatrix());
+    }
+
+    private static int[] render(Model model, ProjectedVertices projected, CullingStage culling) {
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        ZBuffer zBuffer = new ZBuffer(WIDTH, HEIGHT);
+        TileRasterizer tiles = new TileRasterizer();
+        tiles.begin(projected, WIDTH, HEIGHT);
+
+        int[] indices = new int[3];
+        for (Polygon polygon : model.getPolygons()) {
+            for (int i = 0; i < 3; i++) indices[i] = polygon.getVertexIndices().get(i);
+            if (!culling.accept(projected, indices, 3)) continue;
+            tiles.addTriangle(indices[0], indices[1], indices[2], NO_UV, 0);
+        }
+        tiles.rasterize(zBuffer, frame, new Rasterizer.Shading(null, null, Color.RED, false), null);
+        return frame.getPixels();
+    }
+
+    @Test
+    void testBackFaceCullingKeepsImageAndHalvesClosedMesh() {
+        Model cube = TestScenes.cube(true);
+        ProjectedVertices projected = new ProjectedVertices();
+        VertexProjector.projectVertices(cube, mvp(new Vector3f(3, 2, 4)), WIDTH, HEIGHT, projected);
+
+        CullingStage none = new CullingStage();
+        none.begin(false, false);
+        int[] expected = render(cube, projected, none).clone();
+
+        CullingStage culling = new CullingStage();
+        culling.begin(true, true);
+        int[] culled = render(cube, projected, culling);
+
+        assertArrayEquals(expected, culled);
+        assertEquals(6, culling.getCulledBackFaces()); // три дальние грани куба
+        assertEquals(6, culling.getSurviving());
+        assertEquals(0, culling.getCulledOutsideFrustum());
+    }
+
+    @Test
+    void testMeshBehindCameraIsCulledByFrustum() {
+        Model cube = TestScenes.cube(true);
+        ProjectedVertices projected = new ProjectedVertices();
+        // камера смотрит от куба: он целиком за ближней плоскостью
+        Camera camera = new Camera("test", new Vector3f(0, 0, 10), new Vector3f(0, 0, 20),
+                1.0f, (float) WIDTH / HEIGHT, 0.1f, 100f);
+        VertexProjector.projectVertices(cube,
+                camera.getProjectionMatrix().multiply(camera.getViewMatrix()), WIDTH, HEIGHT, projected);
+
+        CullingStage culling = new CullingStage();
+        culling.begin(true, true);
+        render(cube, projected, culling);
+
+        assertEquals(12, culling.getCulledOutsideFrustum());
+        assertEquals(0, culling.getSurviving());
+    }
+
+    @Test
+    void testOutcodesMarkPlanes() {
+        assertEquals(0, ProjectedVertices.computeOutcode(0, 0, 0, 1));
+        assertEquals(ProjectedVertices.OUT_LEFT | ProjectedVertices.OUT_TOP,
+                ProjectedVertices.computeOutcode(-2, 2, 0, 1));
+        assertEquals(ProjectedVertices.OUT_NEAR, ProjectedVertices.computeOutcode(0, 0, -2, 1));
+    }
+}
@@ -0,0 +1,53 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.utils.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeListTest {
+
+    /** Квадрат из двух треугольников с общей диагональю */
+    private static Model quad() {
+        Model model = new Model();
+        model.setVertices(new ArrayList<>(List.of(
+                new Vector3f(0, 0, 0), new Vector3f(1, 0, 0),
+                new Vector3f(1, 1, 0), new Vector3f(0, 1, 0)
+        )));
+        model.setPolygons(new ArrayList<>(List.of(
+                Polygon.builder().setVertexIndices(List.of(0, 1, 2)).build(),
+                Polygon.builder().setVertexIndices(List.of(0, 2, 3)).build()
+        )));
+        return model;
+    }
+
+    @Test
+    void testSharedEdgesAreStoredOnce() {
+        EdgeList edges = new EdgeList();
+        edges.update(quad());
+
+        assertEquals(5, edges.getEdgeCount());
+        int[] e = edges.getEdges();
+        for (int i = 0; i < edges.getEdgeCount(); i++) {
+            assertTrue(e[2 * i] < e[2 * i + 1]);
+        }
+    }
+
+    @Test
+    void testRebuildsOnlyWhenTopologyChanges() {
+        Model model = quad();
+        EdgeList edges = new EdgeList();
+
+        assertTrue(edges.update(model));
+        assertFalse(edges.update(model));
+
+        model.deletePolygon(1);
+        assertTrue(edges.update(model));
+        assertEquals(3, edges.getEdgeCount());
+    }
+}
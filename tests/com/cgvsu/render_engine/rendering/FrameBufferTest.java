@@ -0,0 +1,60 @@
+package com.cgvsu.render_engine.rendering;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameBufferTest {
+
+    @Test
+    void testWrapsExternalArray() {
+        int[] pixels = new int[4 * 3];
+        FrameBuffer frame = new FrameBuffer(4, 3, pixels);
+
+        frame.setArgb(2, 1, 0xFF112233);
+
+        assertSame(pixels, frame.getPixels());
+        assertEquals(0xFF112233, pixels[1 * 4 + 2]);
+        // содержимое чужого массива неизвестно — весь кадр считается изменённым
+        assertFalse(frame.isDirtyEmpty());
+        assertEquals(3, frame.getDirtyMaxX());
+        assertEquals(2, frame.getDirtyMaxY());
+    }
+
+    @Test
+    void testRejectsTooSmallArray() {
+        assertThrows(IllegalArgumentException.class, () -> new FrameBuffer(4, 3, new int[11]));
+    }
+
+    @Test
+    void testDirtyRegionIsUnionClampedToFrame() {
+        FrameBuffer frame = new FrameBuffer(10, 8);
+        assertTrue(frame.isDirtyEmpty());
+
+        frame.markDirty(2, 3, 4, 5);
+        frame.markDirty(-5, 4, 1, 100);
+
+        assertEquals(0, frame.getDirtyMinX());
+        assertEquals(3, frame.getDirtyMinY());
+        assertEquals(4, frame.getDirtyMaxX());
+        assertEquals(7, frame.getDirtyMaxY());
+
+        frame.markDirty(20, 20, 30, 30); // целиком за кадром
+        assertEquals(4, frame.getDirtyMaxX());
+    }
+
+    @Test
+    void testClearDirtyErasesOnlyDirtyRegion() {
+        FrameBuffer frame = new FrameBuffer(6, 4);
+        frame.clear(0xFF0000FF);
+        frame.markDirty(1, 1, 2, 2);
+
+        frame.clearDirty(0);
+
+        assertEquals(0, frame.getArgb(1, 1));
+        assertEquals(0, frame.getArgb(2, 2));
+        assertEquals(0xFF0000FF, frame.getArgb(3, 1));
+        assertEquals(0xFF0000FF, frame.getArgb(0, 0));
+        assertTrue(frame.isDirtyEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.render_engine.utils.ProjectedVertices;
+import com.cgvsu.render_engine.utils.Rasterizer;
+import com.cgvsu.render_engine.utils.TextureSampler;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FramePresenterTest {
+
+    private static final int SIZE = 32;
+
+    /** Полупрозрачная текстура 2x2 одного цвета */
+    private static final int TEXEL = 0x80FF4020;
+
+    /** Квадрат на весь кадр из двух треугольников */
+    private static void drawQuad(FrameBuffer frame, Rasterizer.Shading shading) {
+        ProjectedVertices pv = new ProjectedVertices();
+        pv.reset(4);
+        float[][] corners = {{0, 0}, {SIZE, 0}, {SIZE, SIZE}, {0, SIZE}};
+        for (int i = 0; i < 4; i++) {
+            pv.screenX[i] = corners[i][0];
+            pv.screenY[i] = corners[i][1];
+            pv.depth[i] = 0.5f;
+            pv.invW[i] = 1;
+            pv.normalZ[i] = 1;
+            pv.valid[i] = true;
+        }
+        float[] uv = {0, 0, 1, 0, 1, 1, 0, 0, 1, 1, 0, 1};
+        TileRasterizer tiles = new TileRasterizer();
+        tiles.begin(pv, SIZE, SIZE);
+        tiles.addTriangle(0, 1, 2, uv, 0);
+        tiles.addTriangle(0, 2, 3, uv, 6);
+        tiles.rasterize(new ZBuffer(SIZE, SIZE), frame, shading, null);
+    }
+
+    @Test
+    void testHalfTransparentTextureIsPremultipliedForPixelBuffer() {
+        TextureSampler texture = TextureSampler.fromArgb(2, 2, new int[]{TEXEL, TEXEL, TEXEL, TEXEL});
+        Rasterizer.Shading shading = new Rasterizer.Shading(texture, null, Color.GRAY, false, false, false);
+
+        FrameBuffer presented = FramePresenter.createFrame(SIZE, SIZE, new int[SIZE * SIZE]);
+        drawQuad(presented, shading);
+        FrameBuffer straight = new FrameBuffer(SIZE, SIZE);
+        drawQuad(straight, shading);
+
+        assertEquals(0x80802010, presented.getArgb(SIZE / 2, SIZE / 2));
+        for (int argb : presented.getPixels()) {
+            int a = argb >>> 24;
+            assertTrue(((argb >> 16) & 0xFF) <= a && ((argb >> 8) & 0xFF) <= a && (argb & 0xFF) <= a,
+                    "канал больше альфы: " + Integer.toHexString(argb));
+        }
+        // буфер без premultiplied (рендер без экрана) хранит цвет как есть
+        assertEquals(TEXEL, straight.getArgb(SIZE / 2, SIZE / 2));
+    }
+
+    @Test
+    void testTranslucentBaseColorIsPremultiplied() {
+        Rasterizer.Shading shading = new Rasterizer.Shading(
+                (TextureSampler) null, null, Color.rgb(200, 100, 50, 0.5), false, false, false);
+        FrameBuffer presented = FramePresenter.createFrame(SIZE, SIZE, new int[SIZE * SIZE]);
+        drawQuad(presented, shading);
+
+        int expected = Rasterizer.premultiply(Rasterizer.toArgb(Color.rgb(200, 100, 50, 0.5)));
+        assertTrue(Arrays.stream(presented.getPixels()).allMatch(argb -> argb == expected));
+        assertEquals(0x80643219, expected);
+    }
+}
@@ -0,0 +1,74 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.transform.Transform;
+import com.cgvsu.utils.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffscreenRendererTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    private static Camera camera() {
+        return TestScenes.camera(new Vector3f(0, 0, 8), WIDTH, HEIGHT);
+    }
+
+    private static RenderSettings settings() {
+        RenderSettings settings = new RenderSettings();
+        settings.setRenderThreads(1);
+        return settings;
+    }
+
+    @Test
+    void testRejectsEmptySize() {
+        assertThrows(IllegalArgumentException.class, () -> new OffscreenRenderer(0, 10));
+    }
+
+    @Test
+    void testRendersToArgbArrayAndImage() {
+        OffscreenRenderer renderer = new OffscreenRenderer(WIDTH, HEIGHT);
+        Model model = TestScenes.cube(false);
+
+        int[] argb = renderer.render(model, camera(), new Transform(), settings());
+        assertEquals(WIDTH * HEIGHT, argb.length);
+        assertNotEquals(0, argb[(HEIGHT / 2) * WIDTH + WIDTH / 2]);
+        assertEquals(0, argb[0]);
+
+        renderer.setBackground(0xFF202020);
+        BufferedImage image = renderer.renderImage(model, camera(), new Transform(), settings());
+        assertEquals(BufferedImage.TYPE_INT_ARGB, image.getType());
+        assertEquals(argb[(HEIGHT / 2) * WIDTH + WIDTH / 2], image.getRGB(WIDTH / 2, HEIGHT / 2));
+        assertEquals(0xFF202020, image.getRGB(0, 0));
+    }
+
+    @Test
+    void testRendersConcurrentlyWithSharedModel() throws Exception {
+        Model model = TestScenes.cube(false);
+        int[] expected = new OffscreenRenderer(WIDTH, HEIGHT).render(model, camera(), new Transform(), settings());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> frames = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                frames.add(pool.submit(() -> new OffscreenRenderer(WIDTH, HEIGHT)
+                        .render(model, camera(), new Transform(), settings())));
+            }
+            for (Future<int[]> frame : frames) {
+                assertArrayEquals(expected, frame.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
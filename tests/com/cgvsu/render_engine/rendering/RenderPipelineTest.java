@@ -0,0 +1,205 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.transform.Transform;
+import com.cgvsu.utils.math.Vector3f;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderPipelineTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+
+    private static Transform at(float x, float y, float z, float scale) {
+        Transform transform = new Transform();
+        transform.translateX = x;
+        transform.translateY = y;
+        transform.translateZ = z;
+        transform.scaleX = transform.scaleY = transform.scaleZ = scale;
+        return transform;
+    }
+
+    private static Camera camera() {
+        return TestScenes.camera(new Vector3f(0, 0, 20), WIDTH, HEIGHT);
+    }
+
+    @Test
+    void testAllModelsAreCompositedIntoOneFrame() {
+        RenderPipeline pipeline = new RenderPipeline();
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+
+        pipeline.render(frame, camera(), List.of(
+                new RenderItem(TestScenes.cube(false), at(-4, 0, 0, 1)),
+                new RenderItem(TestScenes.cube(false), at(4, 0, 0, 1))
+        ), new RenderSettings());
+
+        assertEquals(2, pipeline.getVisibleModels());
+        int cx = WIDTH / 2, cy = HEIGHT / 2;
+        assertEquals(0, frame.getArgb(cx, cy));            // между кубами пусто
+        assertNotEquals(0, frame.getArgb(cx - 27, cy));    // левый куб
+        assertNotEquals(0, frame.getArgb(cx + 27, cy));    // правый куб
+    }
+
+    @Test
+    void testModelsShareDepthBuffer() {
+        RenderPipeline pipeline = new RenderPipeline();
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        RenderSettings settings = new RenderSettings();
+        settings.setUseLighting(true);
+
+        Model near = TestScenes.cube(false);
+        near.setBaseColor(Color.RED);
+        Model far = TestScenes.cube(false);
+        far.setBaseColor(Color.BLUE);
+
+        // дальний куб больше и перекрывает ближний на экране, но проигрывает по глубине
+        for (List<RenderItem> order : List.of(
+                List.of(new RenderItem(near, at(0, 0, 0, 1)), new RenderItem(far, at(0, 0, -10, 3))),
+                List.of(new RenderItem(far, at(0, 0, -10, 3)), new RenderItem(near, at(0, 0, 0, 1))))) {
+            pipeline.render(frame, camera(), order, settings);
+
+            int center = frame.getArgb(WIDTH / 2, HEIGHT / 2);
+            assertTrue(((center >> 16) & 0xFF) > (center & 0xFF), "в центре должен быть ближний (красный) куб");
+        }
+    }
+
+    @Test
+    void testModelOutsideFrustumIsCulledAsWhole() {
+        RenderPipeline pipeline = new RenderPipeline();
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+
+        pipeline.render(frame, camera(), List.of(
+                new RenderItem(TestScenes.cube(false), at(0, 0, 0, 1)),
+                new RenderItem(TestScenes.cube(false), at(0, 0, 40, 1))   // за камерой
+        ), new RenderSettings());
+
+        assertEquals(1, pipeline.getVisibleModels());
+        assertEquals(1, pipeline.getCulledModels());
+    }
+
+    @Test
+    void testNoWholeModelCullingWhenFrustumCullingIsOff() {
+        RenderPipeline pipeline = new RenderPipeline();
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        RenderSettings settings = new RenderSettings();
+        settings.setFrustumCulling(false);
+
+        pipeline.render(frame, camera(), List.of(
+                new RenderItem(TestScenes.cube(false), at(0, 0, 0, 1)),
+                new RenderItem(TestScenes.cube(false), at(30, 0, 0, 1))   // вне кадра сбоку
+        ), settings);
+
+        assertEquals(0, pipeline.getCulledModels());
+        assertNotEquals(0, frame.getArgb(WIDTH / 2, HEIGHT / 2));
+    }
+
+    @Test
+    void testNextFrameErasesPreviousDrawing() {
+        RenderPipeline pipeline = new RenderPipeline();
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        Model model = TestScenes.cube(false);
+
+        pipeline.render(frame, camera(), List.of(new RenderItem(model, at(-4, 0, 0, 1))), new RenderSettings());
+        assertNotEquals(0, frame.getArgb(WIDTH / 2 - 27, HEIGHT / 2));
+
+        pipeline.render(frame, camera(), List.of(new RenderItem(model, at(4, 0, 0, 1))), new RenderSettings());
+        assertEquals(0, frame.getArgb(WIDTH / 2 - 27, HEIGHT / 2));
+        assertNotEquals(0, frame.getArgb(WIDTH / 2 + 27, HEIGHT / 2));
+    }
+
+    @Test
+    void testCacheReleasesUnreachableModel() throws InterruptedException {
+        RenderPipeline pipeline = new RenderPipeline();
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        RenderSettings settings = new RenderSettings();
+        settings.setWireframe(true);
+
+        Model model = TestScenes.cube(false);
+        pipeline.render(frame, camera(), List.of(new RenderItem(model, at(0, 0, 0, 1))), settings);
+        assertEquals(1, pipeline.getCachedModelCount());
+
+        WeakReference<Model> reference = new WeakReference<>(model);
+        model = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get(), "кэш конвейера не должен удерживать модель");
+        assertEquals(0, pipeline.getCachedModelCount());
+    }
+
+    @Test
+    void testBackFaceCullingIsOptIn() {
+        Model front = new Model();
+        Model back = new Model();
+        for (Model model : List.of(front, back)) {
+            model.setVertices(new ArrayList<>(List.of(
+                    new Vector3f(-1, -1, 0), new Vector3f(1, -1, 0),
+                    new Vector3f(1, 1, 0), new Vector3f(-1, 1, 0))));
+        }
+        front.setPolygons(new ArrayList<>(List.of(Polygon.builder().setVertexIndices(List.of(0, 1, 2, 3)).build())));
+        back.setPolygons(new ArrayList<>(List.of(Polygon.builder().setVertexIndices(List.of(3, 2, 1, 0)).build())));
+
+        RenderPipeline pipeline = new RenderPipeline();
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        RenderSettings settings = new RenderSettings();
+        assertFalse(settings.isBackFaceCulling());
+
+        int drawn = 0;
+        for (Model model : List.of(front, back)) {
+            pipeline.render(frame, camera(), List.of(new RenderItem(model, at(0, 0, 0, 1))), settings);
+            if (frame.getArgb(WIDTH / 2, HEIGHT / 2) != 0) drawn++;
+        }
+        assertEquals(2, drawn, "без отсечения видны обе стороны");
+
+        settings.setBackFaceCulling(true);
+        drawn = 0;
+        for (Model model : List.of(front, back)) {
+            pipeline.render(frame, camera(), List.of(new RenderItem(model, at(0, 0, 0, 1))), settings);
+            if (frame.getArgb(WIDTH / 2, HEIGHT / 2) != 0) drawn++;
+        }
+        assertEquals(1, drawn, "с отсечением видна только лицевая сторона");
+    }
+
+    @Test
+    void testOwnsAtMostOneRasterPool() {
+        RenderPipeline pipeline = new RenderPipeline();
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        RenderSettings settings = new RenderSettings();
+        List<RenderItem> items = List.of(new RenderItem(TestScenes.cube(false), at(0, 0, 0, 1)));
+
+        settings.setRenderThreads(3);
+        pipeline.render(frame, camera(), items, settings);
+        ForkJoinPool first = pipeline.getOwnedPool();
+        assertEquals(3, first.getParallelism());
+
+        settings.setRenderThreads(2);
+        pipeline.render(frame, camera(), items, settings);
+        assertTrue(first.isShutdown());
+        ForkJoinPool second = pipeline.getOwnedPool();
+        assertEquals(2, second.getParallelism());
+
+        // автоматический режим использует общий пул
+        settings.setRenderThreads(0);
+        pipeline.render(frame, camera(), items, settings);
+        assertTrue(second.isShutdown());
+        assertNull(pipeline.getOwnedPool());
+
+        settings.setRenderThreads(2);
+        pipeline.render(frame, camera(), items, settings);
+        ForkJoinPool third = pipeline.getOwnedPool();
+        pipeline.close();
+        assertTrue(third.isShutdown());
+        assertNull(pipeline.getOwnedPool());
+    }
+}
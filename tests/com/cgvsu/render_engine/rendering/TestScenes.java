@@ -0,0 +1,56 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.utils.math.Vector3f;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Общие тестовые сцены: куб и камера, смотрящая на начало координат */
+final class TestScenes {
+
+    private TestScenes() {
+    }
+
+    /**
+     * Куб со стороной 2 с центром в начале координат; грани обходятся против часовой стрелки
+     * при взгляде снаружи.
+     *
+     * @param triangulated разбить каждую грань на два треугольника вместо одного четырёхугольника
+     */
+    static Model cube(boolean triangulated) {
+        Model model = new Model();
+        model.setVertices(new ArrayList<>(List.of(
+                new Vector3f(-1, -1, -1), new Vector3f(1, -1, -1),
+                new Vector3f(1, 1, -1), new Vector3f(-1, 1, -1),
+                new Vector3f(-1, -1, 1), new Vector3f(1, -1, 1),
+                new Vector3f(1, 1, 1), new Vector3f(-1, 1, 1)
+        )));
+        int[][] faces = {
+                {4, 5, 6, 7}, // +z
+                {1, 0, 3, 2}, // -z
+                {5, 1, 2, 6}, // +x
+                {0, 4, 7, 3}, // -x
+                {7, 6, 2, 3}, // +y
+                {0, 1, 5, 4}  // -y
+        };
+        ArrayList<Polygon> polygons = new ArrayList<>();
+        for (int[] f : faces) {
+            if (triangulated) {
+                polygons.add(Polygon.builder().setVertexIndices(List.of(f[0], f[1], f[2])).build());
+                polygons.add(Polygon.builder().setVertexIndices(List.of(f[0], f[2], f[3])).build());
+            } else {
+                polygons.add(Polygon.builder().setVertexIndices(List.of(f[0], f[1], f[2], f[3])).build());
+            }
+        }
+        model.setPolygons(polygons);
+        return model;
+    }
+
+    static Camera camera(Vector3f eye, int width, int height) {
+        return new Camera("test", eye, new Vector3f(0, 0, 0),
+                1.0f, (float) width / height, 0.1f, 100f);
+    }
+}
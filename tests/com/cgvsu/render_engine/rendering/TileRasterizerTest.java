@@ -0,0 +1,102 @@
+package com.cgvsu.render_engine.rendering;
+
+import com.cgvsu.render_engine.utils.ProjectedVertices;
+import com.cgvsu.render_engine.utils.Rasterizer;
+import com.cgvsu.utils.math.Vector3f;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileRasterizerTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+
+    private static final float[] NO_UV = new float[6];
+
+    /** Случайные перекрывающиеся треугольники (по 3 вершины подряд), часть выходит за экран */
+    private static ProjectedVertices randomTriangles(int count) {
+        Random random = new Random(42);
+        ProjectedVertices vertices = new ProjectedVertices();
+        vertices.reset(count * 3);
+        for (int i = 0; i < count * 3; i++) {
+            float x = random.nextFloat() * (WIDTH + 80) - 40;
+            float y = random.nextFloat() * (HEIGHT + 80) - 40;
+            float z = random.nextFloat();
+            vertices.screenX[i] = x;
+            vertices.screenY[i] = y;
+            vertices.depth[i] = z;
+            vertices.invW[i] = 1;
+            vertices.posX[i] = x;
+            vertices.posY[i] = y;
+            vertices.posZ[i] = z;
+            vertices.normalZ[i] = 1;
+            vertices.valid[i] = true;
+        }
+        return vertices;
+    }
+
+    private static Rasterizer.Shading shading() {
+        return new Rasterizer.Shading(null, new Vector3f(150, 100, 200), Color.CORAL, true);
+    }
+
+    private static int[] render(ProjectedVertices vertices, int threads) {
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        ZBuffer zBuffer = new ZBuffer(WIDTH, HEIGHT);
+
+        TileRasterizer tiles = new TileRasterizer();
+        tiles.begin(vertices, WIDTH, HEIGHT);
+        for (int i = 0; i < vertices.size(); i += 3) tiles.addTriangle(i, i + 1, i + 2, NO_UV, 0);
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            tiles.rasterize(zBuffer, frame, shading(), pool);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        return frame.getPixels().clone();
+    }
+
+    @Test
+    void testParallelOutputMatchesSingleThreaded() {
+        ProjectedVertices vertices = randomTriangles(500);
+
+        int[] serial = render(vertices, 1);
+        int[] parallel = render(vertices, 4);
+
+        assertArrayEquals(serial, parallel);
+    }
+
+    @Test
+    void testTiledOutputMatchesWholeFrameRasterization() {
+        ProjectedVertices vertices = randomTriangles(200);
+
+        FrameBuffer frame = new FrameBuffer(WIDTH, HEIGHT);
+        ZBuffer zBuffer = new ZBuffer(WIDTH, HEIGHT);
+        Rasterizer.Shading shading = shading();
+        for (int i = 0; i < vertices.size(); i += 3) {
+            Rasterizer.rasterizeTriangle(vertices, i, i + 1, i + 2, NO_UV, 0,
+                    zBuffer, frame, shading, 0, 0, WIDTH - 1, HEIGHT - 1);
+        }
+
+        assertArrayEquals(frame.getPixels(), render(vertices, 3));
+    }
+
+    @Test
+    void testTrianglesOutsideScreenAreSkipped() {
+        ProjectedVertices vertices = new ProjectedVertices();
+        vertices.reset(3);
+        vertices.screenX[0] = -50; vertices.screenY[0] = -50;
+        vertices.screenX[1] = -10; vertices.screenY[1] = -50;
+        vertices.screenX[2] = -50; vertices.screenY[2] = -10;
+
+        TileRasterizer tiles = new TileRasterizer();
+        tiles.begin(vertices, WIDTH, HEIGHT);
+        tiles.addTriangle(0, 1, 2, NO_UV, 0);
+
+        assertEquals(0, tiles.getTriangleCount());
+    }
+}
@@ -0,0 +1,88 @@
+package com.cgvsu.render_engine.rendering;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZBufferTest {
+
+    @Test
+    void testNewBufferIsInfinitelyFar() {
+        ZBuffer zBuffer = new ZBuffer(4, 3);
+
+        assertEquals(4, zBuffer.getWidth());
+        assertEquals(3, zBuffer.getHeight());
+        assertEquals(Float.POSITIVE_INFINITY, zBuffer.get(3, 2));
+    }
+
+    @Test
+    void testKeepsNearestDepth() {
+        ZBuffer zBuffer = new ZBuffer(4, 3);
+
+        assertTrue(zBuffer.testAndSet(1, 2, 0.5f));
+        assertFalse(zBuffer.testAndSet(1, 2, 0.7f));
+        assertTrue(zBuffer.testAndSet(1, 2, 0.2f));
+        assertEquals(0.2f, zBuffer.get(1, 2));
+        assertEquals(Float.POSITIVE_INFINITY, zBuffer.get(2, 1)); // соседний пиксель не задет
+    }
+
+    @Test
+    void testClearResetsAllPixels() {
+        ZBuffer zBuffer = new ZBuffer(4, 3);
+        zBuffer.testAndSet(0, 0, 0.1f);
+
+        zBuffer.clear();
+
+        assertEquals(Float.POSITIVE_INFINITY, zBuffer.get(0, 0));
+        assertTrue(zBuffer.testAndSet(0, 0, 0.9f));
+    }
+
+    @Test
+    void testResizeReallocatesOnlyOnSizeChange() {
+        ZBuffer zBuffer = new ZBuffer(4, 3);
+
+        assertFalse(zBuffer.resize(4, 3));
+        assertTrue(zBuffer.resize(8, 6));
+        assertEquals(8, zBuffer.getWidth());
+        assertEquals(6, zBuffer.getHeight());
+        assertTrue(zBuffer.testAndSet(7, 5, 1.0f));
+    }
+
+    @Test
+    void testBlockMaxDepthAppearsWhenBlockIsFullyCovered() {
+        ZBuffer zBuffer = new ZBuffer(12, 10); // правый и нижний блоки неполные
+        int size = ZBuffer.BLOCK_SIZE;
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (x == size - 1 && y == size - 1) continue;
+                zBuffer.testAndSet(x, y, 0.1f + 0.01f * x);
+            }
+        }
+        assertEquals(Float.POSITIVE_INFINITY, zBuffer.getBlockMaxDepth(0, 0));
+
+        zBuffer.testAndSet(size - 1, size - 1, 0.05f);
+        assertEquals(0.1f + 0.01f * (size - 1), zBuffer.getBlockMaxDepth(0, 0), 1e-6f);
+
+        // неполный угловой блок 4x2
+        for (int y = size; y < 10; y++) {
+            for (int x = size; x < 12; x++) zBuffer.testAndSet(x, y, 0.3f);
+        }
+        assertEquals(0.3f, zBuffer.getBlockMaxDepth(1, 1));
+    }
+
+    @Test
+    void testBlockMaxDepthIsTightenedByOverwritesAndResetByClear() {
+        ZBuffer zBuffer = new ZBuffer(8, 8);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) zBuffer.testAndSet(x, y, 0.9f);
+        }
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) zBuffer.testAndSet(x, y, 0.2f);
+        }
+        assertEquals(0.2f, zBuffer.getBlockMaxDepth(0, 0));
+
+        zBuffer.clear();
+        assertEquals(Float.POSITIVE_INFINITY, zBuffer.getBlockMaxDepth(0, 0));
+    }
+}
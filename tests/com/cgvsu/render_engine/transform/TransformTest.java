@@ -62,4 +62,19 @@ class TransformTest {
         assertEquals(v.getY(), result.getY(), EPS);
         assertEquals(v.getZ(), result.getZ(), EPS);
     }
+
+    @Test
+    void testCopyIsIndependentSnapshot() {
+        Transform t = new Transform();
+        t.scaleY = 2;
+        t.rotateZ = 30;
+        t.translateX = -4;
+
+        Transform copy = new Transform(t);
+        t.translateX = 100;
+
+        assertEquals(2f, copy.scaleY, EPS);
+        assertEquals(30f, copy.rotateZ, EPS);
+        assertEquals(-4f, copy.translateX, EPS);
+    }
 }
@@ -0,0 +1,111 @@
+package com.cgvsu.render_engine.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolygonClipperTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 100;
+
+    /** Вершины задаются сразу в пространстве отсечения */
+    private static ProjectedVertices vertices(float[][] clip) {
+        ProjectedVertices v = new ProjectedVertices();
+        v.reset(clip.length);
+        for (int i = 0; i < clip.length; i++) {
+            v.clipX[i] = clip[i][0];
+            v.clipY[i] = clip[i][1];
+            v.clipZ[i] = clip[i][2];
+            v.clipW[i] = clip[i][3];
+            v.project(i, WIDTH / 2f, HEIGHT / 2f);
+        }
+        return v;
+    }
+
+    @Test
+    void testTriangleCrossingNearPlaneIsCutBeforeDivide() {
+        // третья вершина за камерой (w < 0)
+        ProjectedVertices v = vertices(new float[][]{
+                {-1, -1, 0, 2},
+                {1, -1, 0, 2},
+                {0, 1, -1.2f, -1}
+        });
+        assertTrue(PolygonClipper.needsClipping(v.outcode[0] | v.outcode[1] | v.outcode[2], false));
+
+        PolygonClipper clipper = new PolygonClipper();
+        int count = clipper.clip(v, new int[]{0, 1, 2}, new float[]{0, 0, 1, 0, 0, 1}, 3, false, WIDTH, HEIGHT);
+
+        assertEquals(4, count); // треугольник без вершины -> четырёхугольник
+        for (int i = 0; i < count; i++) {
+            int vi = clipper.getIndices()[i];
+            assertTrue(v.valid[vi]);
+            assertTrue(v.invW[vi] > 0);
+            assertTrue(v.clipZ[vi] + v.clipW[vi] >= -1e-5f);
+        }
+        // UV новых вершин интерполированы линейно в пространстве отсечения
+        float[] uv = clipper.getUv();
+        for (int i = 0; i < 2 * count; i++) {
+            assertTrue(uv[i] >= 0 && uv[i] <= 1);
+        }
+    }
+
+    @Test
+    void testPolygonBehindNearPlaneDisappears() {
+        ProjectedVertices v = vertices(new float[][]{
+                {0, 0, -1.2f, -1},
+                {1, 0, -1.2f, -1},
+                {0, 1, -1.2f, -1}
+        });
+
+        int count = new PolygonClipper().clip(v, new int[]{0, 1, 2}, new float[6], 3, false, WIDTH, HEIGHT);
+
+        assertTrue(count < 3);
+    }
+
+    @Test
+    void testGuardBandKeepsSlightlyOffscreenPolygonsUncut() {
+        ProjectedVertices v = vertices(new float[][]{
+                {-1.5f, 0, 0, 1},
+                {0.5f, 0, 0, 1},
+                {0, 0.5f, 0, 1}
+        });
+        int before = v.size();
+
+        int count = new PolygonClipper().clip(v, new int[]{0, 1, 2}, new float[6], 3, true, WIDTH, HEIGHT);
+
+        assertEquals(3, count);
+        assertEquals(before, v.size()); // новых вершин нет
+    }
+
+    @Test
+    void testFarOffscreenPolygonIsCutAtGuardBand() {
+        ProjectedVertices v = vertices(new float[][]{
+                {-100, 0, 0, 1},
+                {0.5f, 0, 0, 1},
+                {0, 0.5f, 0, 1}
+        });
+
+        PolygonClipper clipper = new PolygonClipper();
+        int count = clipper.clip(v, new int[]{0, 1, 2}, new float[6], 3, true, WIDTH, HEIGHT);
+
+        assertEquals(4, count);
+        float limit = (PolygonClipper.GUARD_BAND + 1) * WIDTH / 2f;
+        for (int i = 0; i < count; i++) {
+            assertTrue(Math.abs(v.screenX[clipper.getIndices()[i]]) <= limit + 1e-2f);
+        }
+    }
+
+    @Test
+    void testLineIsClippedByNearPlane() {
+        ProjectedVertices v = vertices(new float[][]{
+                {0, 0, 0, 1},
+                {0, 0, -1.2f, -1}
+        });
+        float[] out = new float[6];
+
+        assertTrue(PolygonClipper.clipLine(v, 0, 1, WIDTH, HEIGHT, out));
+        assertEquals(WIDTH / 2f, out[0], 1e-4f);
+        assertEquals(-1.0f, out[5], 1e-4f); // второй конец лёг на ближнюю плоскость
+    }
+}
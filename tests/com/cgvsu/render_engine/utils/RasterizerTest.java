@@ -0,0 +1,226 @@
+package com.cgvsu.render_engine.utils;
+
+import com.cgvsu.render_engine.rendering.FrameBuffer;
+import com.cgvsu.render_engine.rendering.ZBuffer;
+import com.cgvsu.utils.math.Vector3f;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RasterizerTest {
+
+    private static final int SIZE = 128;
+
+    private static final float[] NO_UV = new float[6];
+
+    private static void vertex(ProjectedVertices pv, int i, float x, float y, float z) {
+        pv.screenX[i] = x;
+        pv.screenY[i] = y;
+        pv.depth[i] = z;
+        pv.invW[i] = 1.0f;
+        pv.posX[i] = x;
+        pv.posY[i] = y;
+        pv.posZ[i] = z;
+        pv.normalX[i] = 0;
+        pv.normalY[i] = 0;
+        pv.normalZ[i] = 1;
+        pv.valid[i] = true;
+    }
+
+    /** Треугольник на весь левый верхний угол экрана */
+    private static ProjectedVertices corner(float z) {
+        ProjectedVertices pv = new ProjectedVertices();
+        pv.reset(3);
+        vertex(pv, 0, 0, 0, z);
+        vertex(pv, 1, SIZE, 0, z);
+        vertex(pv, 2, 0, SIZE, z);
+        return pv;
+    }
+
+    /** Сетка из квадратов, у каждого 4 вершины подряд; квадрат разбивается на два треугольника */
+    private static ProjectedVertices grid(int cells, float z) {
+        ProjectedVertices pv = new ProjectedVertices();
+        pv.reset(cells * cells * 4);
+        float step = (float) SIZE / cells;
+        int v = 0;
+        for (int i = 0; i < cells; i++) {
+            for (int j = 0; j < cells; j++) {
+                float x0 = i * step, y0 = j * step;
+                vertex(pv, v++, x0, y0, z);
+                vertex(pv, v++, x0 + step, y0, z);
+                vertex(pv, v++, x0 + step, y0 + step, z);
+                vertex(pv, v++, x0, y0 + step, z);
+            }
+        }
+        return pv;
+    }
+
+    private static void drawTriangle(ProjectedVertices pv, int i0, int i1, int i2,
+                                     ZBuffer zBuffer, FrameBuffer frame, Rasterizer.Shading shading) {
+        Rasterizer.rasterizeTriangle(pv, i0, i1, i2, NO_UV, 0, zBuffer, frame, shading,
+                0, 0, frame.getWidth() - 1, frame.getHeight() - 1);
+    }
+
+    private static void drawFrame(ProjectedVertices grid, ZBuffer zBuffer, FrameBuffer frame,
+                                  Rasterizer.Shading shading) {
+        for (int v = 0; v < grid.size(); v += 4) {
+            drawTriangle(grid, v, v + 1, v + 2, zBuffer, frame, shading);
+            drawTriangle(grid, v, v + 2, v + 3, zBuffer, frame, shading);
+        }
+    }
+
+    @Test
+    void testFillsTriangleWithBaseColor() {
+        FrameBuffer frame = new FrameBuffer(SIZE, SIZE);
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+
+        drawTriangle(corner(0.5f), 0, 1, 2, zBuffer, frame,
+                new Rasterizer.Shading(null, null, Color.RED, false));
+
+        assertEquals(0xFFFF0000, frame.getArgb(2, 2));
+        assertEquals(0, frame.getArgb(SIZE - 2, SIZE - 2)); // вне треугольника
+    }
+
+    @Test
+    void testDepthTestKeepsNearestTriangle() {
+        FrameBuffer frame = new FrameBuffer(SIZE, SIZE);
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+
+        drawTriangle(corner(0.1f), 0, 1, 2, zBuffer, frame,
+                new Rasterizer.Shading(null, null, Color.RED, false));
+        drawTriangle(corner(0.9f), 0, 1, 2, zBuffer, frame,
+                new Rasterizer.Shading(null, null, Color.BLUE, false));
+
+        assertEquals(0xFFFF0000, frame.getArgb(2, 2));
+    }
+
+    @Test
+    void testHiddenTriangleIsRejectedByBlockDepth() {
+        FrameBuffer frame = new FrameBuffer(SIZE, SIZE);
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+
+        drawFrame(grid(4, 0.2f), zBuffer, frame, new Rasterizer.Shading(null, null, Color.RED, false));
+        assertEquals(0.2f, zBuffer.getBlockMaxDepth(3, 3), 1e-6f);
+
+        // треугольник позади заполненного экрана не должен изменить ни одного пикселя
+        int[] before = frame.getPixels().clone();
+        drawTriangle(corner(0.5f), 0, 1, 2, zBuffer, frame,
+                new Rasterizer.Shading(null, null, Color.BLUE, false));
+        assertArrayEquals(before, frame.getPixels());
+
+        // а треугольник перед ним — рисуется
+        drawTriangle(corner(0.1f), 0, 1, 2, zBuffer, frame,
+                new Rasterizer.Shading(null, null, Color.BLUE, false));
+        assertEquals(0xFF0000FF, frame.getArgb(2, 2));
+    }
+
+    @Test
+    void testMinifiedTextureReadsSmallMipLevel() {
+        // шахматная доска 256x256 из чёрных и белых текселей на треугольнике в 16 пикселей
+        int n = 256;
+        int[] checker = new int[n * n];
+        for (int i = 0; i < checker.length; i++) {
+            checker[i] = ((i % n + i / n) & 1) == 0 ? 0xFF000000 : 0xFFFFFFFF;
+        }
+        TextureSampler texture = TextureSampler.fromArgb(n, n, checker);
+
+        ProjectedVertices pv = new ProjectedVertices();
+        pv.reset(3);
+        vertex(pv, 0, 0, 0, 0.5f);
+        vertex(pv, 1, 16, 0, 0.5f);
+        vertex(pv, 2, 0, 16, 0.5f);
+        float[] uv = {0, 1, 1, 1, 0, 0};
+
+        FrameBuffer frame = new FrameBuffer(SIZE, SIZE);
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+        Rasterizer.rasterizeTriangle(pv, 0, 1, 2, uv, 0, zBuffer, frame,
+                new Rasterizer.Shading(texture, null, Color.RED, false, false, false),
+                0, 0, SIZE - 1, SIZE - 1);
+
+        // на мелком уровне шахматка усреднена в серый, а не чёрно-белый шум
+        int red = (frame.getArgb(3, 3) >> 16) & 0xFF;
+        assertEquals(128, red, 2);
+    }
+
+    @Test
+    void testLineCoversEveryPixelAlongMajorAxis() {
+        FrameBuffer frame = new FrameBuffer(SIZE, SIZE);
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+
+        Rasterizer.rasterizeLine(10.5f, 20.5f, 0, 30.5f, 25.5f, 0, zBuffer, frame, 0xFF000000, 0.01f);
+
+        for (int x = 10; x <= 30; x++) {
+            int covered = 0;
+            for (int y = 0; y < SIZE; y++) if (frame.getArgb(x, y) != 0) covered++;
+            assertEquals(1, covered, "column " + x);
+        }
+        assertEquals(0xFF000000, frame.getArgb(10, 20));
+        assertEquals(0xFF000000, frame.getArgb(30, 25));
+        assertEquals(0, frame.getArgb(31, 25));
+    }
+
+    @Test
+    void testLineIsHiddenBehindFillButKeptOnItsOwnFace() {
+        FrameBuffer frame = new FrameBuffer(SIZE, SIZE);
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+        drawTriangle(corner(0.5f), 0, 1, 2, zBuffer, frame,
+                new Rasterizer.Shading(null, null, Color.RED, false));
+
+        // ребро за гранью не видно
+        Rasterizer.rasterizeLine(2.5f, 5.5f, 0.8f, 40.5f, 5.5f, 0.8f, zBuffer, frame, 0xFF000000, 0.01f);
+        assertEquals(0xFFFF0000, frame.getArgb(20, 5));
+
+        // ребро на самой грани проходит благодаря сдвигу глубины
+        Rasterizer.rasterizeLine(2.5f, 10.5f, 0.5f, 40.5f, 10.5f, 0.5f, zBuffer, frame, 0xFF000000, 0.01f);
+        assertEquals(0xFF000000, frame.getArgb(20, 10));
+    }
+
+    @Test
+    void testLightingDarkensFacesTurnedAwayFromLight() {
+        FrameBuffer frame = new FrameBuffer(SIZE, SIZE);
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+
+        // источник света позади плоскости: остаётся только фоновая составляющая
+        drawFrame(grid(1, 0.5f), zBuffer, frame,
+                new Rasterizer.Shading(null, new Vector3f(0, 0, -100), Color.RED, true));
+
+        int red = (frame.getArgb(SIZE / 2, SIZE / 2) >> 16) & 0xFF;
+        assertEquals(Math.round(255 * 0.3f), red, 1);
+    }
+
+    @Test
+    void testFrameAllocatesNearZeroBytes() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // каждый следующий кадр ближе к камере, чтобы все пиксели проходили тест глубины
+        int frames = 21;
+        List<ProjectedVertices> scenes = new ArrayList<>();
+        for (int i = 0; i < frames; i++) scenes.add(grid(16, 0.9f - i * 0.04f));
+
+        FrameBuffer frame = new FrameBuffer(SIZE, SIZE);
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+        Rasterizer.Shading shading =
+                new Rasterizer.Shading(null, new Vector3f(SIZE / 2f, SIZE / 2f, 100), Color.RED, true);
+
+        // прогрев JIT
+        for (int i = 0; i < frames - 1; i++) drawFrame(scenes.get(i), zBuffer, frame, shading);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        drawFrame(scenes.get(frames - 1), zBuffer, frame, shading);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // SIZE*SIZE пикселей: путь через объекты Vertex создавал сотни байт на каждый
+        assertTrue(allocated < 16 * 1024, "allocated per frame: " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,97 @@
+package com.cgvsu.render_engine.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextureSamplerTest {
+
+    // 2x2: верхняя строка красный/зелёный, нижняя синий/белый
+    private static final int RED = 0xFFFF0000;
+    private static final int GREEN = 0xFF00FF00;
+    private static final int BLUE = 0xFF0000FF;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private static TextureSampler checker() {
+        return TextureSampler.fromArgb(2, 2, new int[]{RED, GREEN, BLUE, WHITE});
+    }
+
+    @Test
+    void testNearestUsesBottomUpV() {
+        TextureSampler t = checker();
+        int[] p = t.getPixels();
+
+        assertEquals(RED, TextureSampler.sampleNearest(p, 2, 2, 0, 1));
+        assertEquals(GREEN, TextureSampler.sampleNearest(p, 2, 2, 1, 1));
+        assertEquals(BLUE, TextureSampler.sampleNearest(p, 2, 2, 0, 0));
+        assertEquals(WHITE, TextureSampler.sampleNearest(p, 2, 2, 1, 0));
+    }
+
+    @Test
+    void testOutOfRangeCoordinatesAreClamped() {
+        int[] p = checker().getPixels();
+
+        assertEquals(RED, TextureSampler.sampleNearest(p, 2, 2, -3, 5));
+        assertEquals(WHITE, TextureSampler.sampleBilinear(p, 2, 2, 7, -2));
+    }
+
+    @Test
+    void testBilinearBlendsNeighbours() {
+        int[] p = checker().getPixels();
+
+        // на текселях совпадает с ближайшим
+        assertEquals(GREEN, TextureSampler.sampleBilinear(p, 2, 2, 1, 1));
+        // посередине верхней строки — смесь красного и зелёного
+        assertEquals(0xFF808000, TextureSampler.sampleBilinear(p, 2, 2, 0.5f, 1));
+        // центр — среднее всех четырёх
+        int c = TextureSampler.sampleBilinear(p, 2, 2, 0.5f, 0.5f);
+        assertEquals(0xFF, c >>> 24);
+        assertEquals(0x80, (c >> 16) & 0xFF, 1);
+        assertEquals(0x80, (c >> 8) & 0xFF, 1);
+        assertEquals(0x80, c & 0xFF, 1);
+    }
+
+    @Test
+    void testRejectsWrongSize() {
+        assertThrows(IllegalArgumentException.class, () -> TextureSampler.fromArgb(3, 3, new int[4]));
+    }
+
+    @Test
+    void testNullImageGivesNoSampler() {
+        assertNull(TextureSampler.of(null));
+    }
+
+    @Test
+    void testMipChainHalvesDownToOneTexel() {
+        TextureSampler t = TextureSampler.fromArgb(8, 3, new int[8 * 3]);
+
+        assertEquals(4, t.getLevelCount()); // 8x3, 4x1, 2x1, 1x1
+        assertEquals(4, t.getWidth(1));
+        assertEquals(1, t.getHeight(1));
+        assertEquals(1, t.getWidth(3));
+        assertEquals(1, t.getHeight(3));
+    }
+
+    @Test
+    void testMipLevelAveragesBlocks() {
+        TextureSampler t = checker();
+
+        int c = t.getPixels(1)[0];
+        assertEquals(0xFF, c >>> 24);
+        assertEquals(0x80, (c >> 16) & 0xFF, 1);
+        assertEquals(0x80, (c >> 8) & 0xFF, 1);
+        assertEquals(0x80, c & 0xFF, 1);
+    }
+
+    @Test
+    void testLodGrowsWithMinification() {
+        TextureSampler t = TextureSampler.fromArgb(256, 256, new int[256 * 256]);
+
+        // вся текстура на 256x256 пикселях — нулевой уровень, на 64x64 — второй
+        assertEquals(0, t.computeLod(1, 256 * 256), 1e-4f);
+        assertEquals(2, t.computeLod(1, 64 * 64), 1e-4f);
+        // увеличение и вырожденный треугольник не выходят за пределы цепочки
+        assertEquals(0, t.computeLod(1, 1024 * 1024), 1e-4f);
+        assertEquals(t.getLevelCount() - 1, t.computeLod(1, 0), 1e-4f);
+    }
+}
@@ -0,0 +1,99 @@
+package com.cgvsu.render_engine.utils;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.utils.math.Matrix4f;
+import com.cgvsu.utils.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VertexProjectorTest {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+
+    private static Model tetrahedron() {
+        Model model = new Model();
+        model.setVertices(new ArrayList<>(List.of(
+                new Vector3f(0, 0, 0),
+                new Vector3f(1, 0, 0),
+                new Vector3f(0, 1, 0),
+                new Vector3f(0, 0, 1)
+        )));
+        model.setNormals(new ArrayList<>(List.of(
+                new Vector3f(-1, -1, -1),
+                new Vector3f(2, 0, 0),
+                new Vector3f(0, 3, 0),
+                new Vector3f(0, 0, 4)
+        )));
+        model.setPolygons(new ArrayList<>(List.of(
+                Polygon.builder().setVertexIndices(List.of(0, 1, 2)).build(),
+                Polygon.builder().setVertexIndices(List.of(0, 2, 3)).build(),
+                Polygon.builder().setVertexIndices(List.of(1, 2, 3)).build()
+        )));
+        return model;
+    }
+
+    private static Matrix4f mvp() {
+        Camera camera = new Camera("test", new Vector3f(3, 2, 4), new Vector3f(0, 0, 0),
+                1.0f, (float) WIDTH / HEIGHT, 0.1f, 100f);
+        return camera.getProjectionMatrix().multiply(camera.getViewMatrix());
+    }
+
+    @Test
+    void testProjectionMatchesMvp() {
+        Model model = tetrahedron();
+        Matrix4f mvp = mvp();
+
+        ProjectedVertices projected = new ProjectedVertices();
+        VertexProjector.projectVertices(model, mvp, WIDTH, HEIGHT, projected);
+
+        assertEquals(4, projected.size());
+        for (int i = 0; i < model.getVertices().size(); i++) {
+            Vector3f p = model.getVertices().get(i);
+            float[] clip = new float[4];
+            for (int row = 0; row < 4; row++) {
+                clip[row] = mvp.get(row, 0) * p.getX() + mvp.get(row, 1) * p.getY()
+                        + mvp.get(row, 2) * p.getZ() + mvp.get(row, 3);
+            }
+            float w = clip[3];
+            Vector3f normal = model.getNormals().get(i).normalize();
+
+            assertTrue(projected.valid[i]);
+            assertEquals(clip[0], projected.clipX[i], 1e-5f);
+            assertEquals(clip[3], projected.clipW[i], 1e-5f);
+            assertEquals((clip[0] / w + 1) * 0.5f * WIDTH, projected.screenX[i], 1e-3f);
+            assertEquals((1 - clip[1] / w) * 0.5f * HEIGHT, projected.screenY[i], 1e-3f);
+            assertEquals(clip[2] / w, projected.depth[i], 1e-6f);
+            assertEquals(1 / w, projected.invW[i], 1e-6f);
+            assertEquals(p.getX(), projected.posX[i]);
+            assertEquals(normal.getX(), projected.normalX[i], 1e-6f);
+            assertEquals(normal.getY(), projected.normalY[i], 1e-6f);
+            assertEquals(normal.getZ(), projected.normalZ[i], 1e-6f);
+            assertEquals(1f, (float) Math.sqrt(projected.normalX[i] * projected.normalX[i]
+                    + projected.normalY[i] * projected.normalY[i]
+                    + projected.normalZ[i] * projected.normalZ[i]), 1e-6f);
+        }
+
+        // вершина в центре кадра по направлению взгляда камеры
+        assertEquals(WIDTH / 2f, projected.screenX[0], 1e-3f);
+        assertEquals(HEIGHT / 2f, projected.screenY[0], 1e-3f);
+    }
+
+    @Test
+    void testBuffersAreReusedBetweenFrames() {
+        Model model = tetrahedron();
+        ProjectedVertices projected = new ProjectedVertices();
+
+        VertexProjector.projectVertices(model, mvp(), WIDTH, HEIGHT, projected);
+        float[] screenX = projected.screenX;
+        VertexProjector.projectVertices(model, mvp(), WIDTH, HEIGHT, projected);
+
+        assertSame(screenX, projected.screenX);
+    }
+}
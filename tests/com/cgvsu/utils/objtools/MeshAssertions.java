@@ -0,0 +1,49 @@
+package com.cgvsu.utils.objtools;
+
+import com.cgvsu.model.Mesh;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Сравнение сеток по всем массивам: координаты и три потока индексов (смещения и сами индексы) */
+final class MeshAssertions {
+
+    private MeshAssertions() {
+    }
+
+    static void assertSameMesh(Mesh expected, Mesh actual) {
+        assertSameMesh(expected, actual, null);
+    }
+
+    static void assertSameMesh(Mesh expected, Mesh actual, String message) {
+        assertEquals(expected.getVertexCount(), actual.getVertexCount(), message);
+        assertEquals(expected.getTextureVertexCount(), actual.getTextureVertexCount(), message);
+        assertEquals(expected.getNormalCount(), actual.getNormalCount(), message);
+        assertEquals(expected.getPolygonCount(), actual.getPolygonCount(), message);
+
+        assertArrayEquals(Arrays.copyOf(expected.getPositions(), 3 * expected.getVertexCount()),
+                Arrays.copyOf(actual.getPositions(), 3 * actual.getVertexCount()), message);
+        assertArrayEquals(Arrays.copyOf(expected.getTextureCoords(), 2 * expected.getTextureVertexCount()),
+                Arrays.copyOf(actual.getTextureCoords(), 2 * actual.getTextureVertexCount()), message);
+        assertArrayEquals(Arrays.copyOf(expected.getNormals(), 3 * expected.getNormalCount()),
+                Arrays.copyOf(actual.getNormals(), 3 * actual.getNormalCount()), message);
+
+        int polygons = expected.getPolygonCount();
+        assertSameStream(expected.getVertexOffsets(), expected.getVertexIndices(),
+                actual.getVertexOffsets(), actual.getVertexIndices(), polygons, message);
+        assertSameStream(expected.getTextureOffsets(), expected.getTextureIndices(),
+                actual.getTextureOffsets(), actual.getTextureIndices(), polygons, message);
+        assertSameStream(expected.getNormalOffsets(), expected.getNormalIndices(),
+                actual.getNormalOffsets(), actual.getNormalIndices(), polygons, message);
+    }
+
+    private static void assertSameStream(int[] expectedOffsets, int[] expectedIndices,
+                                         int[] actualOffsets, int[] actualIndices, int polygons, String message) {
+        assertArrayEquals(Arrays.copyOf(expectedOffsets, polygons + 1),
+                Arrays.copyOf(actualOffsets, polygons + 1), message);
+        assertArrayEquals(Arrays.copyOf(expectedIndices, expectedOffsets[polygons]),
+                Arrays.copyOf(actualIndices, actualOffsets[polygons]), message);
+    }
+}
@@ -0,0 +1,117 @@
+package com.cgvsu.utils.objtools;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.utils.NormalCalculator;
+import com.cgvsu.render_engine.utils.Triangulator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.cgvsu.utils.objtools.MeshAssertions.assertSameMesh;
+
+public class MeshCacheTest {
+
+    private static final String CUBE_SIDE = """
+            v 0 0 0
+            v 1 0 0
+            v 1 1 0
+            v 0 1 0
+            vt 0 0
+            vt 1 0
+            vt 1 1
+            vt 0 1
+            f 1/1 2/2 3/3 4/4
+            """;
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Mesh prepare(Path path) throws IOException {
+        loads.incrementAndGet();
+        Model model = ObjReader.read(path);
+        Triangulator.triangulate(model);
+        NormalCalculator.calculateNormals(model);
+        return model.getMesh();
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        Mesh mesh = prepare(write("side.obj", CUBE_SIDE));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mesh.writeTo(Channels.newChannel(out));
+        Assertions.assertEquals(mesh.binarySize(), out.size());
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        assertSameMesh(mesh, Mesh.readFrom(buffer));
+        Assertions.assertFalse(buffer.hasRemaining());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> Mesh.readFrom(ByteBuffer.wrap(Arrays.copyOf(out.toByteArray(), out.size() - 4))));
+    }
+
+    @Test
+    public void testSecondLoadComesFromCache() throws IOException {
+        Path source = write("side.obj", CUBE_SIDE);
+        MeshCache cache = new MeshCache();
+
+        Mesh first = cache.load(source, this::prepare);
+        Assertions.assertTrue(Files.exists(dir.resolve("side.obj.meshcache")));
+        Mesh second = cache.load(source, this::prepare);
+
+        Assertions.assertEquals(1, loads.get());
+        assertSameMesh(first, second);
+        Assertions.assertEquals(2, second.getPolygonCount());
+    }
+
+    @Test
+    public void testModifiedSourceInvalidatesCache() throws IOException {
+        Path source = write("side.obj", CUBE_SIDE);
+        MeshCache cache = new MeshCache(dir.resolve("cache"));
+        cache.load(source, this::prepare);
+
+        // то же время изменения и размер, другое содержимое — ловится отпечатком
+        FileTime time = Files.getLastModifiedTime(source);
+        Files.writeString(source, CUBE_SIDE.replace("v 1 1 0", "v 2 2 0"));
+        Files.setLastModifiedTime(source, time);
+
+        Mesh mesh = cache.load(source, this::prepare);
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertEquals(2f, mesh.getPositions()[6]);
+        Assertions.assertNotNull(cache.find(source));
+    }
+
+    @Test
+    public void testCorruptCacheIsMiss() throws IOException {
+        Path source = write("side.obj", CUBE_SIDE);
+        MeshCache cache = new MeshCache();
+        cache.load(source, this::prepare);
+
+        Path cacheFile = cache.cacheFile(source);
+        byte[] bytes = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(bytes, bytes.length - 8));
+        Assertions.assertNull(cache.find(source));
+
+        cache.load(source, this::prepare);
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertNotNull(cache.find(source));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path path = dir.resolve(name);
+        Files.writeString(path, content);
+        return path;
+    }
+}
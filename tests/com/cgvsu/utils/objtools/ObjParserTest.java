@@ -0,0 +1,175 @@
+package com.cgvsu.utils.objtools;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+public class ObjParserTest {
+
+    private static float parseFloat(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        return ObjParser.parseFloat(bytes, 0, bytes.length);
+    }
+
+    private static int parseInt(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        return ObjParser.parseInt(bytes, 0, bytes.length);
+    }
+
+    /* ---------------------- NUMBERS ---------------------- */
+
+    @Test
+    public void testParseFloat_MatchesFloatParseFloat() {
+        String[] samples = {
+                "0", "-0", "+1", "1.", ".5", "-.5", "0.000001", "123.456789", "-12.345678",
+                "1e5", "1E-5", "2.5e+3", "3.4028235e38", "1e39", "1.4e-45", "1e-50",
+                "0.1", "0.30000001192092896", "16777217", "9007199254740993",
+                "12345678901234567890", "NaN", "-Infinity", "0x1p3", "1f", "2.5d"
+        };
+        for (String s : samples) {
+            Assertions.assertEquals(Float.floatToRawIntBits(Float.parseFloat(s)),
+                    Float.floatToRawIntBits(parseFloat(s)), s);
+        }
+    }
+
+    @Test
+    public void testParseFloat_RandomDecimalsMatchFloatParseFloat() {
+        Random random = new Random(21);
+        for (int i = 0; i < 100_000; i++) {
+            String s = String.format(Locale.ROOT, "%." + random.nextInt(10) + "f",
+                    (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4));
+            Assertions.assertEquals(Float.parseFloat(s), parseFloat(s), s);
+        }
+    }
+
+    @Test
+    public void testParseFloat_Invalid() {
+        for (String s : new String[]{"", "-", ".", "1e", "1.2.3", "abc", "1,5"}) {
+            Assertions.assertThrows(NumberFormatException.class, () -> parseFloat(s), s);
+        }
+    }
+
+    @Test
+    public void testParseInt() {
+        Assertions.assertEquals(42, parseInt("42"));
+        Assertions.assertEquals(-7, parseInt("-7"));
+        Assertions.assertEquals(Integer.MAX_VALUE, parseInt("2147483647"));
+        Assertions.assertEquals(Integer.MIN_VALUE, parseInt("-2147483648"));
+        Assertions.assertThrows(NumberFormatException.class, () -> parseInt("2147483648"));
+        Assertions.assertThrows(NumberFormatException.class, () -> parseInt("1a"));
+        Assertions.assertThrows(NumberFormatException.class, () -> parseInt(""));
+    }
+
+    /* ---------------------- LINES ---------------------- */
+
+    @Test
+    public void testLineEndingsAndLineNumbers() {
+        String obj = "v 0 0 0\r\nv 1 0 0\rv 0 1 0\n\r\n# comment\nf 1 2 5\n";
+
+        ObjReaderException ex = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read(obj));
+        Assertions.assertTrue(ex.getMessage().contains("vertex index out of range"));
+        Assertions.assertTrue(ex.getMessage().endsWith("at line 6"));
+    }
+
+    @Test
+    public void testWhitespaceAndExtraCoordinates() {
+        String obj = "\uFEFF  v\t1 2 3 1.0\n vt 0.5 0.25 0\nvn 0 0 1\n\tf  1/1/1   1/1/1x 1/1/1  \n";
+
+        ObjReaderException ex = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read(obj));
+        Assertions.assertTrue(ex.getMessage().contains("Failed to parse normal index: '1x'"));
+
+        Model m = ObjReader.read("\uFEFF  v\t1 2 3 1.0\nv 0 1 0\nv 1 1 1\n vt 0.5 0.25 0\nvn 0 0 1\n\tf  1/1/1   2/1/1 3/1/1  ");
+        Mesh mesh = m.getMesh();
+        Assertions.assertEquals(3, mesh.getVertexCount());
+        Assertions.assertEquals(2f, mesh.getPositions()[1]);
+        Assertions.assertEquals(0.25f, mesh.getTextureCoords()[1]);
+        Assertions.assertEquals(1, mesh.getPolygonCount());
+        Assertions.assertEquals(3, mesh.getNormalOffsets()[1]);
+    }
+
+    @Test
+    public void testLargePolygonDuplicates() {
+        StringBuilder obj = new StringBuilder();
+        StringBuilder face = new StringBuilder("f");
+        for (int i = 1; i <= 40; i++) {
+            obj.append("v ").append(i).append(" 0 0\n");
+            face.append(' ').append(i);
+        }
+        Assertions.assertEquals(40, ObjReader.read(obj + face.toString()).getMesh().getPolygonSize(0));
+
+        ObjReaderException ex = Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.read(obj + face.toString() + " 17"));
+        Assertions.assertTrue(ex.getMessage().contains("Polygon has duplicate vertices"));
+    }
+
+    @Test
+    public void testEmptyVertexIndex() {
+        ObjReaderException ex = Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.read("v 0 0 0\nv 1 0 0\nv 0 1 0\nf /1 2 3\n"));
+        Assertions.assertTrue(ex.getMessage().contains("Failed to parse vertex index: ''"));
+    }
+
+    /* ---------------------- STREAMS ---------------------- */
+
+    private static final String SAMPLE = "\uFEFF# sample\r\nv 0 0 0\r\nv 1 0 0\rv 0 1 0\n\r\n"
+            + "v 0.125 0.5 -1.75e1\nvt 0 0\nvt 1 0\nvt 0 1\nvn 0 0 1\n"
+            + "f 1/1/1 2/2/1 3/3/1\r\nf -4/1/1 -3/2/1 -1/3/1 -2/1/1\r\n";
+
+    private static Mesh parseStream(String text, int bufferSize) throws IOException {
+        Mesh mesh = new Mesh();
+        new ObjParser(mesh).parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), bufferSize, 0, true);
+        return mesh;
+    }
+
+    @Test
+    public void testStreamMatchesStringForAnyBufferSize() throws IOException {
+        Mesh expected = ObjReader.read(SAMPLE).getMesh();
+        for (int bufferSize = 1; bufferSize <= 40; bufferSize++) {
+            Mesh mesh = parseStream(SAMPLE, bufferSize);
+            Assertions.assertEquals(expected.getVertexCount(), mesh.getVertexCount(), "buffer " + bufferSize);
+            Assertions.assertArrayEquals(
+                    Arrays.copyOf(expected.getPositions(), 3 * expected.getVertexCount()),
+                    Arrays.copyOf(mesh.getPositions(), 3 * mesh.getVertexCount()), "buffer " + bufferSize);
+            Assertions.assertEquals(expected.getPolygonCount(), mesh.getPolygonCount());
+            Assertions.assertArrayEquals(
+                    Arrays.copyOf(expected.getVertexIndices(), expected.getCornerCount()),
+                    Arrays.copyOf(mesh.getVertexIndices(), mesh.getCornerCount()), "buffer " + bufferSize);
+            Assertions.assertArrayEquals(
+                    Arrays.copyOf(expected.getTextureIndices(), expected.getCornerCount()),
+                    Arrays.copyOf(mesh.getTextureIndices(), mesh.getCornerCount()), "buffer " + bufferSize);
+        }
+    }
+
+    @Test
+    public void testStreamLineNumbersAcrossBuffers() {
+        for (int bufferSize = 1; bufferSize <= 16; bufferSize++) {
+            int size = bufferSize;
+            ObjReaderException ex = Assertions.assertThrows(ObjReaderException.class,
+                    () -> parseStream("v 0 0 0\r\nv 1 0 0\r\n\r\nv 1 x 0\r\n", size));
+            Assertions.assertTrue(ex.getMessage().endsWith("at line 4"), ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadPathAndChannel(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("sample.obj");
+        Files.writeString(file, SAMPLE);
+
+        Assertions.assertEquals(7, ObjReader.read(file).getMesh().getCornerCount());
+        try (FileChannel channel = FileChannel.open(file)) {
+            Assertions.assertEquals(2, ObjReader.read(channel).getMesh().getPolygonCount());
+        }
+    }
+}
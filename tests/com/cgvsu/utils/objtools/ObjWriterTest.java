@@ -9,9 +9,13 @@ import com.cgvsu.utils.objtools.ObjWriterException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -153,6 +157,77 @@ public class ObjWriterTest {
         assertTrue(result.contains("f 1/1/1"), "Should have vertex/texture/normal format");
     }
 
+    // быстрое форматирование совпадает с прежним String.format("%.6f") без хвостовых нулей
+    @Test
+    public void testCompactFormatMatchesReference() {
+        float[] special = {0.0078125f, -0.0078125f, 0.0000005f, -0.0000005f, 1.0000005f, 0.5e-6f,
+                -0.0f, -1e-9f, 1e-9f, 123456.7890625f, 999999.99f, 8388608.5f, 1e9f, -1e12f, 3.4e38f,
+                Float.MIN_VALUE, -Float.MAX_VALUE};
+        for (float value : special) {
+            assertEquals(reference(value), ObjWriter.formatFloatCompact(value), "value " + value);
+        }
+
+        Random random = new Random(25);
+        for (int i = 0; i < 200_000; i++) {
+            float value = switch (i % 3) {
+                case 0 -> Float.intBitsToFloat(random.nextInt());
+                case 1 -> (random.nextFloat() - 0.5f) * 2000;
+                default -> random.nextInt(2_000_000) / 1_000_000f - 1;
+            };
+            if (!Float.isFinite(value)) continue;
+            assertEquals(reference(value), ObjWriter.formatFloatCompact(value), "value " + value);
+        }
+    }
+
+    private static String reference(float value) {
+        String result = String.format(Locale.ROOT, "%.6f", value);
+        result = result.replaceAll("0*$", "");
+        return result.endsWith(".") ? result.substring(0, result.length() - 1) : result;
+    }
+
+    // потоковая запись блоками даёт тот же текст, что и modelToString
+    @Test
+    public void testStreamedWriteMatchesString() throws IOException {
+        Model model = new Model();
+        int size = 300;   // 90 000 вершин — больше одного блока и порога параллельной записи
+        for (int i = 0; i < size * size; i++) {
+            model.getVertices().add(new Vector3f(i % size * 0.1f, i / size * 0.01f, i * 1e-4f));
+        }
+        model.getTextureVertices().add(new Vector2f(0.25f, 0.75f));
+        model.getNormals().add(new Vector3f(0, 0, 1));
+        for (int i = 0; i + size + 1 < size * size; i += 7) {
+            model.getPolygons().add(createPolygonWithAll(
+                    new int[]{i, i + 1, i + size + 1}, new int[]{0, 0, 0}, new int[]{0, 0, 0}));
+        }
+
+        String expected = ObjWriter.modelToString(model, "стрим");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjWriter.write(model, "стрим", out);
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+        assertTrue(expected.startsWith("# стрим\nv 0 0 0\nv 0.1 0 0.0001\n"));
+        assertTrue(expected.contains("\nf 8/1/1 9/1/1 309/1/1\n"));
+
+        Path filePath = tempDir.resolve("big.obj");
+        ObjWriter.write(model, "стрим", filePath);
+        assertEquals(expected, Files.readString(filePath));
+    }
+
+    // модель проверяется до записи: при ошибке файл не трогается
+    @Test
+    public void testInvalidModelLeavesFileUntouched() throws IOException {
+        Path filePath = tempDir.resolve("keep.obj");
+        Files.writeString(filePath, "old");
+
+        Model model = new Model();
+        model.getVertices().add(new Vector3f(1, 2, 3));
+        model.getPolygons().add(createPolygon(0, 0, 5));
+
+        ObjWriterException ex = assertThrows(ObjWriterException.class,
+                () -> ObjWriter.write(model, "c", filePath));
+        assertTrue(ex.getMessage().contains("invalid vertex index 5"));
+        assertEquals("old", Files.readString(filePath));
+    }
+
     // запись в файл
     @Test
     public void testFileWriting() throws IOException {
@@ -0,0 +1,91 @@
+package com.cgvsu.utils.objtools;
+
+import com.cgvsu.model.Mesh;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.cgvsu.utils.objtools.MeshAssertions.assertSameMesh;
+
+public class ParallelObjReaderTest {
+
+    @TempDir
+    Path dir;
+
+    /** Сетка-полоса: вершины, текстуры и нормали перемежаются с гранями, часть граней с относительными индексами */
+    private static String strip(int quads, String newline) {
+        StringBuilder sb = new StringBuilder("\uFEFF# strip").append(newline);
+        sb.append("v 0 0 0").append(newline).append("v 0 1 0").append(newline);
+        sb.append("vt 0 0").append(newline).append("vn 0 0 1").append(newline);
+        for (int i = 1; i <= quads; i++) {
+            sb.append("v ").append(i).append(" 0 0").append(newline);
+            sb.append("v ").append(i).append(" 1 ").append(i * 0.125f).append(newline);
+            sb.append("vt ").append(i).append(" 0.5").append(newline);
+            int a = 2 * i - 1;
+            if (i % 2 == 0) {
+                sb.append("f ").append(a).append("/1/1 ").append(a + 2).append("/").append(i + 1).append("/1 ")
+                        .append(a + 3).append("/1/1 ").append(a + 1).append("/1/1");
+            } else {
+                sb.append("f -4/-2/-1 -2/-1/-1 -1/-1/1 -3/-2/1");
+            }
+            sb.append(newline);
+            if (i % 5 == 0) sb.append(newline).append("# comment").append(newline);
+        }
+        return sb.toString();
+    }
+
+    private Mesh readParallel(String text, int chunks) throws IOException {
+        Path file = dir.resolve("model.obj");
+        Files.writeString(file, text);
+        try (FileChannel channel = FileChannel.open(file)) {
+            return ParallelObjReader.read(channel, chunks);
+        }
+    }
+
+    @Test
+    public void testMatchesSequentialForAnyChunking() throws IOException {
+        for (String newline : new String[]{"\n", "\r\n", "\r"}) {
+            String text = strip(60, newline);
+            Mesh expected = ObjReader.read(text).getMesh();
+            for (int chunks = 1; chunks <= 40; chunks += 3) {
+                assertSameMesh(expected, readParallel(text, chunks), chunks + " chunks");
+            }
+        }
+    }
+
+    @Test
+    public void testErrorReportsGlobalLine() throws IOException {
+        String text = strip(60, "\r\n") + "f 1 2 999\r\n" + strip(5, "\r\n");
+        ObjReaderException expected = Assertions.assertThrows(ObjReaderException.class, () -> ObjReader.read(text));
+
+        for (int chunks = 1; chunks <= 40; chunks += 3) {
+            int count = chunks;
+            ObjReaderException ex = Assertions.assertThrows(ObjReaderException.class,
+                    () -> readParallel(text, count));
+            Assertions.assertEquals(expected.getMessage(), ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testSplitOnLineBoundaries() throws IOException {
+        String text = "v 0 0 0\r\nv 1 0 0\r\nv 0 1 0\r\nf 1 2 3\r\n";
+        Path file = dir.resolve("bounds.obj");
+        Files.writeString(file, text);
+        try (FileChannel channel = FileChannel.open(file)) {
+            long[] bounds = ParallelObjReader.split(channel, text.length());
+            Assertions.assertArrayEquals(new long[]{0, 9, 18, 27, 36}, bounds);
+        }
+    }
+
+    @Test
+    public void testReadParallelSmallFileFallsBack() throws IOException {
+        Path file = dir.resolve("small.obj");
+        Files.writeString(file, strip(3, "\n"));
+        Assertions.assertEquals(3, ObjReader.readParallel(file).getMesh().getPolygonCount());
+    }
+}